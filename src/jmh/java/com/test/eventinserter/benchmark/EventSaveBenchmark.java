@@ -0,0 +1,134 @@
+package com.test.eventinserter.benchmark;
+
+import com.test.eventinserter.bl.metrics.PipelineMetrics;
+import com.test.eventinserter.model.Event;
+import com.test.eventinserter.persistence.repository.EventBatchRepository;
+import com.test.eventinserter.persistence.repository.EventSchema;
+import com.test.eventinserter.persistence.service.EventService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Cost of saving events with EventService against an in-memory HSQLDB,
+// one by one as saveEvent does and in batches as the consumers do.
+// Only the persistence beans are started, so @Transactional still applies
+// but no broker or JPA bootstrapping is involved.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventSaveBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int batchSize;
+
+    private AnnotationConfigApplicationContext context;
+    private EventService eventService;
+    private JdbcTemplate jdbcTemplate;
+    private long nextId;
+
+    @Setup
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext(PersistenceConfig.class);
+        eventService = context.getBean(EventService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.execute(EventSchema.CREATE_TABLE_SQL);
+    }
+
+    // Each iteration starts with an empty table
+    @Setup(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.execute("TRUNCATE TABLE event");
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+        context.close();
+    }
+
+    @Benchmark
+    public void saveEvent() {
+        for (int i = 0; i < batchSize; i++) {
+            eventService.saveEvent(createEvent());
+        }
+    }
+
+    @Benchmark
+    public int saveEvents() {
+        List<Event> events = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            events.add(createEvent());
+        }
+        return eventService.saveEvents(events);
+    }
+
+    private Event createEvent() {
+        long id = nextId++;
+        Event event = new Event();
+        event.setId(Long.toString(id));
+        event.setDuration(id % 10);
+        event.setType("APPLICATION_LOG");
+        event.setHost("12345");
+        event.setAlert(id % 10 > 4);
+        return event;
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    static class PersistenceConfig {
+
+        @Bean(destroyMethod = "close")
+        public HikariDataSource dataSource() {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setJdbcUrl("jdbc:hsqldb:mem:benchmark;hsqldb.tx=mvcc");
+            dataSource.setUsername("sa");
+            return dataSource;
+        }
+
+        @Bean
+        public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource);
+        }
+
+        @Bean
+        public PlatformTransactionManager transactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        public EventBatchRepository eventBatchRepository(JdbcTemplate jdbcTemplate) {
+            return new EventBatchRepository(jdbcTemplate);
+        }
+
+        @Bean
+        public PipelineMetrics pipelineMetrics() {
+            return new PipelineMetrics();
+        }
+
+        // The JPA repository is only used by findAll
+        @Bean
+        public EventService eventService(EventBatchRepository eventBatchRepository, PipelineMetrics pipelineMetrics) {
+            return new EventService(null, eventBatchRepository, pipelineMetrics);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.test.eventinserter.benchmark;
+
+import com.test.eventinserter.converter.BinaryEventMessageConverter;
+import com.test.eventinserter.model.Event;
+import com.test.eventinserter.model.EventEnvelope;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jms.connection.CachingConnectionFactory;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.converter.MappingJackson2MessageConverter;
+import org.springframework.jms.support.converter.MessageConverter;
+import org.springframework.jms.support.converter.MessageType;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Cost of EventProducer.sendEvent through the JMS transport: conversion of
+// an event or an envelope with the configured message converter, alone and
+// sent with a JmsTemplate to an embedded non persistent broker. Sent messages
+// are drained by a listener which discards them, so the broker never blocks.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JmsSendBenchmark {
+
+    private static final String DESTINATION = "benchmarkEvents";
+
+    // json or binary, as eventinserter.jms.message-format
+    @Param({"json", "binary"})
+    private String messageFormat;
+
+    // Events per message, 1 sends single events
+    @Param({"1", "500"})
+    private int envelopeSize;
+
+    private CachingConnectionFactory connectionFactory;
+    private Connection drainConnection;
+    private Connection conversionConnection;
+    private Session conversionSession;
+    private JmsTemplate jmsTemplate;
+    private MessageConverter messageConverter;
+    private Object payload;
+
+    @Setup
+    public void setUp() throws JMSException {
+        ActiveMQConnectionFactory activeMqConnectionFactory =
+                new ActiveMQConnectionFactory("vm://benchmark?broker.persistent=false&broker.useJmx=false");
+        activeMqConnectionFactory.setTrustAllPackages(true);
+
+        drainConnection = activeMqConnectionFactory.createConnection();
+        Session drainSession = drainConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        MessageConsumer consumer = drainSession.createConsumer(drainSession.createQueue(DESTINATION));
+        consumer.setMessageListener(message -> { });
+        drainConnection.start();
+
+        conversionConnection = activeMqConnectionFactory.createConnection();
+        conversionSession = conversionConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+
+        messageConverter = createMessageConverter();
+        connectionFactory = new CachingConnectionFactory(activeMqConnectionFactory);
+        jmsTemplate = new JmsTemplate(connectionFactory);
+        jmsTemplate.setMessageConverter(messageConverter);
+
+        payload = envelopeSize == 1 ? createEvent(0) : createEnvelope();
+    }
+
+    @TearDown
+    public void tearDown() throws JMSException {
+        connectionFactory.destroy();
+        conversionConnection.close();
+        drainConnection.close();
+    }
+
+    @Benchmark
+    public Message convert() throws JMSException {
+        return messageConverter.toMessage(payload, conversionSession);
+    }
+
+    @Benchmark
+    public void convertAndSend() {
+        jmsTemplate.convertAndSend(DESTINATION, payload, message -> {
+            message.setBooleanProperty("hasMoreItems", true);
+            return message;
+        });
+    }
+
+    // Same converters as AppConfig builds for the listeners and the template
+    private MessageConverter createMessageConverter() {
+        MappingJackson2MessageConverter jsonConverter = new MappingJackson2MessageConverter();
+        jsonConverter.setTargetType(MessageType.TEXT);
+        jsonConverter.setTypeIdPropertyName("_type");
+
+        if ("binary".equals(messageFormat)) {
+            return new BinaryEventMessageConverter(jsonConverter);
+        }
+        return jsonConverter;
+    }
+
+    private EventEnvelope createEnvelope() {
+        List<Event> events = new ArrayList<>(envelopeSize);
+        for (int i = 0; i < envelopeSize; i++) {
+            events.add(createEvent(i));
+        }
+        return new EventEnvelope(events);
+    }
+
+    private static Event createEvent(int i) {
+        Event event = new Event();
+        event.setId(Integer.toString(1000000 + i));
+        event.setDuration((long) (i % 10));
+        event.setType("APPLICATION_LOG");
+        event.setHost("12345");
+        event.setAlert(i % 10 > 4);
+        return event;
+    }
+}
@@ -0,0 +1,102 @@
+package com.test.eventinserter.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.test.eventinserter.bl.parser.EventLineParser;
+import com.test.eventinserter.datageneration.DataGenerator;
+import com.test.eventinserter.model.EventItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Cost of turning a line of the input file into the fields of an event item,
+// which is what EventPairer.parse does for every line.
+// The ObjectMapper binding the lines used to go through is kept as a baseline.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LineParsingBenchmark {
+
+    private static final int LINES = 10000;
+
+    // Number of distinct ids, which changes the length of the ids
+    @Param({"1000", "1000000"})
+    private int idCardinality;
+
+    private byte[][] validLines;
+    private byte[][] malformedLines;
+    private String[] validStrings;
+
+    private final EventLineParser parser = new EventLineParser();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Setup
+    public void setUp() throws IOException {
+        List<String> lines = DataGenerator.generateLines(LINES, idCardinality);
+
+        validLines = new byte[LINES][];
+        malformedLines = new byte[LINES][];
+        validStrings = new String[LINES];
+
+        for (int i = 0; i < LINES; i++) {
+            String line = lines.get(i);
+            validStrings[i] = line;
+            validLines[i] = line.getBytes(StandardCharsets.UTF_8);
+            // Cut before the closing brace, like a partially written line
+            malformedLines[i] = line.substring(0, line.length() - 1).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void parseValid(Blackhole blackhole) {
+        for (byte[] line : validLines) {
+            blackhole.consume(parser.parse(line, 0, line.length));
+            blackhole.consume(parser.getTimestamp());
+            blackhole.consume(parser.getIdLength());
+        }
+    }
+
+    // A malformed line is parsed, then its id is looked up to be removed from the pairing store
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void parseMalformed(Blackhole blackhole) {
+        for (byte[] line : malformedLines) {
+            if (!parser.parse(line, 0, line.length)) {
+                blackhole.consume(parser.findId(line, 0, line.length));
+            }
+            blackhole.consume(parser.getIdLength());
+        }
+    }
+
+    // Strings of a paired line are created when the event is built
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void parseValidAndMaterialize(Blackhole blackhole) {
+        for (byte[] line : validLines) {
+            parser.parse(line, 0, line.length);
+            blackhole.consume(parser.getId());
+            blackhole.consume(parser.getType());
+            blackhole.consume(parser.getHost());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void objectMapperValid(Blackhole blackhole) throws IOException {
+        for (String line : validStrings) {
+            blackhole.consume(objectMapper.readValue(line, EventItem.class));
+        }
+    }
+}
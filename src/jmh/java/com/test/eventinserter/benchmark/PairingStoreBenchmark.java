@@ -0,0 +1,136 @@
+package com.test.eventinserter.benchmark;
+
+import com.test.eventinserter.bl.pairing.EhcachePairingStore;
+import com.test.eventinserter.bl.pairing.OffHeapPairingStore;
+import com.test.eventinserter.bl.pairing.PairingStore;
+import org.apache.commons.io.FileUtils;
+import org.ehcache.CachePersistenceException;
+import org.ehcache.PersistentCacheManager;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.CacheManagerBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.MemoryUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+// Cost of a pairing store access as done by EventProducer.accessCache.
+// The store is filled with idCardinality unmatched ids beforehand.
+// A hit pairs an id and stores it again, a miss stores a new id and removes it,
+// so the content of the store is the same from one invocation to the next.
+// The ehcache tiers are sized so that most entries live in the tier given.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PairingStoreBenchmark {
+
+    // offheap, ehcache-heap, ehcache-offheap or ehcache-disk
+    @Param({"offheap", "ehcache-heap", "ehcache-offheap", "ehcache-disk"})
+    private String store;
+
+    @Param({"10000", "1000000"})
+    private int idCardinality;
+
+    private PairingStore pairingStore;
+    private PersistentCacheManager cacheManager;
+    private File cacheDirectory;
+
+    private byte[][] storedIds;
+    private byte[][] missingIds;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        pairingStore = createStore();
+
+        storedIds = new byte[idCardinality][];
+        missingIds = new byte[idCardinality][];
+        for (int i = 0; i < idCardinality; i++) {
+            storedIds[i] = Integer.toString(i).getBytes(StandardCharsets.UTF_8);
+            missingIds[i] = Integer.toString(idCardinality + i).getBytes(StandardCharsets.UTF_8);
+            pairingStore.pairOrStore(storedIds[i], 0, storedIds[i].length, i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws CachePersistenceException {
+        pairingStore.close();
+        if (cacheManager != null) {
+            cacheManager.close();
+            cacheManager.destroy();
+        }
+        if (cacheDirectory != null) {
+            FileUtils.deleteQuietly(cacheDirectory);
+        }
+    }
+
+    @Benchmark
+    public long hit() {
+        byte[] id = storedIds[nextIndex()];
+        long previous = pairingStore.pairOrStore(id, 0, id.length, 1L);
+        pairingStore.pairOrStore(id, 0, id.length, previous);
+        return previous;
+    }
+
+    @Benchmark
+    public long miss() {
+        byte[] id = missingIds[nextIndex()];
+        long previous = pairingStore.pairOrStore(id, 0, id.length, 1L);
+        pairingStore.remove(id, 0, id.length);
+        return previous;
+    }
+
+    // Strided walk over the ids, so consecutive accesses do not hit the same slots
+    private int nextIndex() {
+        next = (next + 7919) % idCardinality;
+        return next;
+    }
+
+    private PairingStore createStore() throws IOException {
+        if ("offheap".equals(store)) {
+            return new OffHeapPairingStore(1024, 24);
+        }
+
+        ResourcePoolsBuilder resourcePools;
+        switch (store) {
+            case "ehcache-heap":
+                resourcePools = ResourcePoolsBuilder.newResourcePoolsBuilder()
+                        .heap(512, MemoryUnit.MB);
+                break;
+            case "ehcache-offheap":
+                resourcePools = ResourcePoolsBuilder.newResourcePoolsBuilder()
+                        .heap(1, MemoryUnit.MB)
+                        .offheap(512, MemoryUnit.MB);
+                break;
+            case "ehcache-disk":
+                resourcePools = ResourcePoolsBuilder.newResourcePoolsBuilder()
+                        .heap(1, MemoryUnit.MB)
+                        .offheap(2, MemoryUnit.MB)
+                        .disk(1024, MemoryUnit.MB);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown store " + store);
+        }
+
+        cacheDirectory = Files.createTempDirectory("pairing-benchmark").toFile();
+        cacheManager = CacheManagerBuilder.newCacheManagerBuilder()
+                .with(CacheManagerBuilder.persistence(cacheDirectory))
+                .withCache("eventItems", CacheConfigurationBuilder
+                        .newCacheConfigurationBuilder(String.class, Long.class, resourcePools))
+                .build(true);
+
+        return new EhcachePairingStore(cacheManager.getCache("eventItems", String.class, Long.class));
+    }
+}
@@ -0,0 +1,53 @@
+package com.test.eventinserter.bl.aggregate;
+
+import com.test.eventinserter.bl.metrics.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Counts and duration distribution of a group of events, such as the events
+// of a host. Updated by the reading threads without locks. Every part of it
+// is a sum, so aggregates of different groups merge into their total.
+public class EventAggregate {
+
+    private final LongAdder events = new LongAdder();
+    private final LongAdder alerts = new LongAdder();
+    private final LatencyHistogram durations = new LatencyHistogram();
+
+    void add(long duration, boolean alert) {
+        events.increment();
+        if (alert) {
+            alerts.increment();
+        }
+        durations.record(duration);
+    }
+
+    void merge(EventAggregate other) {
+        events.add(other.events.sum());
+        alerts.add(other.alerts.sum());
+        durations.merge(other.durations);
+    }
+
+    public long getEvents() {
+        return events.sum();
+    }
+
+    public long getAlerts() {
+        return alerts.sum();
+    }
+
+    // Upper bound of the duration below which the given percentage (0-100)
+    // of the events fall, at most 12.5% above the actual duration
+    public long getDurationPercentile(double percentile) {
+        return durations.percentile(percentile);
+    }
+
+    @Override
+    public String toString() {
+        return "EventAggregate{" +
+                "events=" + getEvents() +
+                ", alerts=" + getAlerts() +
+                ", p50=" + getDurationPercentile(50) +
+                ", p99=" + getDurationPercentile(99) +
+                '}';
+    }
+}
@@ -0,0 +1,69 @@
+package com.test.eventinserter.bl.aggregate;
+
+import com.test.eventinserter.model.Event;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Aggregates of the events by host and by type, kept up to date as events
+// are calculated, so questions such as alerts per host or p99 duration per
+// type are answered without reading the event table. They can be queried
+// over JMX through MetricsReporter while the input is being read. Events
+// of the current run are covered, the ones persisted by a run before a
+// resumed checkpoint are not.
+@Component
+public class EventAggregates {
+
+    // Events without a host or type are grouped under this key
+    public static final String UNKNOWN = "unknown";
+
+    private final Map<String, EventAggregate> byHost = new ConcurrentHashMap<>();
+    private final Map<String, EventAggregate> byType = new ConcurrentHashMap<>();
+
+    public void add(Event event) {
+        long duration = event.getDuration() == null ? 0 : event.getDuration();
+        boolean alert = Boolean.TRUE.equals(event.getAlert());
+
+        aggregateOf(byHost, event.getHost()).add(duration, alert);
+        aggregateOf(byType, event.getType()).add(duration, alert);
+    }
+
+    public Map<String, EventAggregate> getByHost() {
+        return Collections.unmodifiableMap(byHost);
+    }
+
+    public Map<String, EventAggregate> getByType() {
+        return Collections.unmodifiableMap(byType);
+    }
+
+    // Returns null if there is no event of the host
+    public EventAggregate getHost(String host) {
+        return byHost.get(host);
+    }
+
+    // Returns null if there is no event of the type
+    public EventAggregate getType(String type) {
+        return byType.get(type);
+    }
+
+    // Every event has exactly one type, so the types add up to the total
+    public EventAggregate getTotal() {
+        EventAggregate total = new EventAggregate();
+        for (EventAggregate aggregate : byType.values()) {
+            total.merge(aggregate);
+        }
+        return total;
+    }
+
+    // Looked up before computeIfAbsent, which locks even if the key exists
+    private static EventAggregate aggregateOf(Map<String, EventAggregate> aggregates, String key) {
+        String group = key == null ? UNKNOWN : key;
+        EventAggregate aggregate = aggregates.get(group);
+        if (aggregate == null) {
+            aggregate = aggregates.computeIfAbsent(group, k -> new EventAggregate());
+        }
+        return aggregate;
+    }
+}
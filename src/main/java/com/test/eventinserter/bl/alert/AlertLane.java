@@ -0,0 +1,80 @@
+package com.test.eventinserter.bl.alert;
+
+import com.test.eventinserter.bl.tracker.JobTracker;
+import com.test.eventinserter.model.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Hands alerts over to a thread of their own, apart from the batches of
+// normal events. The thread takes the next alert together with the alerts
+// queued behind it meanwhile and passes them to the handler at once, so an
+// alert never waits for a batch to fill or to age, while a burst of alerts
+// is still handled in a few steps instead of one per alert. Alerts are
+// sent through one lane and written to the database through another.
+public class AlertLane {
+
+    private static Logger logger = LoggerFactory.getLogger(AlertLane.class);
+
+    private final int maxAlerts;
+    private final JobTracker jobTracker;
+    private final Consumer<List<Event>> handler;
+    private final BlockingQueue<Event> queue;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    // The handler is given at most maxAlerts alerts at a time
+    public AlertLane(String threadName, int maxAlerts, JobTracker jobTracker, Consumer<List<Event>> handler) {
+        this.maxAlerts = Math.max(1, maxAlerts);
+        this.jobTracker = jobTracker;
+        this.handler = handler;
+        // Callers block when the handler falls behind
+        this.queue = new ArrayBlockingQueue<>(this.maxAlerts * 4);
+
+        thread = new Thread(this::handleLoop, threadName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void add(Event event) {
+        try {
+            queue.put(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while queueing alert with event id {}", event.getId());
+            // Done with as well, otherwise the job would never complete
+            jobTracker.eventsProcessed(1);
+        }
+    }
+
+    // Queued alerts are handled before stopping
+    public void stop() throws InterruptedException {
+        running = false;
+        thread.join();
+    }
+
+    private void handleLoop() {
+        while (running || !queue.isEmpty()) {
+            Event first;
+            try {
+                first = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (first == null) {
+                continue;
+            }
+
+            List<Event> alerts = new ArrayList<>();
+            alerts.add(first);
+            queue.drainTo(alerts, maxAlerts - 1);
+            handler.accept(alerts);
+        }
+    }
+}
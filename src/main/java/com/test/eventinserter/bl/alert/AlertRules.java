@@ -0,0 +1,67 @@
+package com.test.eventinserter.bl.alert;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+// Decides whether an event is an alert. An event is an alert when its
+// duration exceeds the threshold of its host, or of its type if its host
+// has none, or the default threshold if neither has one.
+// Thresholds are given as comma separated name:threshold pairs,
+// e.g. "APPLICATION_LOG:10,SYSTEM_LOG:2".
+@Component
+public class AlertRules {
+
+    private final long defaultThreshold;
+
+    private final Map<String, Long> typeThresholds;
+
+    private final Map<String, Long> hostThresholds;
+
+    @Autowired
+    public AlertRules(@Value("${eventinserter.alert.threshold-ms}") long defaultThreshold,
+                      @Value("${eventinserter.alert.type-thresholds}") String typeThresholds,
+                      @Value("${eventinserter.alert.host-thresholds}") String hostThresholds) {
+        this.defaultThreshold = defaultThreshold;
+        this.typeThresholds = parseThresholds("eventinserter.alert.type-thresholds", typeThresholds);
+        this.hostThresholds = parseThresholds("eventinserter.alert.host-thresholds", hostThresholds);
+    }
+
+    public boolean isAlert(String type, String host, long duration) {
+        return duration > getThreshold(type, host);
+    }
+
+    public long getThreshold(String type, String host) {
+        Long threshold = host == null ? null : hostThresholds.get(host);
+        if (threshold == null && type != null) {
+            threshold = typeThresholds.get(type);
+        }
+        return threshold == null ? defaultThreshold : threshold;
+    }
+
+    private static Map<String, Long> parseThresholds(String property, String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, Long> thresholds = new HashMap<>();
+        for (String pair : value.split(",")) {
+            int separator = pair.lastIndexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid threshold '" + pair.trim() + "' in " + property
+                        + ", expected name:threshold");
+            }
+            String name = pair.substring(0, separator).trim();
+            try {
+                thresholds.put(name, Long.parseLong(pair.substring(separator + 1).trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid threshold '" + pair.trim() + "' in " + property, e);
+            }
+        }
+        return thresholds;
+    }
+}
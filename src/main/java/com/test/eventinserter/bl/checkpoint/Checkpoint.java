@@ -0,0 +1,32 @@
+package com.test.eventinserter.bl.checkpoint;
+
+// Position of an ingestion at which everything read before the offset
+// has been paired, and every event of those pairs has been persisted.
+// The items still waiting for their pair are saved along with it.
+public class Checkpoint {
+
+    private final String inputPath;
+    private final long offset;
+    private final long persistedEvents;
+
+    public Checkpoint(String inputPath, long offset, long persistedEvents) {
+        this.inputPath = inputPath;
+        this.offset = offset;
+        this.persistedEvents = persistedEvents;
+    }
+
+    // Absolute path of the input file
+    public String getInputPath() {
+        return inputPath;
+    }
+
+    // Start of the first line which has not been read
+    public long getOffset() {
+        return offset;
+    }
+
+    // Events persisted up to the offset, over all runs of the ingestion
+    public long getPersistedEvents() {
+        return persistedEvents;
+    }
+}
@@ -0,0 +1,124 @@
+package com.test.eventinserter.bl.checkpoint;
+
+import com.test.eventinserter.bl.pairing.PairingStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+// Keeps the last checkpoint of an ingestion in a single file. A checkpoint
+// is written to a temporary file and synced before it replaces the previous
+// one, so a crash while writing leaves the previous checkpoint intact.
+// File layout: magic, version, input path, offset, persisted events, then
+// the unmatched items as (id length, id bytes, timestamp), ended by -1.
+@Component
+public class CheckpointStore {
+
+    private static final int MAGIC = 0x45494350;
+    private static final int VERSION = 1;
+    private static final int END_OF_ITEMS = -1;
+
+    @Value("${eventinserter.checkpoint.file}")
+    private String path;
+
+    public void save(Checkpoint checkpoint, PairingStore pairingStore) throws IOException {
+        File file = new File(path);
+        File temporaryFile = new File(path + ".tmp");
+        if (file.getAbsoluteFile().getParentFile() != null) {
+            Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+        }
+
+        try (FileOutputStream fileOutputStream = new FileOutputStream(temporaryFile);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOutputStream, 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(checkpoint.getInputPath());
+            out.writeLong(checkpoint.getOffset());
+            out.writeLong(checkpoint.getPersistedEvents());
+
+            try {
+                pairingStore.forEach((id, timestamp) -> writeItem(out, id, timestamp));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.writeInt(END_OF_ITEMS);
+
+            out.flush();
+            fileOutputStream.getFD().sync();
+        }
+
+        Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Returns null if there is no checkpoint
+    public Checkpoint load() throws IOException {
+        if (!new File(path).exists()) {
+            return null;
+        }
+
+        try (DataInputStream in = open()) {
+            return readHeader(in);
+        }
+    }
+
+    // Stores the unmatched items of the checkpoint into the given store.
+    // Returns the number of items.
+    public long restoreItems(PairingStore pairingStore) throws IOException {
+        long count = 0;
+
+        try (DataInputStream in = open()) {
+            readHeader(in);
+
+            int length;
+            while ((length = in.readInt()) != END_OF_ITEMS) {
+                byte[] id = new byte[length];
+                in.readFully(id);
+                pairingStore.pairOrStore(id, 0, length, in.readLong());
+                count++;
+            }
+        } catch (EOFException e) {
+            throw new IOException("Checkpoint " + path + " is truncated!", e);
+        }
+
+        return count;
+    }
+
+    public void delete() throws IOException {
+        Files.deleteIfExists(new File(path).toPath());
+    }
+
+    private DataInputStream open() throws IOException {
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(path), 64 * 1024));
+    }
+
+    private Checkpoint readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("File " + path + " is not a checkpoint of this version!");
+        }
+        return new Checkpoint(in.readUTF(), in.readLong(), in.readLong());
+    }
+
+    private static void writeItem(DataOutputStream out, String id, long timestamp) {
+        try {
+            byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.writeLong(timestamp);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
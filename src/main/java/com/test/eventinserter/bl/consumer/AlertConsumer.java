@@ -0,0 +1,34 @@
+package com.test.eventinserter.bl.consumer;
+
+import com.test.eventinserter.bl.metrics.PipelineMetrics;
+import com.test.eventinserter.bl.transport.JmsEventTransport;
+import com.test.eventinserter.model.Event;
+import com.test.eventinserter.model.EventEnvelope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jms.annotation.JmsListener;
+import org.springframework.stereotype.Component;
+
+// Alerts are written as soon as they arrive, apart from the batches
+@Component
+public class AlertConsumer {
+
+    private static Logger logger = LoggerFactory.getLogger(AlertConsumer.class);
+
+    @Autowired
+    private AlertWriter alertWriter;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @JmsListener(destination = JmsEventTransport.ALERT_DESTINATION, containerFactory = "alertListenerContainerFactory")
+    public void receiveAlerts(EventEnvelope envelope) {
+        logger.debug("Received alert message with {} events", envelope.getEvents().size());
+        pipelineMetrics.eventsReceived(envelope.getEvents().size());
+
+        for (Event event : envelope.getEvents()) {
+            alertWriter.add(event);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.test.eventinserter.bl.consumer;
+
+import com.test.eventinserter.bl.alert.AlertLane;
+import com.test.eventinserter.bl.tracker.JobTracker;
+import com.test.eventinserter.model.Event;
+import com.test.eventinserter.persistence.service.EventService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+
+// Writes alert events to the database as soon as they arrive, apart from
+// the batches of normal events, see AlertLane.
+@Component
+public class AlertWriter {
+
+    private static Logger logger = LoggerFactory.getLogger(AlertWriter.class);
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private JobTracker jobTracker;
+
+    @Value("${eventinserter.persistence.batch-size}")
+    private int batchSize;
+
+    private AlertLane alertLane;
+
+    @PostConstruct
+    public void start() {
+        alertLane = new AlertLane("alert-writer", batchSize, jobTracker, this::write);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        alertLane.stop();
+    }
+
+    public void add(Event event) {
+        alertLane.add(event);
+    }
+
+    private void write(List<Event> alerts) {
+        try {
+            int saved = eventService.saveEvents(alerts);
+            logger.debug("Saved {} alerts to database.", saved);
+        } catch (Exception e) {
+            logger.error("Error saving alerts to database!", e);
+        }
+
+        jobTracker.eventsProcessed(alerts.size());
+    }
+}
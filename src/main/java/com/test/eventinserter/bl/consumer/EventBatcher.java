@@ -0,0 +1,119 @@
+package com.test.eventinserter.bl.consumer;
+
+import com.test.eventinserter.bl.tracker.JobTracker;
+import com.test.eventinserter.model.Event;
+import com.test.eventinserter.persistence.service.EventService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Collects received events and writes them to the database in batches.
+// A batch is written when it reaches the configured size or when its
+// oldest event has waited longer than the configured age. Batches taken
+// by different consumer threads are written concurrently.
+@Component
+public class EventBatcher {
+
+    private static Logger logger = LoggerFactory.getLogger(EventBatcher.class);
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private JobTracker jobTracker;
+
+    @Value("${eventinserter.persistence.batch-size}")
+    private int batchSize;
+
+    @Value("${eventinserter.persistence.batch-max-age-ms}")
+    private long batchMaxAgeMs;
+
+    private List<Event> batch = new ArrayList<>();
+    private long batchStartedAt;
+
+    private ScheduledExecutorService flushScheduler;
+
+    @PostConstruct
+    public void start() {
+        flushScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "event-batch-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, batchMaxAgeMs / 2);
+        flushScheduler.scheduleAtFixedRate(this::flushIfExpired, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        flushScheduler.shutdownNow();
+        flush();
+    }
+
+    public void add(Event event) {
+        boolean full;
+
+        synchronized (this) {
+            if (batch.isEmpty()) {
+                batchStartedAt = System.currentTimeMillis();
+            }
+            batch.add(event);
+            full = batch.size() >= batchSize;
+        }
+
+        if (full) {
+            flush();
+        }
+    }
+
+    public void flush() {
+        List<Event> events;
+        synchronized (this) {
+            events = takeBatch();
+        }
+        write(events);
+    }
+
+    private void flushIfExpired() {
+        List<Event> events;
+        synchronized (this) {
+            if (batch.isEmpty() || System.currentTimeMillis() - batchStartedAt < batchMaxAgeMs) {
+                return;
+            }
+            events = takeBatch();
+        }
+        write(events);
+    }
+
+    private List<Event> takeBatch() {
+        List<Event> events = batch;
+        batch = new ArrayList<>(batchSize);
+        return events;
+    }
+
+    private void write(List<Event> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        try {
+            int saved = eventService.saveEvents(events);
+            logger.debug("Saved batch of {} events to database.", saved);
+        } catch (Exception e) {
+            logger.error("Error saving events to database!", e);
+        }
+
+        // Failed events are done with as well, otherwise the job would never complete
+        jobTracker.eventsProcessed(events.size());
+    }
+}
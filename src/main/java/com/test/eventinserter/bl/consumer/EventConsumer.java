@@ -1,49 +1,63 @@
 package com.test.eventinserter.bl.consumer;
 
+import com.test.eventinserter.bl.metrics.PipelineMetrics;
+import com.test.eventinserter.bl.transport.JmsEventTransport;
 import com.test.eventinserter.model.Event;
-import com.test.eventinserter.persistence.service.EventService;
+import com.test.eventinserter.model.EventEnvelope;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.jms.annotation.JmsListener;
 import org.springframework.messaging.handler.annotation.Headers;
 import org.springframework.stereotype.Component;
 
 import java.util.Map;
 
+// Receives the events with a listener container, which acknowledges every
+// message on its own, and hands them to the EventBatcher
 @Component
+@ConditionalOnProperty(name = "eventinserter.jms.consumer-mode", havingValue = "listener", matchIfMissing = true)
 public class EventConsumer {
 
     private static Logger logger = LoggerFactory.getLogger(EventConsumer.class);
 
     @Autowired
-    private EventService eventService;
+    private EventBatcher eventBatcher;
 
-    // Mutex to check if consumer's job is complete
-    private Object jobComplete = new Object();
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
 
-    @JmsListener(destination = "events", containerFactory = "jmsListenerContainerFactory")
+    @JmsListener(destination = JmsEventTransport.EVENT_DESTINATION, containerFactory = "jmsListenerContainerFactory")
     public void receiveMessage(Event event, @Headers Map<String, Object> headers) {
         logger.debug("Received event message with event id {}", event.getId());
+        pipelineMetrics.eventsReceived(1);
 
-        try {
-            eventService.saveEvent(event);
-            logger.info("Event {} is saved to database.", event.getId());
-        } catch (Exception e) {
-            logger.error("Error saving event to database!", e);
-        }
+        eventBatcher.add(event);
 
-        // If this is the last item notify the main thread that the job is done
-        Boolean hasMoreItems = (Boolean) headers.get("hasMoreItems");
-        if (!hasMoreItems) {
-            synchronized (jobComplete) {
-                jobComplete.notify();
-            }
-        }
+        completeIfLast(headers);
     }
 
+    @JmsListener(destination = JmsEventTransport.ENVELOPE_DESTINATION, containerFactory = "jmsListenerContainerFactory")
+    public void receiveEnvelope(EventEnvelope envelope, @Headers Map<String, Object> headers) {
+        logger.debug("Received envelope message with {} events", envelope.getEvents().size());
+        pipelineMetrics.eventsReceived(envelope.getEvents().size());
+
+        for (Event event : envelope.getEvents()) {
+            eventBatcher.add(event);
+        }
+
+        completeIfLast(headers);
+    }
 
-    public Object getJobComplete() {
-        return jobComplete;
+    // If this is the last message write the pending batch right away
+    // instead of waiting for it to age. Completion of the job is tracked
+    // by counts, as with concurrent consumers the last message sent
+    // is not necessarily the last one processed.
+    private void completeIfLast(Map<String, Object> headers) {
+        Boolean hasMoreItems = (Boolean) headers.get("hasMoreItems");
+        if (Boolean.FALSE.equals(hasMoreItems)) {
+            eventBatcher.flush();
+        }
     }
 }
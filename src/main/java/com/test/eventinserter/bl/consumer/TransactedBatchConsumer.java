@@ -0,0 +1,229 @@
+package com.test.eventinserter.bl.consumer;
+
+import com.test.eventinserter.bl.metrics.PipelineMetrics;
+import com.test.eventinserter.bl.tracker.JobTracker;
+import com.test.eventinserter.bl.transport.JmsEventTransport;
+import com.test.eventinserter.model.Event;
+import com.test.eventinserter.model.EventEnvelope;
+import com.test.eventinserter.persistence.service.EventService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jms.connection.SingleConnectionFactory;
+import org.springframework.jms.support.JmsUtils;
+import org.springframework.jms.support.converter.MessageConverter;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+import java.util.ArrayList;
+import java.util.List;
+
+// Receives the events in transacted sessions, one per consumer thread,
+// instead of acknowledging every message on its own. A thread receives
+// messages until their events fill a batch, the batch has waited long
+// enough or the last message of the job arrives. It then writes the batch
+// to the database and commits the session, so there is one JMS commit per
+// database commit. Messages of a batch which is not committed are
+// delivered again, and EventService skips their events saved already.
+@Component
+@ConditionalOnProperty(name = "eventinserter.jms.consumer-mode", havingValue = "transacted-batch")
+public class TransactedBatchConsumer {
+
+    private static Logger logger = LoggerFactory.getLogger(TransactedBatchConsumer.class);
+
+    // Waiting for the first message of a batch
+    private static final long POLL_MS = 100;
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private MessageConverter jmsMessageConverter;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private JobTracker jobTracker;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    // Number of consumers, e.g. "4" or "2-8" of which the upper bound is used
+    @Value("${eventinserter.jms.consumer-concurrency}")
+    private String consumerConcurrency;
+
+    @Value("${eventinserter.persistence.batch-size}")
+    private int batchSize;
+
+    @Value("${eventinserter.persistence.batch-max-age-ms}")
+    private long batchMaxAgeMs;
+
+    private Connection connection;
+    private final List<Thread> consumerThreads = new ArrayList<>();
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        ConnectionFactory targetConnectionFactory = connectionFactory;
+        if (connectionFactory instanceof SingleConnectionFactory) {
+            targetConnectionFactory = ((SingleConnectionFactory) connectionFactory).getTargetConnectionFactory();
+        }
+
+        int consumers = Integer.parseInt(consumerConcurrency.substring(consumerConcurrency.indexOf('-') + 1).trim());
+        running = true;
+        try {
+            connection = targetConnectionFactory.createConnection();
+            for (int i = 0; i < consumers; i++) {
+                Session session = connection.createSession(true, Session.SESSION_TRANSACTED);
+                // A composite destination, both the single events and the envelopes are received
+                MessageConsumer consumer = session.createConsumer(session.createQueue(
+                        JmsEventTransport.EVENT_DESTINATION + "," + JmsEventTransport.ENVELOPE_DESTINATION));
+                Thread thread = new Thread(() -> consume(session, consumer));
+                thread.setName("jms-batch-consumer-" + (i + 1));
+                thread.setDaemon(true);
+                consumerThreads.add(thread);
+            }
+            connection.start();
+        } catch (JMSException e) {
+            throw JmsUtils.convertJmsAccessException(e);
+        }
+
+        consumerThreads.forEach(Thread::start);
+        logger.info("Receiving events with {} transacted batch consumers", consumers);
+    }
+
+    // Batches received so far are written before stopping
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread thread : consumerThreads) {
+            thread.join();
+        }
+        JmsUtils.closeConnection(connection);
+    }
+
+    private void consume(Session session, MessageConsumer consumer) {
+        Batch batch = new Batch(batchSize);
+
+        while (running) {
+            try {
+                long timeout = batch.messages == 0 ? POLL_MS
+                        : Math.max(1, batch.startedAt + batchMaxAgeMs - System.currentTimeMillis());
+                Message message = consumer.receive(timeout);
+
+                boolean last = false;
+                if (message != null) {
+                    if (batch.messages == 0) {
+                        batch.startedAt = System.currentTimeMillis();
+                    }
+                    batch.messages++;
+                    last = receive(message, batch);
+                }
+
+                if (batch.messages > 0 && (last || batch.events.size() >= batchSize
+                        || System.currentTimeMillis() - batch.startedAt >= batchMaxAgeMs)) {
+                    commit(session, batch);
+                    batch.clear();
+                }
+            } catch (JMSException | RuntimeException e) {
+                // The messages of the batch are delivered again. The thread
+                // keeps consuming, otherwise the job would never complete.
+                logger.error("Problem receiving event messages!", e);
+                rollback(session);
+                batch.clear();
+            }
+        }
+
+        if (batch.messages > 0) {
+            try {
+                commit(session, batch);
+            } catch (JMSException e) {
+                logger.error("Problem committing last event messages!", e);
+            }
+        }
+    }
+
+    // Returns true if this is the last message of the job
+    private boolean receive(Message message, Batch batch) throws JMSException {
+        int received;
+        try {
+            Object payload = jmsMessageConverter.fromMessage(message);
+            if (payload instanceof EventEnvelope) {
+                List<Event> envelopeEvents = ((EventEnvelope) payload).getEvents();
+                batch.events.addAll(envelopeEvents);
+                received = envelopeEvents.size();
+            } else {
+                batch.events.add((Event) payload);
+                received = 1;
+            }
+        } catch (RuntimeException e) {
+            // Any failure of the converter, such as on a truncated body. The message
+            // is committed with the batch, it would fail again if delivered again
+            // and take the messages received before it in the batch along.
+            // Its events are done with once the batch is committed, as far as
+            // the sender told how many there are.
+            int lost = message.propertyExists(JmsEventTransport.EVENT_COUNT_PROPERTY)
+                    ? message.getIntProperty(JmsEventTransport.EVENT_COUNT_PROPERTY) : 0;
+            logger.error("Could not convert event message of {} events!", lost, e);
+            batch.lostEvents += lost;
+            return false;
+        }
+        pipelineMetrics.eventsReceived(received);
+
+        return message.propertyExists("hasMoreItems") && !message.getBooleanProperty("hasMoreItems");
+    }
+
+    private void commit(Session session, Batch batch) throws JMSException {
+        try {
+            int saved = eventService.saveEvents(batch.events);
+            logger.debug("Saved batch of {} events to database.", saved);
+        } catch (Exception e) {
+            logger.error("Error saving events to database!", e);
+        }
+
+        // Failed events are done with as well, otherwise the job would never complete.
+        // Events of a batch whose commit fails are counted when they are received again.
+        session.commit();
+        pipelineMetrics.eventsLost(batch.lostEvents);
+        jobTracker.eventsProcessed(batch.events.size() + batch.lostEvents);
+    }
+
+    private void rollback(Session session) {
+        try {
+            session.rollback();
+        } catch (JMSException e) {
+            logger.debug("Could not roll back session", e);
+        }
+    }
+
+    // The messages received by a consumer thread since its last commit
+    private static class Batch {
+
+        private final List<Event> events;
+        private int messages;
+        private long startedAt;
+
+        // Events of messages which could not be converted
+        private int lostEvents;
+
+        private Batch(int batchSize) {
+            events = new ArrayList<>(batchSize);
+        }
+
+        private void clear() {
+            events.clear();
+            messages = 0;
+            lostEvents = 0;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.test.eventinserter.bl.distributed;
+
+import com.test.eventinserter.bl.producer.EventProducer;
+import com.test.eventinserter.model.EventItem;
+import com.test.eventinserter.model.ItemEnvelope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jms.annotation.JmsListener;
+import org.springframework.stereotype.Component;
+
+// Receives the items published by the reader nodes on a pairer node. The
+// broker hands every group of ids to a single consumer, so the items of an
+// id are all paired in the pairing store of this node.
+@Component
+@ConditionalOnProperty(name = "eventinserter.role", havingValue = "pairer")
+public class ItemPairer {
+
+    private static Logger logger = LoggerFactory.getLogger(ItemPairer.class);
+
+    @Autowired
+    private EventProducer eventProducer;
+
+    @JmsListener(destination = ItemPublisher.ITEM_DESTINATION, containerFactory = "jmsListenerContainerFactory")
+    public void receiveItems(ItemEnvelope envelope) {
+        logger.debug("Received item message with {} items", envelope.getItems().size());
+
+        for (EventItem item : envelope.getItems()) {
+            eventProducer.pairItem(item);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.test.eventinserter.bl.distributed;
+
+import com.test.eventinserter.bl.parser.EventLineParser;
+import com.test.eventinserter.model.EventItem;
+import com.test.eventinserter.model.ItemEnvelope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jms.JmsException;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Publishes the items read on a reader node to the pairer nodes. The id
+// space is split into groups by a hash of the id, and every message carries
+// the JMSXGroupID of its group. The broker delivers all messages of a group
+// to the same consumer, so both items of a pair meet in the pairing store
+// of one pairer node, no matter which readers read them. Items are packed
+// into an envelope per group, which is sent when it is full or when its
+// oldest item has waited long enough.
+@Component
+@ConditionalOnProperty(name = "eventinserter.role", havingValue = "reader")
+public class ItemPublisher {
+
+    public static final String ITEM_DESTINATION = "items";
+
+    private static Logger logger = LoggerFactory.getLogger(ItemPublisher.class);
+
+    @Autowired
+    private JmsTemplate jmsTemplate;
+
+    @Value("${eventinserter.distributed.groups}")
+    private int groupCount;
+
+    @Value("${eventinserter.jms.envelope-size}")
+    private int envelopeSize;
+
+    @Value("${eventinserter.jms.envelope-max-age-ms}")
+    private long envelopeMaxAgeMs;
+
+    private Group[] groups;
+
+    private ScheduledExecutorService flushScheduler;
+
+    @PostConstruct
+    public void start() {
+        groups = new Group[groupCount];
+        for (int i = 0; i < groupCount; i++) {
+            groups[i] = new Group("items-" + i);
+        }
+
+        flushScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "item-envelope-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, envelopeMaxAgeMs / 2);
+        flushScheduler.scheduleAtFixedRate(this::flushExpired, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        flushScheduler.shutdownNow();
+    }
+
+    // Called by the reading threads with a successfully parsed line
+    public void publish(EventLineParser parser) {
+        EventItem item = new EventItem();
+        item.setId(parser.getId());
+        item.setState(parser.getState());
+        item.setTimestamp(parser.getTimestamp());
+        item.setType(parser.getType());
+        item.setHost(parser.getHost());
+        add(item);
+    }
+
+    // Called with a line which could not be parsed but whose id was found
+    public void publishTombstone(EventLineParser parser) {
+        EventItem item = new EventItem();
+        item.setId(parser.getId());
+        add(item);
+    }
+
+    // Sends every envelope, called once the input has been read
+    public void flush() {
+        for (Group group : groups) {
+            synchronized (group) {
+                if (!group.items.isEmpty()) {
+                    send(group);
+                }
+            }
+        }
+    }
+
+    // String.hashCode is the same on every node
+    static int groupOf(String id, int groupCount) {
+        int hash = id.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), groupCount);
+    }
+
+    // Envelopes are sent under the lock of their group,
+    // which keeps the items of a group in order
+    private void add(EventItem item) {
+        Group group = groups[groupOf(item.getId(), groupCount)];
+        synchronized (group) {
+            if (group.items.isEmpty()) {
+                group.startedAt = System.currentTimeMillis();
+            }
+            group.items.add(item);
+            if (group.items.size() >= envelopeSize) {
+                send(group);
+            }
+        }
+    }
+
+    private void flushExpired() {
+        long now = System.currentTimeMillis();
+        for (Group group : groups) {
+            synchronized (group) {
+                if (!group.items.isEmpty() && now - group.startedAt >= envelopeMaxAgeMs) {
+                    send(group);
+                }
+            }
+        }
+    }
+
+    private void send(Group group) {
+        ItemEnvelope envelope = new ItemEnvelope(group.items);
+        group.items = new ArrayList<>(envelopeSize);
+
+        // When a problem occurs with message delivery retry for
+        // multiple times. If the problem persists then terminate.
+        for (int i = 0; i <= 10; i++) {
+            try {
+                jmsTemplate.convertAndSend(ITEM_DESTINATION, envelope, m -> {
+                    m.setStringProperty("JMSXGroupID", group.id);
+                    return m;
+                });
+                return;
+            } catch (JmsException e) {
+                logger.error("Problem sending item message!", e);
+                sleep();
+            }
+        }
+
+        logger.error("Fatal Error! Unable to send item message!");
+        logger.info("Exiting...");
+        System.exit(1);
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Group {
+
+        private final String id;
+        private List<EventItem> items = new ArrayList<>();
+        private long startedAt;
+
+        private Group(String id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.test.eventinserter.bl.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock free histogram of non negative values, such as latencies in microseconds.
+// Buckets are log-linear: every power of two is split into 8 linear
+// sub-buckets, so a reported percentile is at most 12.5% above the
+// recorded value while the whole range of a long fits in 512 counters.
+// Histograms recorded separately are merged by adding their counters.
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    public void record(long value) {
+        counts.incrementAndGet(indexOf(Math.max(0, value)));
+    }
+
+    // Adds the values recorded by the other histogram to this one
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = other.counts.get(i);
+            if (count > 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+    }
+
+    // Upper bound of the bucket holding the given percentile (0-100) of the
+    // recorded values, 0 if nothing has been recorded
+    public long percentile(double percentile) {
+        long[] snapshot = snapshot();
+        long total = 0;
+        for (long count : snapshot) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long cumulative = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            cumulative += snapshot[i];
+            if (cumulative >= target) {
+                return highestValueAt(i);
+            }
+        }
+        return highestValueAt(snapshot.length - 1);
+    }
+
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    private long[] snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+
+    // Values below 8 get a bucket of their own. Above that the bucket
+    // is given by the position of the highest bit and the 3 bits after it.
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestValueAt(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        long upperBound = (SUB_BUCKETS + subBucket + 1) << shift;
+        // The last bucket ends at Long.MAX_VALUE
+        return upperBound <= 0 ? Long.MAX_VALUE : upperBound - 1;
+    }
+}
@@ -0,0 +1,328 @@
+package com.test.eventinserter.bl.metrics;
+
+import com.test.eventinserter.bl.aggregate.EventAggregate;
+import com.test.eventinserter.bl.aggregate.EventAggregates;
+import com.test.eventinserter.bl.pairing.PairingStore;
+import com.test.eventinserter.bl.tracker.JobTracker;
+import com.test.eventinserter.bl.transport.EventTransport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedOperationParameter;
+import org.springframework.jmx.export.annotation.ManagedOperationParameters;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Publishes the pipeline metrics over JMX and as a periodic summary line
+// in the log. Rates are computed over the last reporting interval, so the
+// stage which is saturated shows as the one whose rate stops following.
+// The event aggregates by host and type can be polled here while the
+// input is being read.
+@Component
+@ManagedResource(objectName = "eventinserter:type=PipelineMetrics", description = "Event inserter pipeline metrics")
+public class MetricsReporter {
+
+    private static Logger logger = LoggerFactory.getLogger(MetricsReporter.class);
+
+    @Autowired
+    private PipelineMetrics metrics;
+
+    @Autowired
+    private PairingStore pairingStore;
+
+    @Autowired
+    private EventTransport eventTransport;
+
+    @Autowired
+    private JobTracker jobTracker;
+
+    @Autowired
+    private EventAggregates eventAggregates;
+
+    // Reporting is disabled when the interval is 0
+    @Value("${eventinserter.metrics.report-interval-ms}")
+    private long reportIntervalMs;
+
+    private ScheduledExecutorService reportScheduler;
+
+    private long lastReportedAt;
+    private long lastLinesRead;
+    private long lastBytesRead;
+    private long lastEventsPersisted;
+
+    private volatile double linesPerSecond;
+    private volatile double bytesPerSecond;
+    private volatile double eventsPersistedPerSecond;
+
+    @PostConstruct
+    public void start() {
+        lastReportedAt = System.nanoTime();
+        if (reportIntervalMs <= 0) {
+            return;
+        }
+
+        reportScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reportScheduler.scheduleAtFixedRate(this::report, reportIntervalMs, reportIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (reportScheduler != null) {
+            reportScheduler.shutdownNow();
+        }
+    }
+
+    // Nothing is logged while the pipeline is idle
+    synchronized void report() {
+        try {
+            if (!updateRates()) {
+                return;
+            }
+
+            logger.info("Read {} lines ({}/s, {} MB, {}% of input), {} parse failures, "
+                            + "unmatched items {}, expired items {}, sent {} events, transport backlog {}, "
+                            + "in flight {} events, waited {} ms for credits, "
+                            + "persisted {} events ({}/s), db write p50/p95/p99 {}/{}/{} ms, {} s remaining",
+                    metrics.getLinesRead(), Math.round(linesPerSecond), metrics.getBytesRead() / (1024 * 1024),
+                    getInputReadPercentage(), metrics.getParseFailures(),
+                    pairingStore.sizeByTier(), metrics.getItemsExpired(), metrics.getEventsSent(),
+                    eventTransport.pendingMessages(), jobTracker.getEventsInFlight(), metrics.getFlowControlWaitMs(),
+                    metrics.getEventsPersisted(), Math.round(eventsPersistedPerSecond),
+                    getDbWriteLatencyP50Ms(), getDbWriteLatencyP95Ms(), getDbWriteLatencyP99Ms(),
+                    getEstimatedSecondsRemaining());
+        } catch (RuntimeException e) {
+            // A failing report must not cancel the following ones
+            logger.warn("Could not report metrics!", e);
+        }
+    }
+
+    // Returns false if nothing has been read or persisted since the last report
+    private boolean updateRates() {
+        long now = System.nanoTime();
+        long linesRead = metrics.getLinesRead();
+        long bytesRead = metrics.getBytesRead();
+        long eventsPersisted = metrics.getEventsPersisted();
+        double seconds = Math.max(1, now - lastReportedAt) / 1e9;
+
+        boolean changed = linesRead != lastLinesRead || eventsPersisted != lastEventsPersisted;
+        linesPerSecond = (linesRead - lastLinesRead) / seconds;
+        bytesPerSecond = (bytesRead - lastBytesRead) / seconds;
+        eventsPersistedPerSecond = (eventsPersisted - lastEventsPersisted) / seconds;
+
+        lastReportedAt = now;
+        lastLinesRead = linesRead;
+        lastBytesRead = bytesRead;
+        lastEventsPersisted = eventsPersisted;
+        return changed;
+    }
+
+    @ManagedAttribute(description = "Lines read from the input")
+    public long getLinesRead() {
+        return metrics.getLinesRead();
+    }
+
+    @ManagedAttribute(description = "Lines read per second over the last interval")
+    public double getLinesPerSecond() {
+        return linesPerSecond;
+    }
+
+    @ManagedAttribute(description = "Bytes read from the input")
+    public long getBytesRead() {
+        return metrics.getBytesRead();
+    }
+
+    @ManagedAttribute(description = "Bytes read per second over the last interval")
+    public double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    @ManagedAttribute(description = "Size of the input in bytes")
+    public long getBytesToRead() {
+        return metrics.getBytesToRead();
+    }
+
+    @ManagedAttribute(description = "Lines which could not be parsed or have no id or timestamp")
+    public long getParseFailures() {
+        return metrics.getParseFailures();
+    }
+
+    @ManagedAttribute(description = "Items waiting for their pair")
+    public long getUnmatchedItems() {
+        return pairingStore.size();
+    }
+
+    @ManagedAttribute(description = "Items waiting for their pair by pairing store tier")
+    public String getUnmatchedItemsByTier() {
+        return pairingStore.sizeByTier().toString();
+    }
+
+    @ManagedAttribute(description = "Items evicted to the dead letter file without their pair")
+    public long getItemsExpired() {
+        return metrics.getItemsExpired();
+    }
+
+    @ManagedAttribute(description = "Events handed over to the transport")
+    public long getEventsSent() {
+        return metrics.getEventsSent();
+    }
+
+    @ManagedAttribute(description = "Messages sent but not consumed yet, -1 if unknown")
+    public long getTransportBacklog() {
+        return eventTransport.pendingMessages();
+    }
+
+    @ManagedAttribute(description = "Events sent but not saved or rejected yet")
+    public long getEventsInFlight() {
+        return jobTracker.getEventsInFlight();
+    }
+
+    @ManagedAttribute(description = "Time the producer waited for events in flight to be saved, in milliseconds")
+    public long getFlowControlWaitMs() {
+        return metrics.getFlowControlWaitMs();
+    }
+
+    @ManagedAttribute(description = "Events received by the JMS consumers")
+    public long getEventsReceived() {
+        return metrics.getEventsReceived();
+    }
+
+    @ManagedAttribute(description = "Events written to the database")
+    public long getEventsPersisted() {
+        return metrics.getEventsPersisted();
+    }
+
+    @ManagedAttribute(description = "Events written to the database per second over the last interval")
+    public double getEventsPersistedPerSecond() {
+        return eventsPersistedPerSecond;
+    }
+
+    @ManagedAttribute(description = "Median duration of a database write in milliseconds")
+    public double getDbWriteLatencyP50Ms() {
+        return metrics.getDbWriteLatency().percentile(50) / 1000.0;
+    }
+
+    @ManagedAttribute(description = "95th percentile duration of a database write in milliseconds")
+    public double getDbWriteLatencyP95Ms() {
+        return metrics.getDbWriteLatency().percentile(95) / 1000.0;
+    }
+
+    @ManagedAttribute(description = "99th percentile duration of a database write in milliseconds")
+    public double getDbWriteLatencyP99Ms() {
+        return metrics.getDbWriteLatency().percentile(99) / 1000.0;
+    }
+
+    @ManagedAttribute(description = "Percentage of the input read")
+    public long getInputReadPercentage() {
+        long bytesToRead = metrics.getBytesToRead();
+        return bytesToRead == 0 ? 0 : Math.min(100, metrics.getBytesRead() * 100 / bytesToRead);
+    }
+
+    @ManagedAttribute(description = "Events calculated in this run")
+    public long getEventsCalculated() {
+        return eventAggregates.getTotal().getEvents();
+    }
+
+    @ManagedAttribute(description = "Events calculated in this run which are alerts")
+    public long getAlertsRaised() {
+        return eventAggregates.getTotal().getAlerts();
+    }
+
+    @ManagedAttribute(description = "Median event duration in milliseconds")
+    public long getEventDurationP50Ms() {
+        return eventAggregates.getTotal().getDurationPercentile(50);
+    }
+
+    @ManagedAttribute(description = "99th percentile event duration in milliseconds")
+    public long getEventDurationP99Ms() {
+        return eventAggregates.getTotal().getDurationPercentile(99);
+    }
+
+    @ManagedAttribute(description = "Events, alerts and p50/p99 duration by host")
+    public String getEventsByHost() {
+        return new TreeMap<>(eventAggregates.getByHost()).toString();
+    }
+
+    @ManagedAttribute(description = "Events, alerts and p50/p99 duration by type")
+    public String getEventsByType() {
+        return new TreeMap<>(eventAggregates.getByType()).toString();
+    }
+
+    @ManagedOperation(description = "Events of a host")
+    @ManagedOperationParameters(@ManagedOperationParameter(name = "host", description = "Host of the events"))
+    public long countEventsOfHost(String host) {
+        EventAggregate aggregate = eventAggregates.getHost(host);
+        return aggregate == null ? 0 : aggregate.getEvents();
+    }
+
+    @ManagedOperation(description = "Alerts of a host")
+    @ManagedOperationParameters(@ManagedOperationParameter(name = "host", description = "Host of the events"))
+    public long countAlertsOfHost(String host) {
+        EventAggregate aggregate = eventAggregates.getHost(host);
+        return aggregate == null ? 0 : aggregate.getAlerts();
+    }
+
+    @ManagedOperation(description = "Duration percentile of the events of a host in milliseconds, -1 without events")
+    @ManagedOperationParameters({
+            @ManagedOperationParameter(name = "host", description = "Host of the events"),
+            @ManagedOperationParameter(name = "percentile", description = "Percentile between 0 and 100")})
+    public long durationPercentileOfHost(String host, double percentile) {
+        return durationPercentile(eventAggregates.getHost(host), percentile);
+    }
+
+    @ManagedOperation(description = "Events of a type")
+    @ManagedOperationParameters(@ManagedOperationParameter(name = "type", description = "Type of the events"))
+    public long countEventsOfType(String type) {
+        EventAggregate aggregate = eventAggregates.getType(type);
+        return aggregate == null ? 0 : aggregate.getEvents();
+    }
+
+    @ManagedOperation(description = "Alerts of a type")
+    @ManagedOperationParameters(@ManagedOperationParameter(name = "type", description = "Type of the events"))
+    public long countAlertsOfType(String type) {
+        EventAggregate aggregate = eventAggregates.getType(type);
+        return aggregate == null ? 0 : aggregate.getAlerts();
+    }
+
+    @ManagedOperation(description = "Duration percentile of the events of a type in milliseconds, -1 without events")
+    @ManagedOperationParameters({
+            @ManagedOperationParameter(name = "type", description = "Type of the events"),
+            @ManagedOperationParameter(name = "percentile", description = "Percentile between 0 and 100")})
+    public long durationPercentileOfType(String type, double percentile) {
+        return durationPercentile(eventAggregates.getType(type), percentile);
+    }
+
+    private static long durationPercentile(EventAggregate aggregate, double percentile) {
+        return aggregate == null ? -1 : aggregate.getDurationPercentile(percentile);
+    }
+
+    // While the input is being read the remaining bytes at the current read
+    // rate, afterwards the events left to persist at the current write rate.
+    // -1 if there is no rate to estimate with.
+    @ManagedAttribute(description = "Estimated seconds until the job completes, -1 if unknown")
+    public long getEstimatedSecondsRemaining() {
+        long bytesRemaining = metrics.getBytesToRead() - metrics.getBytesRead();
+        if (bytesRemaining > 0) {
+            return bytesPerSecond > 0 ? Math.round(bytesRemaining / bytesPerSecond) : -1;
+        }
+
+        long eventsRemaining = metrics.getEventsSent() - metrics.getEventsPersisted();
+        if (eventsRemaining <= 0) {
+            return 0;
+        }
+        return eventsPersistedPerSecond > 0 ? Math.round(eventsRemaining / eventsPersistedPerSecond) : -1;
+    }
+}
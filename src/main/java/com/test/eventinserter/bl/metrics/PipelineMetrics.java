@@ -0,0 +1,120 @@
+package com.test.eventinserter.bl.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters updated by the stages of the pipeline: reading and parsing in
+// the producer, sending, receiving in the consumers and writing to the
+// database. LongAdders keep the reading and consumer threads from
+// contending on shared counters. MetricsReporter publishes them.
+@Component
+public class PipelineMetrics {
+
+    private final LongAdder bytesToRead = new LongAdder();
+    private final LongAdder linesRead = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder parseFailures = new LongAdder();
+    private final LongAdder eventsSent = new LongAdder();
+    private final LongAdder eventsReceived = new LongAdder();
+    private final LongAdder eventsPersisted = new LongAdder();
+    private final LongAdder eventsLost = new LongAdder();
+    private final LongAdder itemsExpired = new LongAdder();
+    private final LongAdder flowControlWaitNanos = new LongAdder();
+    // Summed over the consumers, which write in parallel
+    private final LongAdder dbWriteNanos = new LongAdder();
+
+    // Duration of database writes in microseconds
+    private final LatencyHistogram dbWriteLatency = new LatencyHistogram();
+
+    public void inputOpened(long bytes) {
+        bytesToRead.add(bytes);
+    }
+
+    // The line terminator is counted as a single byte
+    public void lineRead(int length) {
+        linesRead.increment();
+        bytesRead.add(length + 1);
+    }
+
+    public void parseFailed() {
+        parseFailures.increment();
+    }
+
+    public void eventSent() {
+        eventsSent.increment();
+    }
+
+    public void eventsReceived(int count) {
+        eventsReceived.add(count);
+    }
+
+    public void eventsPersisted(int count, long writeNanos) {
+        eventsPersisted.add(count);
+        dbWriteNanos.add(writeNanos);
+        dbWriteLatency.record(writeNanos / 1000);
+    }
+
+    // Events done with without being saved, as their write failed
+    // or their message could not be read
+    public void eventsLost(int count) {
+        eventsLost.add(count);
+    }
+
+    public void itemsExpired(long count) {
+        itemsExpired.add(count);
+    }
+
+    // Time the producer waited for the events in flight to be saved
+    public void flowControlWaited(long nanos) {
+        flowControlWaitNanos.add(nanos);
+    }
+
+    public long getBytesToRead() {
+        return bytesToRead.sum();
+    }
+
+    public long getLinesRead() {
+        return linesRead.sum();
+    }
+
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    public long getParseFailures() {
+        return parseFailures.sum();
+    }
+
+    public long getEventsSent() {
+        return eventsSent.sum();
+    }
+
+    public long getEventsReceived() {
+        return eventsReceived.sum();
+    }
+
+    public long getEventsPersisted() {
+        return eventsPersisted.sum();
+    }
+
+    public long getEventsLost() {
+        return eventsLost.sum();
+    }
+
+    public long getItemsExpired() {
+        return itemsExpired.sum();
+    }
+
+    public long getFlowControlWaitMs() {
+        return flowControlWaitNanos.sum() / 1_000_000;
+    }
+
+    public long getDbWriteMs() {
+        return dbWriteNanos.sum() / 1_000_000;
+    }
+
+    public LatencyHistogram getDbWriteLatency() {
+        return dbWriteLatency;
+    }
+}
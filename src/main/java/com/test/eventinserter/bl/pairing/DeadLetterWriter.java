@@ -0,0 +1,69 @@
+package com.test.eventinserter.bl.pairing;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+
+// Appends items which expired without their pair to the dead letter file,
+// one JSON object per line with the id and timestamp. The file is opened
+// on the first item, so an eviction pass without items leaves it untouched.
+// A writer is used for a single pass and must be closed after it.
+class DeadLetterWriter implements Closeable {
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private final File file;
+    private JsonGenerator generator;
+    private long written;
+
+    DeadLetterWriter(File file) {
+        this.file = file;
+    }
+
+    // Suits PairingStore#evictOlderThan, failures are rethrown unchecked
+    void write(String id, long timestamp) {
+        try {
+            if (generator == null) {
+                open();
+            }
+            generator.writeStartObject();
+            generator.writeStringField("id", id);
+            generator.writeNumberField("timestamp", timestamp);
+            generator.writeEndObject();
+            written++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    long getWritten() {
+        return written;
+    }
+
+    private void open() throws IOException {
+        if (file.getAbsoluteFile().getParentFile() != null) {
+            Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+        }
+        generator = jsonFactory.createGenerator(new BufferedOutputStream(new FileOutputStream(file, true), 64 * 1024),
+                JsonEncoding.UTF8);
+        // Root values are separated by new lines
+        generator.setRootValueSeparator(new SerializedString("\n"));
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (generator != null) {
+            generator.writeRaw('\n');
+            generator.close();
+        }
+    }
+}
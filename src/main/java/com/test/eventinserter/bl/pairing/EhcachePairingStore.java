@@ -0,0 +1,131 @@
+package com.test.eventinserter.bl.pairing;
+
+import org.ehcache.Cache;
+import org.ehcache.core.statistics.CacheStatistics;
+import org.ehcache.core.statistics.TierStatistics;
+import org.ehcache.spi.loaderwriter.CacheLoadingException;
+import org.ehcache.spi.loaderwriter.CacheWritingException;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ObjLongConsumer;
+
+// Pairing store on top of an Ehcache cache, which can overflow
+// from heap to off-heap and disk. The cache manager is owned by the caller.
+public class EhcachePairingStore implements PairingStore {
+
+    private final Cache<String, Long> cache;
+    // Statistics of the cache tiers, null if they are not collected
+    private final CacheStatistics statistics;
+    // Items stored and not removed by this store. Entries Ehcache evicts
+    // under tier pressure are not subtracted, so it is an upper bound.
+    private long size;
+
+    public EhcachePairingStore(Cache<String, Long> cache) {
+        this(cache, null);
+    }
+
+    public EhcachePairingStore(Cache<String, Long> cache, CacheStatistics statistics) {
+        this.cache = cache;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public long pairOrStore(String id, long timestamp) {
+        try {
+            Long previousTimestamp = cache.get(id);
+
+            if (previousTimestamp != null) {
+                cache.remove(id);
+                size--;
+                return previousTimestamp;
+            }
+
+            cache.put(id, timestamp);
+            size++;
+            return NO_TIMESTAMP;
+        } catch (CacheWritingException | CacheLoadingException e) {
+            throw new PairingStoreException("Problem accessing to cache!", e);
+        }
+    }
+
+    @Override
+    public void remove(String id) {
+        try {
+            if (cache.get(id) != null) {
+                cache.remove(id);
+                size--;
+            }
+        } catch (CacheWritingException | CacheLoadingException e) {
+            throw new PairingStoreException("Problem accessing to cache!", e);
+        }
+    }
+
+    // Counted from the tier statistics when they are collected, every
+    // tier holds a subset of the lowest one, so the largest count is the
+    // number of entries left in the cache after the evictions.
+    // Otherwise the upper bound kept by this store.
+    @Override
+    public long size() {
+        if (statistics == null) {
+            return size;
+        }
+
+        long mappings = -1;
+        for (TierStatistics tierStatistics : statistics.getTierStatistics().values()) {
+            mappings = Math.max(mappings, tierStatistics.getMappings());
+        }
+        return mappings < 0 ? size : mappings;
+    }
+
+    // Mappings held by each tier. The heap tier only caches entries
+    // of the lower tiers, so the counts of the tiers overlap.
+    @Override
+    public Map<String, Long> sizeByTier() {
+        if (statistics == null) {
+            return PairingStore.super.sizeByTier();
+        }
+
+        Map<String, Long> sizeByTier = new TreeMap<>();
+        statistics.getTierStatistics().forEach((tier, tierStatistics) -> sizeByTier.put(tier, tierStatistics.getMappings()));
+        return sizeByTier;
+    }
+
+    @Override
+    public void forEach(ObjLongConsumer<String> action) {
+        try {
+            for (Cache.Entry<String, Long> entry : cache) {
+                action.accept(entry.getKey(), entry.getValue());
+            }
+        } catch (CacheLoadingException e) {
+            throw new PairingStoreException("Problem accessing to cache!", e);
+        }
+    }
+
+    // Every entry is removed right after the action, as in the off-heap
+    // store, so a pass which fails partway does not hand the entries over
+    // again. The iterator of the cache tolerates the removals.
+    @Override
+    public long evictOlderThan(long timestamp, ObjLongConsumer<String> action) {
+        long evicted = 0;
+        try {
+            for (Cache.Entry<String, Long> entry : cache) {
+                if (entry.getValue() < timestamp) {
+                    action.accept(entry.getKey(), entry.getValue());
+                    cache.remove(entry.getKey());
+                    size--;
+                    evicted++;
+                }
+            }
+        } catch (CacheWritingException | CacheLoadingException e) {
+            throw new PairingStoreException("Problem accessing to cache!", e);
+        }
+        return evicted;
+    }
+
+    @Override
+    public void close() {
+        cache.clear();
+        size = 0;
+    }
+}
@@ -0,0 +1,134 @@
+package com.test.eventinserter.bl.pairing;
+
+import com.test.eventinserter.bl.aggregate.EventAggregates;
+import com.test.eventinserter.bl.alert.AlertRules;
+import com.test.eventinserter.bl.metrics.PipelineMetrics;
+import com.test.eventinserter.bl.parser.EventLineParser;
+import com.test.eventinserter.model.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+// Validates the lines read, pairs their items in the pairing store and
+// calculates the event of every pair. EventProducer and LeanBatchRunner
+// both pair through it and differ only in where the events go.
+// Safe to call from the reading threads, as the pairing store is.
+@Component
+public class EventPairer {
+
+    private static Logger logger = LoggerFactory.getLogger(EventPairer.class);
+
+    private final PairingStore pairingStore;
+    private final AlertRules alertRules;
+    private final PipelineMetrics pipelineMetrics;
+    private final PairingExpiry pairingExpiry;
+    private final EventAggregates eventAggregates;
+
+    @Autowired
+    public EventPairer(PairingStore pairingStore, AlertRules alertRules, PipelineMetrics pipelineMetrics,
+                       PairingExpiry pairingExpiry, EventAggregates eventAggregates) {
+        this.pairingStore = pairingStore;
+        this.alertRules = alertRules;
+        this.pipelineMetrics = pipelineMetrics;
+        this.pairingExpiry = pairingExpiry;
+        this.eventAggregates = eventAggregates;
+    }
+
+    // Returns true if the line is an event item which can be paired.
+    // The file may contain an invalid JSON. If its id can still be found in
+    // the bytes of the line, the parser holds the id and onInvalid is called,
+    // which usually cancels the item waiting with the id. Otherwise the
+    // item would occupy memory during the whole runtime.
+    public boolean parse(EventLineParser parser, byte[] buffer, int offset, int length,
+                         Consumer<EventLineParser> onInvalid) {
+
+        if (parser.parse(buffer, offset, length)) {
+            // Without the id or timestamp the json does not provide any useful information
+            if (!parser.hasId() || !parser.hasTimestamp()) {
+                logger.error("Event id of read line is not present!");
+                pipelineMetrics.parseFailed();
+                return false;
+            }
+            return true;
+        }
+
+        logger.error("Could not deserialize JSON!");
+        pipelineMetrics.parseFailed();
+
+        if (!parser.findId(buffer, offset, length)) {
+            logger.debug("Could not decide id of event which could not be deserialized");
+            return false;
+        }
+
+        onInvalid.accept(parser);
+        return false;
+    }
+
+    // Removes the item waiting with the id found in the parser, if any
+    public void cancel(EventLineParser parser) {
+        if (parser.isIdRaw()) {
+            pairingStore.remove(parser.getBuffer(), parser.getIdOffset(), parser.getIdLength());
+        } else {
+            pairingStore.remove(parser.getId());
+        }
+        logger.debug("Removed failed event from cache");
+    }
+
+    public void cancel(String id) {
+        pairingStore.remove(id);
+    }
+
+    // If the item waiting with the same id is in the pairing store, returns
+    // the event of the pair. Otherwise the item is stored until its pair is
+    // read and null is returned. Strings of the line are only created for
+    // an event.
+    public Event pair(EventLineParser parser) throws PairingStoreException {
+        pairingExpiry.observe(parser.getTimestamp());
+
+        long previousTimestamp;
+        if (parser.isIdRaw()) {
+            previousTimestamp = pairingStore.pairOrStore(parser.getBuffer(), parser.getIdOffset(),
+                    parser.getIdLength(), parser.getTimestamp());
+        } else {
+            previousTimestamp = pairingStore.pairOrStore(parser.getId(), parser.getTimestamp());
+        }
+
+        if (previousTimestamp == PairingStore.NO_TIMESTAMP) {
+            return null;
+        }
+        return createEvent(parser.getId(), parser.getType(), parser.getHost(), parser.getTimestamp(), previousTimestamp);
+    }
+
+    // Same as pairing a parsed line, for an item received from a reader node
+    public Event pair(String id, String type, String host, long timestamp) throws PairingStoreException {
+        pairingExpiry.observe(timestamp);
+
+        long previousTimestamp = pairingStore.pairOrStore(id, timestamp);
+        if (previousTimestamp == PairingStore.NO_TIMESTAMP) {
+            return null;
+        }
+        return createEvent(id, type, host, timestamp, previousTimestamp);
+    }
+
+    // Calculates the event of a pair, which is added to the aggregates
+    public Event createEvent(String id, String type, String host, long timestamp, long previousTimestamp) {
+        Event event = new Event();
+
+        event.setId(id);
+        event.setHost(host);
+        event.setType(type);
+
+        long duration = Math.abs(timestamp - previousTimestamp);
+        event.setDuration(duration);
+
+        if (alertRules.isAlert(type, host, duration)) {
+            event.setAlert(true);
+        }
+
+        eventAggregates.add(event);
+        return event;
+    }
+}
@@ -0,0 +1,488 @@
+package com.test.eventinserter.bl.pairing;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ObjLongConsumer;
+
+// Open addressing hash table (linear probing) kept in direct buffers
+// outside of the java heap. Every entry is a fixed size slot holding the
+// raw id bytes and the timestamp as a primitive long, so no object is
+// created per entry. Ids made of digits only are packed into a long.
+// Ids longer than the slot key area fall back to a small heap map.
+public class OffHeapPairingStore implements PairingStore {
+
+    // Slot layout: state, key length, key hash, timestamp, key bytes
+    private static final int STATE_OFFSET = 0;
+    private static final int KEY_LENGTH_OFFSET = 1;
+    private static final int HASH_OFFSET = 4;
+    private static final int VALUE_OFFSET = 8;
+    private static final int KEY_OFFSET = 16;
+
+    private static final byte EMPTY = 0;
+    private static final byte OCCUPIED = 1;
+    // Key length marker of ids packed into a long
+    private static final byte NUMERIC_KEY = -1;
+    // Longer numbers may overflow a long
+    private static final int MAX_NUMERIC_LENGTH = 18;
+
+    private static final int MAX_SEGMENT_SIZE = 1 << 30;
+    private static final float LOAD_FACTOR = 0.7f;
+
+    private final int maxKeyLength;
+    private final int slotSize;
+
+    private ByteBuffer[] segments;
+    private int segmentShift;
+    private int segmentMask;
+    private int capacity;
+    private int mask;
+    private int threshold;
+    private int size;
+
+    // Ids which do not fit into a slot
+    private final Map<String, Long> overflow = new HashMap<>();
+
+    // Encoded form of the id currently being looked up
+    private byte[] keyBuffer;
+    private int keyLength;
+    private long numericKey;
+    private boolean numeric;
+    private int keyHash;
+
+    public OffHeapPairingStore(int initialCapacity, int maxKeyLength) {
+        if (maxKeyLength < 8 || maxKeyLength > 127) {
+            throw new IllegalArgumentException("Key length must be between 8 and 127: " + maxKeyLength);
+        }
+        this.maxKeyLength = maxKeyLength;
+        this.slotSize = KEY_OFFSET + ((maxKeyLength + 7) & ~7);
+        this.keyBuffer = new byte[maxKeyLength];
+        allocate(tableSizeFor(initialCapacity));
+    }
+
+    @Override
+    public long pairOrStore(String id, long timestamp) {
+        if (!encodeKey(id)) {
+            return pairOrStoreOverflow(id, timestamp);
+        }
+        return pairOrStoreEncoded(timestamp);
+    }
+
+    @Override
+    public long pairOrStore(byte[] id, int offset, int length, long timestamp) {
+        if (!encodeKey(id, offset, length)) {
+            return pairOrStoreOverflow(new String(id, offset, length, StandardCharsets.UTF_8), timestamp);
+        }
+        return pairOrStoreEncoded(timestamp);
+    }
+
+    private long pairOrStoreOverflow(String id, long timestamp) {
+        Long previousTimestamp = overflow.remove(id);
+        if (previousTimestamp != null) {
+            return previousTimestamp;
+        }
+        overflow.put(id, timestamp);
+        return NO_TIMESTAMP;
+    }
+
+    private long pairOrStoreEncoded(long timestamp) {
+        if (size >= threshold) {
+            grow();
+        }
+
+        int index = keyHash & mask;
+        while (true) {
+            ByteBuffer segment = segments[index >>> segmentShift];
+            int offset = (index & segmentMask) * slotSize;
+
+            if (segment.get(offset + STATE_OFFSET) == EMPTY) {
+                writeSlot(segment, offset, timestamp);
+                size++;
+                return NO_TIMESTAMP;
+            }
+
+            if (keyEquals(segment, offset)) {
+                long previousTimestamp = segment.getLong(offset + VALUE_OFFSET);
+                delete(index);
+                return previousTimestamp;
+            }
+
+            index = (index + 1) & mask;
+        }
+    }
+
+    @Override
+    public void remove(String id) {
+        if (!encodeKey(id)) {
+            overflow.remove(id);
+            return;
+        }
+
+        int index = find();
+        if (index >= 0) {
+            delete(index);
+        }
+    }
+
+    @Override
+    public void remove(byte[] id, int offset, int length) {
+        if (!encodeKey(id, offset, length)) {
+            overflow.remove(new String(id, offset, length, StandardCharsets.UTF_8));
+            return;
+        }
+
+        int index = find();
+        if (index >= 0) {
+            delete(index);
+        }
+    }
+
+    @Override
+    public long size() {
+        return size + overflow.size();
+    }
+
+    @Override
+    public Map<String, Long> sizeByTier() {
+        Map<String, Long> sizeByTier = new LinkedHashMap<>();
+        sizeByTier.put("offheap", (long) size);
+        sizeByTier.put("heap", (long) overflow.size());
+        return sizeByTier;
+    }
+
+    @Override
+    public void forEach(ObjLongConsumer<String> action) {
+        byte[] key = new byte[maxKeyLength];
+
+        for (int i = 0; i < capacity; i++) {
+            ByteBuffer segment = segments[i >>> segmentShift];
+            int offset = (i & segmentMask) * slotSize;
+            if (segment.get(offset + STATE_OFFSET) != EMPTY) {
+                action.accept(decodeKey(segment, offset, key), segment.getLong(offset + VALUE_OFFSET));
+            }
+        }
+
+        overflow.forEach(action::accept);
+    }
+
+    // A single pass over the slots. Deleting shifts following entries back,
+    // so a slot is checked again after its entry has been deleted. Entries
+    // shifted across the end of the table may be checked twice, which is harmless.
+    @Override
+    public long evictOlderThan(long timestamp, ObjLongConsumer<String> action) {
+        byte[] key = new byte[maxKeyLength];
+        long evicted = 0;
+
+        int i = 0;
+        while (i < capacity) {
+            ByteBuffer segment = segments[i >>> segmentShift];
+            int offset = (i & segmentMask) * slotSize;
+            long value = segment.getLong(offset + VALUE_OFFSET);
+
+            if (segment.get(offset + STATE_OFFSET) != EMPTY && value < timestamp) {
+                action.accept(decodeKey(segment, offset, key), value);
+                delete(i);
+                evicted++;
+            } else {
+                i++;
+            }
+        }
+
+        Iterator<Map.Entry<String, Long>> iterator = overflow.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            if (entry.getValue() < timestamp) {
+                action.accept(entry.getKey(), entry.getValue());
+                iterator.remove();
+                evicted++;
+            }
+        }
+
+        return evicted;
+    }
+
+    // Bytes reserved outside of the heap
+    public long offHeapBytes() {
+        return (long) capacity * slotSize;
+    }
+
+    @Override
+    public void close() {
+        // Direct buffers are released once they are garbage collected
+        segments = new ByteBuffer[0];
+        overflow.clear();
+        capacity = 0;
+        size = 0;
+    }
+
+    // Ids are decoded into Strings, packed numeric ids back into their digits
+    private static String decodeKey(ByteBuffer segment, int offset, byte[] key) {
+        byte storedLength = segment.get(offset + KEY_LENGTH_OFFSET);
+        if (storedLength == NUMERIC_KEY) {
+            return Long.toString(segment.getLong(offset + KEY_OFFSET));
+        }
+        for (int j = 0; j < storedLength; j++) {
+            key[j] = segment.get(offset + KEY_OFFSET + j);
+        }
+        return new String(key, 0, storedLength, StandardCharsets.UTF_8);
+    }
+
+    // Returns false if the id does not fit into a slot
+    private boolean encodeKey(String id) {
+        int length = id.length();
+        numeric = isCanonicalNumber(id);
+
+        if (numeric) {
+            numericKey = Long.parseLong(id);
+            keyHash = mix(numericKey);
+            return true;
+        }
+
+        if (length > maxKeyLength) {
+            return false;
+        }
+
+        int hash = 0x811c9dc5;
+        for (int i = 0; i < length; i++) {
+            char c = id.charAt(i);
+            if (c >= 0x80) {
+                return encodeNonAscii(id);
+            }
+            keyBuffer[i] = (byte) c;
+            hash = (hash ^ c) * 0x01000193;
+        }
+        keyLength = length;
+        keyHash = mix(hash);
+        return true;
+    }
+
+    private boolean encodeNonAscii(String id) {
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > maxKeyLength) {
+            return false;
+        }
+
+        int hash = 0x811c9dc5;
+        for (int i = 0; i < bytes.length; i++) {
+            keyBuffer[i] = bytes[i];
+            hash = (hash ^ (bytes[i] & 0xff)) * 0x01000193;
+        }
+        keyLength = bytes.length;
+        keyHash = mix(hash);
+        return true;
+    }
+
+    private boolean encodeKey(byte[] id, int offset, int length) {
+        numeric = isCanonicalNumber(id, offset, length);
+
+        if (numeric) {
+            long value = 0;
+            for (int i = offset; i < offset + length; i++) {
+                value = value * 10 + (id[i] - '0');
+            }
+            numericKey = value;
+            keyHash = mix(numericKey);
+            return true;
+        }
+
+        if (length > maxKeyLength) {
+            return false;
+        }
+
+        int hash = 0x811c9dc5;
+        for (int i = 0; i < length; i++) {
+            byte b = id[offset + i];
+            keyBuffer[i] = b;
+            hash = (hash ^ (b & 0xff)) * 0x01000193;
+        }
+        keyLength = length;
+        keyHash = mix(hash);
+        return true;
+    }
+
+    // Digits only without leading zeros, so that packing is reversible
+    private static boolean isCanonicalNumber(String id) {
+        int length = id.length();
+        if (length == 0 || length > MAX_NUMERIC_LENGTH || (length > 1 && id.charAt(0) == '0')) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isCanonicalNumber(byte[] id, int offset, int length) {
+        if (length == 0 || length > MAX_NUMERIC_LENGTH || (length > 1 && id[offset] == '0')) {
+            return false;
+        }
+        for (int i = offset; i < offset + length; i++) {
+            if (id[i] < '0' || id[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        return (int) value;
+    }
+
+    private int find() {
+        int index = keyHash & mask;
+        while (true) {
+            ByteBuffer segment = segments[index >>> segmentShift];
+            int offset = (index & segmentMask) * slotSize;
+
+            if (segment.get(offset + STATE_OFFSET) == EMPTY) {
+                return -1;
+            }
+            if (keyEquals(segment, offset)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private boolean keyEquals(ByteBuffer segment, int offset) {
+        if (segment.getInt(offset + HASH_OFFSET) != keyHash) {
+            return false;
+        }
+
+        byte storedLength = segment.get(offset + KEY_LENGTH_OFFSET);
+        if (numeric) {
+            return storedLength == NUMERIC_KEY && segment.getLong(offset + KEY_OFFSET) == numericKey;
+        }
+        if (storedLength != keyLength) {
+            return false;
+        }
+        for (int i = 0; i < keyLength; i++) {
+            if (segment.get(offset + KEY_OFFSET + i) != keyBuffer[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeSlot(ByteBuffer segment, int offset, long timestamp) {
+        segment.put(offset + STATE_OFFSET, OCCUPIED);
+        segment.putInt(offset + HASH_OFFSET, keyHash);
+        segment.putLong(offset + VALUE_OFFSET, timestamp);
+        if (numeric) {
+            segment.put(offset + KEY_LENGTH_OFFSET, NUMERIC_KEY);
+            segment.putLong(offset + KEY_OFFSET, numericKey);
+        } else {
+            segment.put(offset + KEY_LENGTH_OFFSET, (byte) keyLength);
+            for (int i = 0; i < keyLength; i++) {
+                segment.put(offset + KEY_OFFSET + i, keyBuffer[i]);
+            }
+        }
+    }
+
+    // Backward shift deletion, entries after the removed one are moved
+    // back if the hole lies on their probe path. This keeps the table
+    // free of tombstones.
+    private void delete(int index) {
+        size--;
+        int hole = index;
+        int next = index;
+
+        while (true) {
+            next = (next + 1) & mask;
+            ByteBuffer segment = segments[next >>> segmentShift];
+            int offset = (next & segmentMask) * slotSize;
+
+            if (segment.get(offset + STATE_OFFSET) == EMPTY) {
+                break;
+            }
+
+            int home = segment.getInt(offset + HASH_OFFSET) & mask;
+            boolean reachable = hole <= next ? (hole < home && home <= next) : (hole < home || home <= next);
+            if (!reachable) {
+                copySlot(next, hole);
+                hole = next;
+            }
+        }
+
+        ByteBuffer segment = segments[hole >>> segmentShift];
+        segment.put((hole & segmentMask) * slotSize + STATE_OFFSET, EMPTY);
+    }
+
+    private void copySlot(int from, int to) {
+        ByteBuffer source = segments[from >>> segmentShift];
+        ByteBuffer target = segments[to >>> segmentShift];
+        int sourceOffset = (from & segmentMask) * slotSize;
+        int targetOffset = (to & segmentMask) * slotSize;
+        for (int i = 0; i < slotSize; i += 8) {
+            target.putLong(targetOffset + i, source.getLong(sourceOffset + i));
+        }
+    }
+
+    private void grow() {
+        ByteBuffer[] oldSegments = segments;
+        int oldSegmentShift = segmentShift;
+        int oldSegmentMask = segmentMask;
+        int oldCapacity = capacity;
+
+        if (oldCapacity >= 1 << 30) {
+            throw new PairingStoreException("Pairing store can not grow beyond " + oldCapacity + " slots!", null);
+        }
+        allocate(oldCapacity << 1);
+
+        for (int i = 0; i < oldCapacity; i++) {
+            ByteBuffer source = oldSegments[i >>> oldSegmentShift];
+            int sourceOffset = (i & oldSegmentMask) * slotSize;
+            if (source.get(sourceOffset + STATE_OFFSET) == EMPTY) {
+                continue;
+            }
+
+            int index = source.getInt(sourceOffset + HASH_OFFSET) & mask;
+            while (true) {
+                ByteBuffer target = segments[index >>> segmentShift];
+                int targetOffset = (index & segmentMask) * slotSize;
+                if (target.get(targetOffset + STATE_OFFSET) == EMPTY) {
+                    for (int j = 0; j < slotSize; j += 8) {
+                        target.putLong(targetOffset + j, source.getLong(sourceOffset + j));
+                    }
+                    break;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+    }
+
+    private void allocate(int slots) {
+        int slotsPerSegment = Math.min(slots, Integer.highestOneBit(MAX_SEGMENT_SIZE / slotSize));
+        int segmentCount = slots / slotsPerSegment;
+
+        segments = new ByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            // Direct buffers are zeroed, so every slot starts empty
+            segments[i] = ByteBuffer.allocateDirect(slotsPerSegment * slotSize);
+        }
+
+        segmentShift = Integer.numberOfTrailingZeros(slotsPerSegment);
+        segmentMask = slotsPerSegment - 1;
+        capacity = slots;
+        mask = slots - 1;
+        threshold = (int) (slots * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        long needed = (long) (capacity / LOAD_FACTOR) + 1;
+        int slots = 16;
+        while (slots < needed && slots < 1 << 30) {
+            slots <<= 1;
+        }
+        return slots;
+    }
+}
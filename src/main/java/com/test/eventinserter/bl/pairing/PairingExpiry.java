@@ -0,0 +1,130 @@
+package com.test.eventinserter.bl.pairing;
+
+import com.test.eventinserter.bl.metrics.PipelineMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+
+// Bounds the items waiting for their pair by a window in event time.
+// The watermark follows the highest timestamp read, and items older than
+// the watermark minus the window are evicted from the pairing store in
+// bulk and appended to the dead letter file. Eviction runs periodically
+// instead of per line, so reading only pays for tracking the watermark.
+// The input must be read in order by a single thread. With several reading
+// threads the fastest one would move the watermark past items whose pair
+// is in a part of the input not read yet, so EventProducer refuses that.
+@Component
+public class PairingExpiry {
+
+    private static Logger logger = LoggerFactory.getLogger(PairingExpiry.class);
+
+    @Autowired
+    private PairingStore pairingStore;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    // Items are kept until their pair is read when the window is 0
+    @Value("${eventinserter.pairing.window-ms}")
+    private long windowMs;
+
+    @Value("${eventinserter.pairing.eviction-interval-ms}")
+    private long evictionIntervalMs;
+
+    @Value("${eventinserter.pairing.dead-letter-file}")
+    private String deadLetterFile;
+
+    // Updated by every reading thread, so contention is kept to a minimum
+    private final LongAccumulator watermark = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    private long evictedBefore = Long.MIN_VALUE;
+
+    private ScheduledExecutorService evictionScheduler;
+
+    @PostConstruct
+    public void start() {
+        if (windowMs <= 0) {
+            return;
+        }
+
+        evictionScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "pairing-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictionScheduler.scheduleWithFixedDelay(this::evict, evictionIntervalMs, evictionIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (evictionScheduler != null) {
+            evictionScheduler.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return windowMs > 0;
+    }
+
+    public void observe(long timestamp) {
+        if (windowMs > 0) {
+            watermark.accumulate(timestamp);
+        }
+    }
+
+    public long getWatermark() {
+        return watermark.get();
+    }
+
+    // Nothing is scanned unless the watermark moved since the last pass
+    synchronized void evict() {
+        long highest = watermark.get();
+        if (highest == Long.MIN_VALUE || highest < Long.MIN_VALUE + windowMs) {
+            return;
+        }
+        long bound = highest - windowMs;
+        if (bound <= evictedBefore) {
+            return;
+        }
+
+        File file = new File(deadLetterFile);
+        DeadLetterWriter writer = new DeadLetterWriter(file);
+        try {
+            pairingStore.evictOlderThan(bound, writer::write);
+            evictedBefore = bound;
+        } catch (UncheckedIOException | PairingStoreException e) {
+            // Items which could not be written stay in the store for the next pass
+            logger.error("Could not evict expired items!", e);
+        } finally {
+            closeQuietly(writer);
+        }
+
+        long evicted = writer.getWritten();
+
+        if (evicted > 0) {
+            pipelineMetrics.itemsExpired(evicted);
+            logger.info("Evicted {} items older than {} to {}", evicted, bound, file);
+        }
+    }
+
+    private void closeQuietly(DeadLetterWriter writer) {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            logger.error("Could not write dead letter file!", e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.test.eventinserter.bl.pairing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.ObjLongConsumer;
+
+// Keeps the timestamps of event items whose pair has not been read yet.
+// Implementations are not required to be thread safe, concurrent access
+// goes through ShardedPairingStore.
+public interface PairingStore {
+
+    // Returned when there is no waiting item for an id
+    long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    // If an item with the same id is waiting, removes it and returns its
+    // timestamp. Otherwise stores the given timestamp and returns NO_TIMESTAMP.
+    long pairOrStore(String id, long timestamp);
+
+    // Same as pairOrStore with the UTF-8 bytes of the id, implementations
+    // may use the bytes as they are without creating a String
+    default long pairOrStore(byte[] id, int offset, int length, long timestamp) {
+        return pairOrStore(new String(id, offset, length, StandardCharsets.UTF_8), timestamp);
+    }
+
+    void remove(String id);
+
+    default void remove(byte[] id, int offset, int length) {
+        remove(new String(id, offset, length, StandardCharsets.UTF_8));
+    }
+
+    // Number of items waiting for their pair
+    long size();
+
+    // Number of items waiting for their pair in each storage tier,
+    // for stores which keep items in more than one place
+    default Map<String, Long> sizeByTier() {
+        return Collections.singletonMap("total", size());
+    }
+
+    // Passes every waiting item with its timestamp to the action,
+    // used to save the pairing state in a checkpoint
+    void forEach(ObjLongConsumer<String> action);
+
+    // Removes every waiting item with a timestamp before the given one.
+    // Each item is passed to the action before it is removed, so an item
+    // the action fails on stays in the store. Returns the number removed.
+    long evictOlderThan(long timestamp, ObjLongConsumer<String> action);
+
+    void close();
+}
@@ -0,0 +1,9 @@
+package com.test.eventinserter.bl.pairing;
+
+// Thrown when the underlying storage of a pairing store can not be accessed
+public class PairingStoreException extends RuntimeException {
+
+    public PairingStoreException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,248 @@
+package com.test.eventinserter.bl.pairing;
+
+import com.test.eventinserter.bl.parser.EventLineParser;
+import org.apache.commons.io.FileUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Pairs items of inputs larger than memory in two passes. The first pass
+// spills every item to one of the partition files chosen by a hash of its
+// id, so both items of a pair end up in the same partition. The second pass
+// pairs each partition on its own in a HashMap. Both passes only read and
+// write sequentially, and memory is bounded by the largest partition.
+// Record layout: kind, id length, id bytes, then for an item its timestamp,
+// type and host with -1 as the length of a missing value. A tombstone is
+// spilled for a line which could not be parsed but has an id, and cancels
+// the item waiting with that id like a removal from the pairing store does.
+public class PartitionedPairer implements Closeable {
+
+    private static final byte ITEM = 1;
+    private static final byte TOMBSTONE = 0;
+    private static final int NULL_LENGTH = -1;
+    private static final int BUFFER_SIZE = 32 * 1024;
+
+    private final File directory;
+    private final File[] files;
+    private final DataOutputStream[] outputs;
+
+    public PartitionedPairer(File parent, int partitions) throws IOException {
+        Files.createDirectories(parent.toPath());
+        this.directory = Files.createTempDirectory(parent.toPath(), "partitions-").toFile();
+        this.files = new File[partitions];
+        this.outputs = new DataOutputStream[partitions];
+
+        try {
+            for (int i = 0; i < partitions; i++) {
+                files[i] = new File(directory, "partition-" + i);
+                outputs[i] = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(files[i]), BUFFER_SIZE));
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    // Called by the reading threads with a successfully parsed line
+    public void spill(EventLineParser parser) {
+        byte[] id = idBytes(parser);
+        byte[] type = valueBytes(parser.getType());
+        byte[] host = valueBytes(parser.getHost());
+        DataOutputStream output = outputs[partitionOf(id)];
+
+        try {
+            synchronized (output) {
+                output.writeByte(ITEM);
+                writeBytes(output, id);
+                output.writeLong(parser.getTimestamp());
+                writeBytes(output, type);
+                writeBytes(output, host);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Called with a line which could not be parsed but whose id was found
+    public void spillTombstone(EventLineParser parser) {
+        byte[] id = idBytes(parser);
+        DataOutputStream output = outputs[partitionOf(id)];
+
+        try {
+            synchronized (output) {
+                output.writeByte(TOMBSTONE);
+                writeBytes(output, id);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Pairs the partitions with the given number of threads once every line
+    // has been spilled. A partition file is deleted as soon as it is paired.
+    // Returns the number of items left without their pair.
+    public long pair(int threads, PairHandler handler) throws IOException {
+        for (DataOutputStream output : outputs) {
+            output.close();
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread thread = new Thread(r, "partition-pairer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        AtomicLong unmatched = new AtomicLong();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (File file : files) {
+                futures.add(executor.submit(() -> {
+                    unmatched.addAndGet(pairPartition(file, handler));
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while pairing partitions", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return unmatched.get();
+    }
+
+    // Key: id, Value: timestamp of the item waiting for its pair
+    private static long pairPartition(File file, PairHandler handler) throws IOException {
+        Map<String, Long> waiting = new HashMap<>();
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE))) {
+            while (true) {
+                byte kind;
+                try {
+                    kind = input.readByte();
+                } catch (EOFException e) {
+                    break;
+                }
+
+                String id = readString(input);
+                if (kind == TOMBSTONE) {
+                    waiting.remove(id);
+                    continue;
+                }
+
+                long timestamp = input.readLong();
+                String type = readString(input);
+                String host = readString(input);
+
+                Long previousTimestamp = waiting.remove(id);
+                if (previousTimestamp == null) {
+                    waiting.put(id, timestamp);
+                } else {
+                    handler.onPair(id, type, host, timestamp, previousTimestamp);
+                }
+            }
+        }
+
+        Files.delete(file.toPath());
+        return waiting.size();
+    }
+
+    // Deletes the partitions, also when the spilling or pairing failed
+    @Override
+    public void close() throws IOException {
+        for (DataOutputStream output : outputs) {
+            if (output == null) {
+                continue;
+            }
+            try {
+                output.close();
+            } catch (IOException e) {
+                // The file is deleted anyway
+            }
+        }
+        FileUtils.deleteDirectory(directory);
+    }
+
+    // The id is hashed by its unescaped bytes, so an escaped and a raw
+    // spelling of the same id meet in the same partition
+    private int partitionOf(byte[] id) {
+        int hash = 1;
+        for (byte b : id) {
+            hash = 31 * hash + b;
+        }
+        // Spread the bits as HashMap does, partitions may be a power of two
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, files.length);
+    }
+
+    private static byte[] idBytes(EventLineParser parser) {
+        if (parser.isIdRaw()) {
+            byte[] id = new byte[parser.getIdLength()];
+            System.arraycopy(parser.getBuffer(), parser.getIdOffset(), id, 0, id.length);
+            return id;
+        }
+        return parser.getId().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] valueBytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(DataOutputStream output, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            output.writeInt(NULL_LENGTH);
+            return;
+        }
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Receives the pairs found in the second pass, from several threads
+    public interface PairHandler {
+
+        void onPair(String id, String type, String host, long timestamp, long previousTimestamp);
+    }
+}
@@ -0,0 +1,130 @@
+package com.test.eventinserter.bl.pairing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ObjLongConsumer;
+
+// Thread safe pairing store made of independent shards. An id always
+// goes to the same shard, which is locked only while it is accessed,
+// so threads pairing different shards do not block each other.
+public class ShardedPairingStore implements PairingStore {
+
+    private final PairingStore[] shards;
+
+    public ShardedPairingStore(List<PairingStore> shards) {
+        this.shards = shards.toArray(new PairingStore[0]);
+    }
+
+    @Override
+    public long pairOrStore(String id, long timestamp) {
+        PairingStore shard = shardOf(id);
+        synchronized (shard) {
+            return shard.pairOrStore(id, timestamp);
+        }
+    }
+
+    @Override
+    public long pairOrStore(byte[] id, int offset, int length, long timestamp) {
+        PairingStore shard = shardOf(id, offset, length);
+        synchronized (shard) {
+            return shard.pairOrStore(id, offset, length, timestamp);
+        }
+    }
+
+    @Override
+    public void remove(String id) {
+        PairingStore shard = shardOf(id);
+        synchronized (shard) {
+            shard.remove(id);
+        }
+    }
+
+    @Override
+    public void remove(byte[] id, int offset, int length) {
+        PairingStore shard = shardOf(id, offset, length);
+        synchronized (shard) {
+            shard.remove(id, offset, length);
+        }
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for (PairingStore shard : shards) {
+            synchronized (shard) {
+                size += shard.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public Map<String, Long> sizeByTier() {
+        Map<String, Long> sizeByTier = new TreeMap<>();
+        for (PairingStore shard : shards) {
+            synchronized (shard) {
+                shard.sizeByTier().forEach((tier, size) -> sizeByTier.merge(tier, size, Long::sum));
+            }
+        }
+        return sizeByTier;
+    }
+
+    @Override
+    public void forEach(ObjLongConsumer<String> action) {
+        for (PairingStore shard : shards) {
+            synchronized (shard) {
+                shard.forEach(action);
+            }
+        }
+    }
+
+    @Override
+    public long evictOlderThan(long timestamp, ObjLongConsumer<String> action) {
+        long evicted = 0;
+        for (PairingStore shard : shards) {
+            synchronized (shard) {
+                evicted += shard.evictOlderThan(timestamp, action);
+            }
+        }
+        return evicted;
+    }
+
+    @Override
+    public void close() {
+        for (PairingStore shard : shards) {
+            synchronized (shard) {
+                shard.close();
+            }
+        }
+    }
+
+    // The shard is chosen by a hash of the UTF-8 bytes of the id,
+    // so an id given as a String goes where its bytes would go
+    private PairingStore shardOf(String id) {
+        int hash = 0;
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c >= 0x80) {
+                byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+                return shardOf(bytes, 0, bytes.length);
+            }
+            hash = 31 * hash + c;
+        }
+        return shards[spread(hash) % shards.length];
+    }
+
+    private PairingStore shardOf(byte[] id, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + (id[i] & 0xff);
+        }
+        return shards[spread(hash) % shards.length];
+    }
+
+    // Spread the bits, the stores hash the same ids again
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) & Integer.MAX_VALUE;
+    }
+}
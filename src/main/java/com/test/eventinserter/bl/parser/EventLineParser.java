@@ -0,0 +1,499 @@
+package com.test.eventinserter.bl.parser;
+
+import java.nio.charset.StandardCharsets;
+
+// Parses a single line of the input file directly from its bytes.
+// The line must be a flat JSON object with the id, state, timestamp,
+// type and host fields, like the ones mapped to EventItem. Parsing only
+// records where the string values are, they are turned into Strings when
+// they are asked for. The timestamp is read as a primitive long.
+// A parser keeps the state of the last parsed line, so an instance must
+// not be shared between threads.
+public class EventLineParser {
+
+    private static final byte[] ID = "id".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] STATE = "state".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TIMESTAMP = "timestamp".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TYPE = "type".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HOST = "host".getBytes(StandardCharsets.US_ASCII);
+
+    private byte[] buffer;
+    private int position;
+    private int end;
+
+    // Start and end of the last string or literal read, and whether it has escapes
+    private int valueStart;
+    private int valueEnd;
+    private boolean valueEscaped;
+    private boolean valueNull;
+
+    private final Span id = new Span();
+    private final Span state = new Span();
+    private final Span type = new Span();
+    private final Span host = new Span();
+    private long timestamp;
+    private boolean hasTimestamp;
+
+    // Returns false if the line is not a JSON object of the expected schema.
+    // Fields other than the known ones make the line invalid as well, as
+    // they did when lines were bound to EventItem by a default ObjectMapper.
+    public boolean parse(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.end = offset + length;
+        id.clear();
+        state.clear();
+        type.clear();
+        host.clear();
+        hasTimestamp = false;
+
+        try {
+            return parseObject();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    // Cheap recovery of the id of a line which could not be parsed.
+    // Looks for the "id" key and reads the string following it.
+    // Returns false if there is no such key or its value is not complete.
+    public boolean findId(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.end = offset + length;
+        id.clear();
+
+        for (int i = offset; i + ID.length + 1 < end; i++) {
+            if (buffer[i] != '"' || buffer[i + ID.length + 1] != '"' || !regionEquals(i + 1, i + ID.length + 1, ID)) {
+                continue;
+            }
+
+            position = i + ID.length + 2;
+            skipWhitespace();
+            if (position >= end || buffer[position] != ':') {
+                continue;
+            }
+            position++;
+            skipWhitespace();
+            if (position < end && buffer[position] == '"' && readString()) {
+                id.set(valueStart, valueEnd, valueEscaped);
+                return true;
+            }
+            return false;
+        }
+
+        return false;
+    }
+
+    public boolean hasId() {
+        return id.isPresent();
+    }
+
+    public boolean hasTimestamp() {
+        return hasTimestamp;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getId() {
+        return id.materialize();
+    }
+
+    public String getState() {
+        return state.materialize();
+    }
+
+    public String getType() {
+        return type.materialize();
+    }
+
+    public String getHost() {
+        return host.materialize();
+    }
+
+    // Raw id bytes can be used as a key only if the id has no escapes
+    public boolean isIdRaw() {
+        return id.isPresent() && !id.escaped;
+    }
+
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int getIdOffset() {
+        return id.start;
+    }
+
+    public int getIdLength() {
+        return id.end - id.start;
+    }
+
+    private boolean parseObject() {
+        skipWhitespace();
+        if (!consume('{')) {
+            return false;
+        }
+
+        skipWhitespace();
+        if (!consume('}')) {
+            while (true) {
+                skipWhitespace();
+                if (position >= end || buffer[position] != '"' || !readString()) {
+                    return false;
+                }
+                int keyStart = valueStart;
+                int keyEnd = valueEnd;
+                boolean keyEscaped = valueEscaped;
+
+                skipWhitespace();
+                if (!consume(':')) {
+                    return false;
+                }
+                skipWhitespace();
+
+                if (keyEscaped || !readField(keyStart, keyEnd)) {
+                    return false;
+                }
+
+                skipWhitespace();
+                if (consume('}')) {
+                    break;
+                }
+                if (!consume(',')) {
+                    return false;
+                }
+            }
+        }
+
+        skipWhitespace();
+        return position == end;
+    }
+
+    private boolean readField(int keyStart, int keyEnd) {
+        if (regionEquals(keyStart, keyEnd, TIMESTAMP)) {
+            return readTimestamp();
+        }
+
+        Span span;
+        if (regionEquals(keyStart, keyEnd, ID)) {
+            span = id;
+        } else if (regionEquals(keyStart, keyEnd, STATE)) {
+            span = state;
+        } else if (regionEquals(keyStart, keyEnd, TYPE)) {
+            span = type;
+        } else if (regionEquals(keyStart, keyEnd, HOST)) {
+            span = host;
+        } else {
+            return false;
+        }
+
+        if (!readScalar()) {
+            return false;
+        }
+        if (valueNull) {
+            span.clear();
+        } else {
+            span.set(valueStart, valueEnd, valueEscaped);
+        }
+        return true;
+    }
+
+    private boolean readTimestamp() {
+        if (position < end && buffer[position] == '"') {
+            // Numbers given as strings are accepted like the ObjectMapper did
+            if (!readString() || valueEscaped) {
+                return false;
+            }
+            timestamp = parseLong(valueStart, valueEnd);
+            hasTimestamp = true;
+            return true;
+        }
+
+        if (!readScalar()) {
+            return false;
+        }
+        if (valueNull) {
+            hasTimestamp = false;
+            return true;
+        }
+        timestamp = parseLong(valueStart, valueEnd);
+        hasTimestamp = true;
+        return true;
+    }
+
+    // Reads a string, a number or a literal. Objects and arrays are not expected.
+    private boolean readScalar() {
+        valueNull = false;
+        if (position >= end) {
+            return false;
+        }
+
+        byte b = buffer[position];
+        if (b == '"') {
+            return readString();
+        }
+
+        valueStart = position;
+        valueEscaped = false;
+        while (position < end) {
+            b = buffer[position];
+            if (b == ',' || b == '}' || b == ' ' || b == '\t' || b == '\r' || b == '\n') {
+                break;
+            }
+            if (b == '"' || b == '{' || b == '[' || b == ':') {
+                return false;
+            }
+            position++;
+        }
+        valueEnd = position;
+
+        if (valueEnd == valueStart) {
+            return false;
+        }
+        if (regionEquals(valueStart, valueEnd, "null")) {
+            valueNull = true;
+            return true;
+        }
+        return regionEquals(valueStart, valueEnd, "true")
+                || regionEquals(valueStart, valueEnd, "false")
+                || isNumber(valueStart, valueEnd);
+    }
+
+    // Position must be at the opening quote. Leaves the position
+    // after the closing quote and the content in valueStart/valueEnd.
+    private boolean readString() {
+        position++;
+        valueStart = position;
+        valueEscaped = false;
+
+        while (position < end) {
+            byte b = buffer[position];
+            if (b == '"') {
+                valueEnd = position;
+                position++;
+                return true;
+            }
+            if (b == '\\') {
+                valueEscaped = true;
+                position++;
+                if (!isValidEscape()) {
+                    return false;
+                }
+            } else if ((b & 0xff) < 0x20) {
+                return false;
+            }
+            position++;
+        }
+
+        return false;
+    }
+
+    // Position must be at the character following the backslash.
+    // Leaves the position at the last character of the escape sequence.
+    private boolean isValidEscape() {
+        if (position >= end) {
+            return false;
+        }
+
+        switch (buffer[position]) {
+            case '"':
+            case '\\':
+            case '/':
+            case 'b':
+            case 'f':
+            case 'n':
+            case 'r':
+            case 't':
+                return true;
+            case 'u':
+                if (position + 4 >= end) {
+                    return false;
+                }
+                for (int i = 1; i <= 4; i++) {
+                    if (Character.digit(buffer[position + i], 16) < 0) {
+                        return false;
+                    }
+                }
+                position += 4;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private long parseLong(int start, int end) {
+        if (start == end) {
+            throw new NumberFormatException();
+        }
+        for (int i = start; i < end; i++) {
+            byte b = buffer[i];
+            if (b == '.' || b == 'e' || b == 'E') {
+                // Fractions are truncated as the ObjectMapper did
+                return (long) Double.parseDouble(new String(buffer, start, end - start, StandardCharsets.US_ASCII));
+            }
+        }
+
+        boolean negative = buffer[start] == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end) {
+            throw new NumberFormatException();
+        }
+
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException();
+            }
+            if (value < (Long.MIN_VALUE + digit) / 10) {
+                throw new NumberFormatException();
+            }
+            // Accumulated negatively to cover Long.MIN_VALUE
+            value = value * 10 - digit;
+        }
+
+        if (negative) {
+            return value;
+        }
+        if (value == Long.MIN_VALUE) {
+            throw new NumberFormatException();
+        }
+        return -value;
+    }
+
+    private boolean isNumber(int start, int end) {
+        int i = start;
+        if (buffer[i] == '-') {
+            i++;
+        }
+        if (i == end) {
+            return false;
+        }
+        for (; i < end; i++) {
+            byte b = buffer[i];
+            if ((b < '0' || b > '9') && b != '.' && b != 'e' && b != 'E' && b != '+' && b != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean consume(char c) {
+        if (position < end && buffer[position] == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (position < end) {
+            byte b = buffer[position];
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private boolean regionEquals(int start, int end, byte[] expected) {
+        if (end - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (buffer[start + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean regionEquals(int start, int end, String expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (buffer[start + i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String unescape(int start, int end) {
+        StringBuilder builder = new StringBuilder(end - start);
+        int i = start;
+
+        while (i < end) {
+            int runStart = i;
+            while (i < end && buffer[i] != '\\') {
+                i++;
+            }
+            if (i > runStart) {
+                builder.append(new String(buffer, runStart, i - runStart, StandardCharsets.UTF_8));
+            }
+            if (i >= end) {
+                break;
+            }
+
+            // Skip the backslash, the escaped character follows
+            i++;
+            char c = i < end ? (char) buffer[i] : '\\';
+            switch (c) {
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'u':
+                    builder.append((char) Integer.parseInt(new String(buffer, i + 1, 4, StandardCharsets.US_ASCII), 16));
+                    i += 4;
+                    break;
+                default:
+                    builder.append(c);
+            }
+            i++;
+        }
+
+        return builder.toString();
+    }
+
+    // Location of a string value in the line
+    private class Span {
+        private int start = -1;
+        private int end;
+        private boolean escaped;
+
+        private void set(int start, int end, boolean escaped) {
+            this.start = start;
+            this.end = end;
+            this.escaped = escaped;
+        }
+
+        private void clear() {
+            start = -1;
+        }
+
+        private boolean isPresent() {
+            return start >= 0;
+        }
+
+        private String materialize() {
+            if (start < 0) {
+                return null;
+            }
+            return escaped ? unescape(start, end) : new String(buffer, start, end - start, StandardCharsets.UTF_8);
+        }
+    }
+}
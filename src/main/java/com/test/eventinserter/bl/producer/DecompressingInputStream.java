@@ -0,0 +1,290 @@
+package com.test.eventinserter.bl.producer;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+// Decompresses a gzip file ahead of its reader. A decompressor thread hands
+// large buffers over through a bounded queue, so decompression overlaps with
+// parsing and runs at most a few buffers ahead of it. BGZF files, whose
+// members record their own compressed size, are split into members which
+// are inflated in parallel and handed over in order. Other multi member
+// files are inflated on the decompressor thread alone, as the end of a
+// member is only known once it has been inflated.
+public class DecompressingInputStream extends InputStream {
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final int QUEUE_CAPACITY = 4;
+    private static final long SAMPLE_LENGTH = 16 * 1024 * 1024;
+
+    private static final int GZIP_MAGIC_1 = 0x1f;
+    private static final int GZIP_MAGIC_2 = 0x8b;
+    private static final int HEADER_LENGTH = 12;
+    private static final int FEXTRA = 4;
+
+    // Marks the end of the input in the queue
+    private static final Future<byte[]> END = CompletableFuture.completedFuture(new byte[0]);
+
+    private final BlockingQueue<Future<byte[]>> queue;
+    private final Thread decompressor;
+    private final ExecutorService inflaters;
+
+    private byte[] buffer = new byte[0];
+    private int position;
+    private boolean ended;
+
+    public DecompressingInputStream(File file, int threads) throws IOException {
+        InputStream compressed = new BufferedInputStream(new FileInputStream(file), 64 * 1024);
+
+        if (threads > 1 && isBgzf(file)) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            inflaters = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "gzip-inflater-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            // Members are small, enough of them are queued to keep every inflater busy
+            queue = new ArrayBlockingQueue<>(threads * 16);
+            decompressor = new Thread(() -> splitMembers(compressed), "gzip-decompressor");
+        } else {
+            inflaters = null;
+            queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            decompressor = new Thread(() -> decompress(compressed), "gzip-decompressor");
+        }
+
+        decompressor.setDaemon(true);
+        decompressor.start();
+    }
+
+    public static boolean isGzip(File file) throws IOException {
+        try (InputStream inputStream = new FileInputStream(file)) {
+            return inputStream.read() == GZIP_MAGIC_1 && inputStream.read() == GZIP_MAGIC_2;
+        }
+    }
+
+    // Uncompressed size of a file. The size recorded in the trailer of a
+    // gzip file only covers the last member and wraps at 4 GB, so the ratio
+    // of a sample at the start of the file is applied to the whole file.
+    public static long estimateUncompressedLength(File file) throws IOException {
+        if (!isGzip(file)) {
+            return file.length();
+        }
+
+        try (CountingInputStream compressed = new CountingInputStream(new FileInputStream(file));
+             InputStream inputStream = new GZIPInputStream(compressed, 64 * 1024)) {
+            long sampled = IOUtils.skip(inputStream, SAMPLE_LENGTH);
+            if (sampled < SAMPLE_LENGTH) {
+                // The whole file fits in the sample
+                return sampled;
+            }
+            return (long) ((double) sampled / compressed.getByteCount() * file.length());
+        }
+    }
+
+    // Plain files are read as they are
+    public static InputStream open(File file, int threads) throws IOException {
+        return isGzip(file) ? new DecompressingInputStream(file, threads) : new FileInputStream(file);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return buffer[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+
+        int count = Math.min(length, buffer.length - position);
+        System.arraycopy(buffer, position, bytes, offset, count);
+        position += count;
+        return count;
+    }
+
+    // Stops decompressing if the reader gives up before the end
+    @Override
+    public void close() {
+        decompressor.interrupt();
+        if (inflaters != null) {
+            inflaters.shutdownNow();
+        }
+    }
+
+    // Returns false at the end of the input
+    private boolean fill() throws IOException {
+        while (position == buffer.length) {
+            if (ended) {
+                return false;
+            }
+
+            try {
+                Future<byte[]> next = queue.take();
+                if (next == END) {
+                    ended = true;
+                    return false;
+                }
+                buffer = next.get();
+                position = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for decompressed input");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException("Problem decompressing input", e.getCause());
+            }
+        }
+        return true;
+    }
+
+    // GZIPInputStream continues with the next member at the end of one
+    private void decompress(InputStream compressed) {
+        try (InputStream inputStream = new GZIPInputStream(compressed, 64 * 1024)) {
+            while (true) {
+                byte[] decompressed = new byte[BUFFER_SIZE];
+                int read = IOUtils.read(inputStream, decompressed);
+                if (read == 0) {
+                    break;
+                }
+                byte[] bytes = read == BUFFER_SIZE ? decompressed : Arrays.copyOf(decompressed, read);
+                queue.put(CompletableFuture.completedFuture(bytes));
+            }
+            queue.put(END);
+        } catch (IOException e) {
+            fail(e);
+        } catch (InterruptedException e) {
+            // The reader is closed
+        }
+    }
+
+    // Every member is read whole and inflated by the pool. Their futures are
+    // queued in the order of the file, which keeps the output in order.
+    private void splitMembers(InputStream compressed) {
+        try (InputStream inputStream = compressed) {
+            byte[] member;
+            while ((member = readMember(inputStream)) != null) {
+                byte[] bytes = member;
+                queue.put(inflaters.submit(() -> inflate(bytes)));
+            }
+            queue.put(END);
+        } catch (IOException e) {
+            fail(e);
+        } catch (InterruptedException | RejectedExecutionException e) {
+            // The reader is closed
+        }
+    }
+
+    private void fail(IOException e) {
+        CompletableFuture<byte[]> failed = new CompletableFuture<>();
+        failed.completeExceptionally(e);
+        try {
+            queue.put(failed);
+        } catch (InterruptedException e1) {
+            // The reader is closed
+        }
+    }
+
+    // Returns null at the end of the file
+    private static byte[] readMember(InputStream inputStream) throws IOException {
+        byte[] header = new byte[HEADER_LENGTH];
+        int read = IOUtils.read(inputStream, header);
+        if (read == 0) {
+            return null;
+        }
+        if (read < HEADER_LENGTH) {
+            throw new EOFException("Unexpected end of BGZF file");
+        }
+
+        int extraLength = unsignedShort(header, 10);
+        byte[] extra = new byte[extraLength];
+        IOUtils.readFully(inputStream, extra);
+        int blockSize = blockSize(header, extra);
+        if (blockSize < HEADER_LENGTH + extraLength + 8) {
+            throw new IOException("Member of BGZF file has no valid block size");
+        }
+
+        byte[] member = new byte[blockSize];
+        System.arraycopy(header, 0, member, 0, HEADER_LENGTH);
+        System.arraycopy(extra, 0, member, HEADER_LENGTH, extraLength);
+        IOUtils.readFully(inputStream, member, HEADER_LENGTH + extraLength, blockSize - HEADER_LENGTH - extraLength);
+        return member;
+    }
+
+    // The uncompressed size is the last field of a member
+    private static byte[] inflate(byte[] member) throws IOException {
+        int length = member[member.length - 4] & 0xff
+                | (member[member.length - 3] & 0xff) << 8
+                | (member[member.length - 2] & 0xff) << 16
+                | (member[member.length - 1] & 0xff) << 24;
+
+        byte[] inflated = new byte[length];
+        try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(member))) {
+            IOUtils.readFully(inputStream, inflated);
+        }
+        return inflated;
+    }
+
+    // Only the first member is checked, a BGZF file consists of BGZF members
+    private static boolean isBgzf(File file) throws IOException {
+        try (InputStream inputStream = new FileInputStream(file)) {
+            byte[] header = new byte[HEADER_LENGTH];
+            if (IOUtils.read(inputStream, header) < HEADER_LENGTH) {
+                return false;
+            }
+            byte[] extra = new byte[unsignedShort(header, 10)];
+            return IOUtils.read(inputStream, extra) == extra.length && blockSize(header, extra) >= 0;
+        }
+    }
+
+    // Total size of the member from the BC subfield of BGZF, -1 if it has none
+    private static int blockSize(byte[] header, byte[] extra) throws IOException {
+        if ((header[0] & 0xff) != GZIP_MAGIC_1 || (header[1] & 0xff) != GZIP_MAGIC_2) {
+            throw new IOException("Not in GZIP format");
+        }
+        if ((header[3] & FEXTRA) == 0) {
+            return -1;
+        }
+
+        int i = 0;
+        while (i + 4 <= extra.length) {
+            int subfieldLength = unsignedShort(extra, i + 2);
+            if (extra[i] == 'B' && extra[i + 1] == 'C' && subfieldLength == 2 && i + 6 <= extra.length) {
+                return unsignedShort(extra, i + 4) + 1;
+            }
+            i += 4 + subfieldLength;
+        }
+        return -1;
+    }
+
+    private static int unsignedShort(byte[] bytes, int offset) {
+        return bytes[offset] & 0xff | (bytes[offset + 1] & 0xff) << 8;
+    }
+}
@@ -1,288 +1,712 @@
 package com.test.eventinserter.bl.producer;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.test.eventinserter.bl.consumer.EventConsumer;
+import com.test.eventinserter.bl.checkpoint.Checkpoint;
+import com.test.eventinserter.bl.checkpoint.CheckpointStore;
+import com.test.eventinserter.bl.distributed.ItemPublisher;
+import com.test.eventinserter.bl.metrics.PipelineMetrics;
+import com.test.eventinserter.bl.pairing.EventPairer;
+import com.test.eventinserter.bl.pairing.PairingExpiry;
+import com.test.eventinserter.bl.pairing.PairingStore;
+import com.test.eventinserter.bl.pairing.PairingStoreException;
+import com.test.eventinserter.bl.pairing.PartitionedPairer;
+import com.test.eventinserter.bl.parser.EventLineParser;
+import com.test.eventinserter.bl.tracker.JobTracker;
+import com.test.eventinserter.bl.transport.EventTransport;
 import com.test.eventinserter.model.Event;
 import com.test.eventinserter.model.EventItem;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.LineIterator;
-import org.ehcache.Cache;
-import org.ehcache.CacheManager;
-import org.ehcache.config.builders.CacheConfigurationBuilder;
-import org.ehcache.config.builders.CacheManagerBuilder;
-import org.ehcache.config.builders.ResourcePoolsBuilder;
-import org.ehcache.config.units.MemoryUnit;
-import org.ehcache.spi.loaderwriter.CacheLoadingException;
-import org.ehcache.spi.loaderwriter.CacheWritingException;
+import com.test.eventinserter.persistence.service.BulkLoadService;
+import com.test.eventinserter.persistence.service.EventService;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.jms.JmsException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jms.config.JmsListenerEndpointRegistry;
-import org.springframework.jms.core.JmsTemplate;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 @Component
 public class EventProducer {
 
     @Autowired
-    private JmsTemplate jmsTemplate;
+    private EventTransport eventTransport;
 
     @Autowired
-    private EventConsumer eventConsumer;
+    private JobTracker jobTracker;
+
+    // Key: id, Value: timestamp
+    @Autowired
+    private PairingStore pairingStore;
 
     @Autowired
     private JmsListenerEndpointRegistry jmsListenerEndpointRegistry;
 
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Autowired
+    private PairingExpiry pairingExpiry;
+
+    @Autowired
+    private EventPairer eventPairer;
+
+    @Autowired
+    private CheckpointStore checkpointStore;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private BulkLoadService bulkLoadService;
+
+    // Only on reader nodes
+    @Autowired(required = false)
+    private ItemPublisher itemPublisher;
+
+    // standalone, reader or pairer
+    @Value("${eventinserter.role}")
+    private String role;
+
+    // This reader reads the reader-index-th of reader-count shares of the input
+    @Value("${eventinserter.distributed.reader-index}")
+    private int readerIndex;
+
+    @Value("${eventinserter.distributed.reader-count}")
+    private int readerCount;
+
+    // More than one thread enables parallel reading of memory mapped chunks
+    @Value("${eventinserter.ingest.threads}")
+    private int ingestThreads;
+
+    @Value("${eventinserter.ingest.chunk-size-mb}")
+    private long chunkSizeMb;
+
+    // stream pairs in the pairing store while reading,
+    // partitioned pairs in a second pass over spill files
+    @Value("${eventinserter.ingest.mode}")
+    private String ingestMode;
+
+    // Input spilled into a single partition, which bounds the memory of the second pass
+    @Value("${eventinserter.partition.size-mb}")
+    private long partitionSizeMb;
+
+    @Value("${eventinserter.partition.dir}")
+    private String partitionDir;
+
+    // Input read between two checkpoints, 0 disables checkpoints
+    @Value("${eventinserter.checkpoint.interval-mb}")
+    private long checkpointIntervalMb;
+
+    @Value("${eventinserter.checkpoint.resume}")
+    private boolean resume;
+
+    // Follow a growing file instead of reading it to its end
+    @Value("${eventinserter.follow.enabled}")
+    private boolean follow;
+
+    @Value("${eventinserter.follow.poll-interval-ms}")
+    private long followPollIntervalMs;
+
+    private volatile FileFollower fileFollower;
+
+    // Released when a pairer node is stopped
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    // Set while the lines are spilled in partitioned mode
+    private volatile PartitionedPairer partitionedPairer;
+
+    // Events persisted by the runs before the restored checkpoint
+    private long previouslyPersistedEvents;
+
+    // Every partition keeps an open file with its write buffer during the first pass
+    private static final int MAX_PARTITIONS = 1024;
+
     private Logger logger = LoggerFactory.getLogger(EventProducer.class);
-    // Key: id, Value: timestamp
-    private Cache<String, Long> cache;
-    private ObjectMapper mapper;
-    // Need to store it to send finalization signal
-    private Boolean hasMoreItems;
+    // Parsers keep the state of the line being processed
+    private final ThreadLocal<EventLineParser> parsers = ThreadLocal.withInitial(EventLineParser::new);
 
-    public EventProducer() {
-        buildCache();
-        this.mapper = new ObjectMapper();
-        this.hasMoreItems = true;
-    }
+    // Paths may be files, directories or glob patterns. All the files are read
+    // in this run, and items pair across files as they share the pairing store.
+    public void produceEvent(String[] args) {
 
-    public void produceEvent(String[] paths) {
+        // Options of Spring such as --spring.profiles.active are not inputs
+        String[] paths = Arrays.stream(args).filter(arg -> !arg.startsWith("--")).toArray(String[]::new);
 
-        File file = validateAndGetFile(paths);
+        if (follow) {
+            followFile(paths);
+            return;
+        }
 
-        if (file == null) {
-            terminate();
+        if (isPairer()) {
+            pairUntilStopped();
+            return;
         }
 
-        // Process the file line by line in order to cope with large files
-        try (LineIterator lineIterator = FileUtils.lineIterator(file)) {
-            hasMoreItems = lineIterator.hasNext();
-            while (hasMoreItems) {
-                EventItem eventItem = validateAndReadJSON(lineIterator.next());
-                hasMoreItems = lineIterator.hasNext();
+        List<File> files = InputFiles.resolve(paths);
 
-                if (eventItem != null) {
-                    try {
-                        accessCache(eventItem);
-                    } catch (CacheWritingException | CacheLoadingException e) {
-                        logger.error("Problem accessing to cache!", e);
-                        retryCaching(eventItem);
-                    }
-                }
+        if (files.isEmpty()) {
+            terminate();
+        }
 
+        // The events are calculated and saved by the pairer nodes
+        if (isReader()) {
+            if (readInput(files)) {
+                itemPublisher.flush();
+                logger.info("Published the items of {} lines", pipelineMetrics.getLinesRead());
             }
-        } catch (IOException e) {
-            logger.error("Problem reading file!", e);
             return;
         }
 
-        waitConsumerToFinish();
+        boolean bulkLoad = bulkLoadService.begin();
+        boolean consumersFinished = false;
+        try {
+            boolean read = readInput(files);
+
+            // The events of the lines read before a failure are saved as well.
+            // Nothing to wait for if the files did not contain any event pair.
+            consumersFinished = !eventTransport.finish() || waitConsumerToFinish();
+
+            if (read && files.size() == 1 && !isPartitioned()) {
+                if (pipelineMetrics.getEventsLost() > 0) {
+                    logger.error("{} events could not be saved, the last checkpoint is kept to resume from!",
+                            pipelineMetrics.getEventsLost());
+                } else {
+                    deleteCheckpoint();
+                }
+            }
+        } finally {
+            if (bulkLoad) {
+                finishBulkLoad(consumersFinished);
+            }
+        }
+
+        if (jobTracker.isFailed()) {
+            logger.error("Fatal Error! Events could not be delivered to the consumers!");
+            terminate();
+        }
     }
 
-    // Wait until the consumer finishes its job
-    // in order to exit the application
-    private void waitConsumerToFinish() {
+    // Indexes are only rebuilt once no consumer inserts into the table any more
+    private void finishBulkLoad(boolean consumersFinished) {
+        if (consumersFinished) {
+            bulkLoadService.finish();
+        } else {
+            logger.error("Events may still be being saved, indexes are not rebuilt and the load must be run again!");
+        }
+    }
+
+    // Returns false if the input could not be read
+    private boolean readInput(List<File> files) {
+        if (pairingExpiry.isEnabled() && readsInParallel(files)) {
+            logger.error("A pairing window is not supported while reading in parallel, the watermark "
+                    + "of one thread would expire items whose pair another thread has not read yet!");
+            terminate();
+        }
+
         try {
-            logger.info("Waiting all events to be saved");
-            Object jobComplete = eventConsumer.getJobComplete();
-            synchronized (jobComplete) {
-                jobComplete.wait();
+            if (isReader()) {
+                readShare(files);
+            } else if (isPartitioned()) {
+                readPartitioned(files);
+            } else if (files.size() == 1) {
+                readFile(files.get(0));
+            } else {
+                readFiles(files);
             }
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+            return true;
+        } catch (IOException e) {
+            logger.error("Problem reading file!", e);
+            return false;
+        } catch (UncheckedIOException e) {
+            logger.error("Problem reading file!", e.getCause());
+            return false;
         }
+    }
 
-        jmsListenerEndpointRegistry.destroy();
+    // Lines are paired by several threads out of the order of the input.
+    // Reader nodes and the partitioned mode do not use the pairing window.
+    private boolean readsInParallel(List<File> files) {
+        if (isReader() || isPartitioned() || ingestThreads <= 1) {
+            return false;
+        }
+        return files.size() > 1 || !DecompressingInputStream.isGzip(files.get(0));
     }
 
-    // When a problem occurs with caching
-    // retry for multiple times. If the problem persists
-    // then terminate the application
-    private void retryCaching(EventItem eventItem) {
+    private boolean isPartitioned() {
+        return "partitioned".equals(ingestMode);
+    }
 
-        for (int i = 0; i < 10; i++) {
-            try {
-                accessCache(eventItem);
-                return;
-            } catch (CacheWritingException | CacheLoadingException e) {
-                logger.error("Problem accessing to cache (Retry)!", e);
+    private boolean isReader() {
+        return "reader".equals(role);
+    }
 
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e1) {
-                    e1.printStackTrace();
+    private boolean isPairer() {
+        return "pairer".equals(role);
+    }
+
+    // A reader node reads its share of every file. A plain file is split
+    // into byte ranges, one per reader, and a line belongs to the range its
+    // first byte is in. A compressed file can not be split, every reader
+    // reads whole compressed files in turn.
+    private void readShare(List<File> files) throws IOException {
+        if (resume) {
+            logger.error("Resuming is not supported on a reader node!");
+            terminate();
+        }
+
+        for (int i = 0; i < files.size(); i++) {
+            File file = files.get(i);
+
+            if (DecompressingInputStream.isGzip(file)) {
+                if (i % readerCount == readerIndex) {
+                    logger.info("Reading compressed file {}", file);
+                    try (InputStream inputStream = new DecompressingInputStream(file, ingestThreads)) {
+                        new StreamLineReader(inputStream).read(this::publishLine);
+                    }
                 }
+                continue;
+            }
 
+            long start;
+            long end;
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+                 FileChannel channel = randomAccessFile.getChannel()) {
+                long length = channel.size();
+                start = MappedFileReader.lineStartAt(channel, length * readerIndex / readerCount);
+                end = MappedFileReader.lineStartAt(channel, length * (readerIndex + 1) / readerCount);
             }
-        }
 
-        logger.error("Fatal Error! Unable to access to cache!");
-        terminate();
+            logger.info("Reading bytes {} to {} of file {}", start, end, file);
+            pipelineMetrics.inputOpened(end - start);
+            new MappedFileReader(file, Math.max(1, ingestThreads), chunkSizeMb * 1024 * 1024)
+                    .read(start, end, this::publishLine);
+        }
     }
 
-    private void accessCache(EventItem eventItem) throws CacheWritingException, CacheLoadingException {
+    // A pairer node receives the items of the reader nodes until it is stopped,
+    // see ItemPairer. The listener containers are running already.
+    private void pairUntilStopped() {
+        if (pairingExpiry.isEnabled() && readerCount > 1) {
+            logger.error("A pairing window is not supported with more than one reader node!");
+            terminate();
+        }
 
-        // If item exists in cache
-        // then event duration can be calculated
-        // and event can be sent to be stored
+        logger.info("Pairing the items of the reader nodes until stopped");
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-        Long previousTimestamp = cache.get(eventItem.getId());
+    // Called on a pairer node with an item published by a reader node.
+    // The items of an id always arrive at the same node.
+    public void pairItem(EventItem item) {
+        if (item.getTimestamp() == null) {
+            eventPairer.cancel(item.getId());
+            return;
+        }
 
-        if (previousTimestamp != null) {
-            sendEvent(eventItem, previousTimestamp);
-        } else { // Store item in cache until the next pair is read
-            cache.put(eventItem.getId(), eventItem.getTimestamp());
-            logger.debug("EventItem with id {} has been cached.", eventItem.getId());
+        Event event = eventPairer.pair(item.getId(), item.getType(), item.getHost(), item.getTimestamp());
+        if (event != null) {
+            sendEvent(event);
         }
     }
 
-    // Calculate event and send it to the consumer
-    private void sendEvent(EventItem eventItem, Long previousTimestamp) {
-        Event event = new Event();
+    private void readFile(File file) throws IOException {
+        if (DecompressingInputStream.isGzip(file)) {
+            readCompressedFile(file);
+            return;
+        }
 
-        event.setId(eventItem.getId());
-        event.setHost(eventItem.getHost());
-        event.setType(eventItem.getType());
+        long offset = resume ? restoreCheckpoint(file) : 0;
+        pipelineMetrics.inputOpened(file.length() - offset);
+        readFileInSegments(file, offset);
+    }
 
-        Long duration = Math.abs(eventItem.getTimestamp() - previousTimestamp);
-        event.setDuration(duration);
+    // A compressed file is read as a stream while it is decompressed on
+    // other threads. Offsets in it cannot be checkpointed.
+    private void readCompressedFile(File file) throws IOException {
+        if (resume) {
+            logger.error("Resuming is not supported for a compressed file!");
+            terminate();
+        }
 
-        if (duration > 4) {
-            event.setAlert(true);
+        logger.info("Reading compressed file {}", file);
+        try (InputStream inputStream = new DecompressingInputStream(file, ingestThreads)) {
+            new StreamLineReader(inputStream).read(this::processLine);
         }
+    }
 
-        cache.remove(eventItem.getId());
+    // Follows the file for as long as the application runs. The job never
+    // ends, so instead of finishing it the transport is flushed whenever the
+    // end of the file is reached, and the last events do not wait for more.
+    // The file does not need to exist yet.
+    private void followFile(String[] paths) {
+        if (paths.length != 1 || InputFiles.isGlob(paths[0]) || new File(paths[0]).isDirectory()) {
+            logger.error("Exactly one file can be followed!");
+            terminate();
+        }
 
+        logger.info("Following file {}", paths[0]);
+        fileFollower = new FileFollower(new File(paths[0]), followPollIntervalMs);
         try {
-            jmsTemplate.convertAndSend("events", event, m -> {
-                m.setBooleanProperty("hasMoreItems", hasMoreItems);
-                return m;
-            });
-            logger.info("Event {} has been sent.", event.getId());
-        } catch (JmsException e) {
-            logger.error("Problem sending event message!", e);
-            retryMessageDelivery(event);
+            fileFollower.follow(this::processLine, eventTransport::flush);
+        } catch (IOException e) {
+            logger.error("Problem following file!", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while following file!", e);
         }
+    }
 
+    // Stops following before the transport and the consumers are destroyed
+    @PreDestroy
+    public void stop() {
+        if (fileFollower != null) {
+            fileFollower.stop();
+        }
+        stopped.countDown();
     }
 
-    // When a problem occurs with message delivery
-    // retry for multiple times. If the problem persists
-    // then terminate the application
-    private void retryMessageDelivery(Event event) {
+    // Files are scheduled on a work stealing pool. A checkpoint holds an
+    // offset in a single file, so there are no checkpoints for many files.
+    private void readFiles(List<File> files) throws IOException {
+        if (resume) {
+            logger.error("Resuming is only supported for a single file!");
+            terminate();
+        }
 
-        for (int i = 0; i < 10; i++) {
+        long length = 0;
+        for (File file : files) {
+            length += file.length();
+        }
+        pipelineMetrics.inputOpened(uncompressedLength(files));
+
+        logger.info("Reading {} files ({} MB) with {} threads", files.size(), length / (1024 * 1024), ingestThreads);
+        MultiFileReader reader = new MultiFileReader(files, ingestThreads, chunkSizeMb * 1024 * 1024);
+        reader.read(this::processLine);
+    }
+
+    // Inputs larger than memory are paired in two passes over spill files
+    // instead of the pairing store, see PartitionedPairer. The number of
+    // partitions follows from the input size, so that a partition fits in
+    // memory. There are no checkpoints in this mode.
+    private void readPartitioned(List<File> files) throws IOException {
+        if (resume) {
+            logger.error("Resuming is not supported in partitioned mode!");
+            terminate();
+        }
+
+        // The partitions hold the uncompressed lines
+        long length = 0;
+        for (File file : files) {
+            length += DecompressingInputStream.estimateUncompressedLength(file);
+        }
+        pipelineMetrics.inputOpened(uncompressedLength(files));
+
+        long partitionSize = partitionSizeMb * 1024 * 1024;
+        int partitions = (int) Math.min(MAX_PARTITIONS, Math.max(1, (length + partitionSize - 1) / partitionSize));
+        logger.info("Spilling {} files ({} MB) into {} partitions", files.size(), length / (1024 * 1024), partitions);
+
+        try (PartitionedPairer pairer = new PartitionedPairer(new File(partitionDir), partitions)) {
+            partitionedPairer = pairer;
             try {
-                jmsTemplate.convertAndSend("events", event);
-                return;
-            } catch (JmsException e) {
-                logger.error("Problem sending event message (Retry)!", e);
+                if (ingestThreads > 1) {
+                    new MultiFileReader(files, ingestThreads, chunkSizeMb * 1024 * 1024).read(this::spillLine);
+                } else {
+                    for (File file : files) {
+                        try (InputStream inputStream = DecompressingInputStream.open(file, 1)) {
+                            new StreamLineReader(inputStream).read(this::spillLine);
+                        }
+                    }
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                partitionedPairer = null;
+            }
 
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e1) {
-                    e1.printStackTrace();
+            logger.info("Pairing {} partitions with {} threads", partitions, ingestThreads);
+            long unmatched = pairer.pair(ingestThreads, this::sendEvent);
+            logger.info("{} items left without their pair", unmatched);
+        }
+    }
+
+    // Size of the input for the progress metrics. The uncompressed
+    // size of a gzip file is not known before it is read.
+    private static long uncompressedLength(List<File> files) throws IOException {
+        long length = 0;
+        for (File file : files) {
+            if (!DecompressingInputStream.isGzip(file)) {
+                length += file.length();
+            }
+        }
+        return length;
+    }
+
+    // The file is read in newline aligned segments with a checkpoint
+    // after each of them. Without checkpoints it is a single segment.
+    private void readFileInSegments(File file, long offset) throws IOException {
+        long length = file.length();
+        long segmentSize = checkpointIntervalMb > 0 ? checkpointIntervalMb * 1024 * 1024 : length;
+
+        if (ingestThreads > 1) {
+            logger.info("Reading file with {} threads", ingestThreads);
+        }
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+
+            while (offset < length) {
+                long end = offset + segmentSize >= length ? length : MappedFileReader.nextLineStart(channel, offset + segmentSize);
+
+                if (ingestThreads > 1) {
+                    readSegmentInParallel(file, offset, end);
+                } else {
+                    readSegment(file, offset, end);
                 }
 
+                offset = end;
+                if (offset < length) {
+                    checkpoint(file, offset);
+                }
             }
         }
+    }
 
-        logger.error("Fatal Error! Unable to send event message!");
-        terminate();
+    // Process the file line by line in order to cope with large files
+    private void readSegment(File file, long start, long end) throws IOException {
+        try (FileInputStream fileInputStream = new FileInputStream(file)) {
+            fileInputStream.getChannel().position(start);
+            InputStream inputStream = new BoundedInputStream(fileInputStream, end - start);
+            new StreamLineReader(inputStream).read(this::processLine);
+        }
     }
 
-    private EventItem validateAndReadJSON(String json) {
+    // Map the file in newline aligned chunks and process them concurrently.
+    // Both items of a pair meet in the pairing store no matter which threads
+    // read them, because an id is always paired under the lock of its shard.
+    private void readSegmentInParallel(File file, long start, long end) throws IOException {
+        MappedFileReader reader = new MappedFileReader(file, ingestThreads, chunkSizeMb * 1024 * 1024);
+        reader.read(start, end, this::processLine);
+    }
 
-        EventItem eventItem = null;
+    // Reading is paused until every event of the lines before the offset
+    // is persisted, then the offset is saved with the unmatched items.
+    // Events persisted after the checkpoint are sent again on resume and
+    // skipped by EventService as duplicates.
+    // The consumers are done with events whose write failed as well, so
+    // no checkpoint is written once any event was lost, the reading fails
+    // instead. A resume from the last checkpoint sends them again.
+    private void checkpoint(File file, long offset) throws IOException {
+        eventTransport.flush();
         try {
-            eventItem = mapper.readValue(json, EventItem.class);
+            jobTracker.awaitProcessed();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting events to be saved for checkpoint");
+        }
+        if (jobTracker.isFailed()) {
+            throw new IOException("Events could not be delivered, no checkpoint is written at offset " + offset);
+        }
 
-            // Without the id or timestamp the json does not provide any useful information
-            if (eventItem.getId() == null || eventItem.getTimestamp() == null) {
-                logger.error("Event id of read line is not present!");
-                return null;
-            }
+        long lostEvents = pipelineMetrics.getEventsLost();
+        if (lostEvents > 0) {
+            throw new IOException(lostEvents + " events could not be saved, no checkpoint is written at offset " + offset);
+        }
 
-            logger.debug("Deserialized event item with id {}", eventItem.getId());
+        long persistedEvents = previouslyPersistedEvents + pipelineMetrics.getEventsPersisted();
+        checkpointStore.save(new Checkpoint(file.getAbsolutePath(), offset, persistedEvents), pairingStore);
+        logger.info("Checkpoint at offset {} with {} unmatched items and {} persisted events",
+                offset, pairingStore.size(), persistedEvents);
+    }
 
-        } catch (IOException e) {
-            logger.error("Could deserialize JSON!", e);
+    // Returns the offset to continue reading from
+    private long restoreCheckpoint(File file) throws IOException {
+        Checkpoint checkpoint = checkpointStore.load();
+        if (checkpoint == null) {
+            logger.info("No checkpoint found, reading file from the beginning");
+            return 0;
+        }
+
+        if (!checkpoint.getInputPath().equals(file.getAbsolutePath()) || checkpoint.getOffset() > file.length()) {
+            logger.error("Checkpoint of {} at offset {} does not belong to file {}!",
+                    checkpoint.getInputPath(), checkpoint.getOffset(), file.getAbsolutePath());
+            terminate();
+        }
 
-            // The file may contain an invalid JSON.
-            // In that case if the cache already contains an event pair,
-            // It should be removed from the cache. Otherwise it will
-            // occupy memory during the whole runtime.
+        // The table is recreated unless the schema is kept with ddl-auto=update
+        long savedEvents = eventService.countEvents();
+        if (savedEvents < checkpoint.getPersistedEvents()) {
+            logger.error("Database has {} events but {} were persisted at the checkpoint!",
+                    savedEvents, checkpoint.getPersistedEvents());
+            terminate();
+        }
 
-            // try to read id with regular string operations
+        long items = checkpointStore.restoreItems(pairingStore);
+        previouslyPersistedEvents = checkpoint.getPersistedEvents();
+        logger.info("Resuming at offset {} with {} unmatched items and {} persisted events",
+                checkpoint.getOffset(), items, checkpoint.getPersistedEvents());
+        return checkpoint.getOffset();
+    }
 
-            String id = null;
+    // The job is complete, a later run must not resume it
+    private void deleteCheckpoint() {
+        try {
+            checkpointStore.delete();
+        } catch (IOException e) {
+            logger.error("Could not delete checkpoint!", e);
+        }
+    }
 
-            String[] jsonItems = json.split("\"");
-            Integer idIndex = Arrays.asList(jsonItems).indexOf("id");
-            if (idIndex != -1) {
-                id = jsonItems[idIndex + 2];
-            } else {
-                logger.debug("Could not decide id of event which could not be deserialized");
-            }
+    private void processLine(byte[] buffer, int offset, int length) {
+        EventLineParser parser = parsers.get();
+        pipelineMetrics.lineRead(length);
 
-            // Delete the item from cache if exists
-            if (id != null) {
-                cache.remove(id);
-                logger.debug("Removed failed event from cache");
+        if (validateAndParse(parser, buffer, offset, length)) {
+            try {
+                accessCache(parser);
+            } catch (PairingStoreException e) {
+                logger.error("Problem accessing to cache!", e);
+                retryCaching(parser);
             }
         }
-
-        return eventItem;
     }
 
-    // Ehcache supports overflow. By using it, we prevent
-    // possibility of being out of memory when dealing with large files
-    private void buildCache() {
-        CacheManager cacheManager = CacheManagerBuilder.newCacheManagerBuilder()
-                .with(CacheManagerBuilder.persistence(new File("cache")))
-                .withCache("eventItems",
-                        CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, Long.class,
-                                ResourcePoolsBuilder.newResourcePoolsBuilder()
-                                        .heap(250, MemoryUnit.MB)
-                                        .offheap(3, MemoryUnit.GB)
-                                        .disk(100, MemoryUnit.GB))
-                                .build()
-                ).build();
+    private void publishLine(byte[] buffer, int offset, int length) {
+        EventLineParser parser = parsers.get();
+        pipelineMetrics.lineRead(length);
 
-        cacheManager.init();
+        if (validateAndParse(parser, buffer, offset, length)) {
+            itemPublisher.publish(parser);
+        }
+    }
 
-        cache = cacheManager.getCache("eventItems", String.class, Long.class);
+    private void spillLine(byte[] buffer, int offset, int length) {
+        EventLineParser parser = parsers.get();
+        pipelineMetrics.lineRead(length);
 
-        logger.debug("Cache built successfully.");
+        if (validateAndParse(parser, buffer, offset, length)) {
+            partitionedPairer.spill(parser);
+        }
     }
 
-    public Cache getCache() {
-        return this.cache;
+    // Wait until every sent event is processed by the consumers
+    // in order to exit the application
+    // Returns false if interrupted or failed before every event is processed
+    private boolean waitConsumerToFinish() {
+        try {
+            logger.info("Waiting all events to be saved");
+            jobTracker.awaitProcessed();
+            if (jobTracker.isFailed()) {
+                return false;
+            }
+            logger.info("{} events have been processed.", jobTracker.getProcessedEvents());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while waiting events to be saved!", e);
+            return false;
+        }
     }
 
-    private File validateAndGetFile(String[] args) {
-        if (args.length == 0) {
-            logger.error("No file provided!");
-            return null;
+    // When a problem occurs with caching
+    // retry for multiple times. If the problem persists
+    // then terminate the application
+    private void retryCaching(EventLineParser parser) {
+
+        for (int i = 0; i < 10; i++) {
+            try {
+                accessCache(parser);
+                return;
+            } catch (PairingStoreException e) {
+                logger.error("Problem accessing to cache (Retry)!", e);
+
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e1) {
+                    e1.printStackTrace();
+                }
+
+            }
         }
 
-        File file = new File(args[0]);
-        if (!file.exists()) {
-            logger.error("File {} does not exist!", args[0]);
-            return null;
+        logger.error("Fatal Error! Unable to access to cache!");
+        terminate();
+    }
+
+    // If item exists in the pairing store
+    // then event duration can be calculated
+    // and event can be sent to be stored.
+    // Otherwise the item is stored until the next pair is read
+    private void accessCache(EventLineParser parser) throws PairingStoreException {
+        Event event = eventPairer.pair(parser);
+        if (event != null) {
+            sendEvent(event);
         }
+    }
+
+    // Called by the partitioned pairer with the pairs of a partition
+    private void sendEvent(String id, String type, String host, long timestamp, long previousTimestamp) {
+        sendEvent(eventPairer.createEvent(id, type, host, timestamp, previousTimestamp));
+    }
 
-        if (file.length() == 0) {
-            logger.error("File {} is empty!", args[0]);
-            return null;
+    // Send the calculated event to the consumer
+    private void sendEvent(Event event) {
+        awaitCredit();
+        eventTransport.send(event);
+        pipelineMetrics.eventSent();
+    }
+
+    // Pauses the reading while the window of events sent but not processed
+    // yet is full. What the transport holds back is handed over first,
+    // otherwise the window might never drain. The reading stops once
+    // the job has failed.
+    private void awaitCredit() {
+        try {
+            long waitedNanos = jobTracker.awaitCredit(eventTransport::flush);
+            if (waitedNanos > 0) {
+                pipelineMetrics.flowControlWaited(waitedNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while waiting for events to be saved"));
+        }
+        if (jobTracker.isFailed()) {
+            throw new UncheckedIOException(new IOException("Events could not be delivered to the consumers"));
         }
+    }
 
-        return file;
+    // Returns true if the line is an event item which can be paired.
+    // The item of an invalid line is cancelled where its pair would be
+    // looked for.
+    private boolean validateAndParse(EventLineParser parser, byte[] buffer, int offset, int length) {
+        return eventPairer.parse(parser, buffer, offset, length, this::cancel);
+    }
+
+    private void cancel(EventLineParser parser) {
+        if (partitionedPairer != null) {
+            // In partitioned mode the item is cancelled in the second pass
+            partitionedPairer.spillTombstone(parser);
+        } else if (itemPublisher != null) {
+            // On a reader node by the pairer node owning the id
+            itemPublisher.publishTombstone(parser);
+        } else {
+            eventPairer.cancel(parser);
+        }
     }
 
     // Close JMS containers and exit
@@ -0,0 +1,171 @@
+package com.test.eventinserter.bl.producer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+// Follows a file which is being written to, like tail -F. New bytes are read
+// from the last position whenever the file is polled, and only complete lines
+// are handed to the handler. When the file is rotated (the path points to a
+// new file) the old file is read to its end before the new one is opened.
+// When the file is truncated reading starts over from its beginning.
+public class FileFollower {
+
+    private static Logger logger = LoggerFactory.getLogger(FileFollower.class);
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private final Path path;
+    private final long pollIntervalMs;
+
+    private volatile boolean running = true;
+
+    private FileChannel channel;
+    private Object fileIdentity;
+    private long position;
+
+    // Bytes read but not handled yet, the start of an incomplete line
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int limit;
+
+    public FileFollower(File file, long pollIntervalMs) {
+        this.path = file.toPath();
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    // Reads lines until stop is called. The idle action is run
+    // every time the follower has caught up with the end of the file.
+    public void follow(LineHandler lineHandler, Runnable idleAction) throws IOException, InterruptedException {
+        try {
+            while (running) {
+                if (channel == null && !open()) {
+                    Thread.sleep(pollIntervalMs);
+                    continue;
+                }
+
+                if (readAvailable(lineHandler) > 0) {
+                    continue;
+                }
+
+                idleAction.run();
+
+                if (isRotated()) {
+                    // Whatever was appended before the rotation is read first
+                    while (readAvailable(lineHandler) > 0) {
+                        // keep reading
+                    }
+                    handleRemaining(lineHandler);
+                    logger.info("File {} has been rotated, following the new file", path);
+                    close();
+                } else if (channel.size() < position) {
+                    logger.info("File {} has been truncated, reading from its beginning", path);
+                    position = 0;
+                    limit = 0;
+                } else {
+                    Thread.sleep(pollIntervalMs);
+                }
+            }
+        } finally {
+            close();
+        }
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    // Returns false if the file does not exist at the moment, as between
+    // a rotation and the creation of the new file
+    private boolean open() throws IOException {
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        fileIdentity = identityOf(path);
+        position = 0;
+        limit = 0;
+        return true;
+    }
+
+    private void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private boolean isRotated() throws IOException {
+        try {
+            Object identity = identityOf(path);
+            return identity != null && !identity.equals(fileIdentity);
+        } catch (NoSuchFileException e) {
+            // Moved away, the new file is not there yet
+            return true;
+        }
+    }
+
+    // The inode where the file system provides one, the creation time otherwise
+    private static Object identityOf(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        return attributes.fileKey() != null ? attributes.fileKey() : attributes.creationTime();
+    }
+
+    // Returns the number of bytes read
+    private int readAvailable(LineHandler lineHandler) throws IOException {
+        // The buffer is grown only if a single line does not fit into it
+        if (limit == buffer.length) {
+            byte[] larger = new byte[buffer.length * 2];
+            System.arraycopy(buffer, 0, larger, 0, limit);
+            buffer = larger;
+        }
+
+        int read = channel.read(ByteBuffer.wrap(buffer, limit, buffer.length - limit), position);
+        if (read <= 0) {
+            return 0;
+        }
+        position += read;
+
+        int scanned = limit;
+        limit += read;
+        int lineStart = 0;
+        for (int i = scanned; i < limit; i++) {
+            if (buffer[i] == '\n') {
+                handleLine(lineStart, i, lineHandler);
+                lineStart = i + 1;
+            }
+        }
+
+        // Keep the incomplete last line until the rest of it is written
+        if (lineStart > 0) {
+            System.arraycopy(buffer, lineStart, buffer, 0, limit - lineStart);
+            limit -= lineStart;
+        }
+        return read;
+    }
+
+    // The last line of a rotated file will not be completed any more
+    private void handleRemaining(LineHandler lineHandler) {
+        if (limit > 0) {
+            handleLine(0, limit, lineHandler);
+            limit = 0;
+        }
+    }
+
+    private void handleLine(int start, int end, LineHandler lineHandler) {
+        // Strip the carriage return of windows line endings
+        if (end > start && buffer[end - 1] == '\r') {
+            end--;
+        }
+        lineHandler.onLine(buffer, start, end - start);
+    }
+}
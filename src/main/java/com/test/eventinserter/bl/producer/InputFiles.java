@@ -0,0 +1,144 @@
+package com.test.eventinserter.bl.producer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Resolves the paths given on the command line into the files to read.
+// Paths may be files, directories or glob patterns. Problems are logged,
+// and an empty list is returned if there is nothing to read.
+public final class InputFiles {
+
+    private static Logger logger = LoggerFactory.getLogger(InputFiles.class);
+
+    private InputFiles() {
+    }
+
+    public static List<File> resolve(String[] paths) {
+        return isSingleFile(paths) ? toList(validateAndGetFile(paths)) : validateAndGetFiles(paths);
+    }
+
+    public static boolean isGlob(String path) {
+        return path.indexOf('*') >= 0 || path.indexOf('?') >= 0 || path.indexOf('[') >= 0 || path.indexOf('{') >= 0;
+    }
+
+    public static File validateAndGetFile(String[] args) {
+        if (args.length == 0) {
+            logger.error("No file provided!");
+            return null;
+        }
+
+        File file = new File(args[0]);
+        if (!file.exists()) {
+            logger.error("File {} does not exist!", args[0]);
+            return null;
+        }
+
+        if (file.length() == 0) {
+            logger.error("File {} is empty!", args[0]);
+            return null;
+        }
+
+        return file;
+    }
+
+    // A single file is validated on its own, anything else is resolved into a list of files
+    private static boolean isSingleFile(String[] args) {
+        return args.length == 0 || (args.length == 1 && !isGlob(args[0]) && !new File(args[0]).isDirectory());
+    }
+
+    private static List<File> toList(File file) {
+        return file == null ? Collections.emptyList() : Collections.singletonList(file);
+    }
+
+    // Returns an empty list if a given file is not valid or nothing is found
+    private static List<File> validateAndGetFiles(String[] args) {
+        Set<File> files = new LinkedHashSet<>();
+
+        try {
+            for (String arg : args) {
+                if (isGlob(arg)) {
+                    files.addAll(findMatchingFiles(arg));
+                } else if (new File(arg).isDirectory()) {
+                    files.addAll(listFiles(new File(arg)));
+                } else {
+                    File file = validateAndGetFile(new String[]{arg});
+                    if (file == null) {
+                        return Collections.emptyList();
+                    }
+                    files.add(file.getAbsoluteFile());
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Problem listing files!", e);
+            return Collections.emptyList();
+        }
+
+        if (files.isEmpty()) {
+            logger.error("No file found in {}!", Arrays.toString(args));
+        }
+        return new ArrayList<>(files);
+    }
+
+    // Files directly in the directory, in the order of their names
+    private static List<File> listFiles(File directory) throws IOException {
+        try (Stream<Path> paths = Files.list(directory.toPath())) {
+            return paths.filter(InputFiles::isReadable)
+                    .sorted()
+                    .map(path -> path.toAbsolutePath().toFile())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    // Files matching a glob pattern such as logs/2018-*/events-*.log.
+    // The walk starts at the directory before the first wildcard.
+    private static List<File> findMatchingFiles(String pattern) throws IOException {
+        int firstWildcard = 0;
+        while (firstWildcard < pattern.length() && "*?[{".indexOf(pattern.charAt(firstWildcard)) < 0) {
+            firstWildcard++;
+        }
+        int baseEnd = Math.max(pattern.lastIndexOf('/', firstWildcard), pattern.lastIndexOf(File.separatorChar, firstWildcard));
+        Path base = Paths.get(baseEnd < 0 ? "." : pattern.substring(0, baseEnd + 1));
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+
+        if (!Files.isDirectory(base)) {
+            return Collections.emptyList();
+        }
+
+        try (Stream<Path> paths = Files.walk(base)) {
+            return paths.filter(path -> matcher.matches(baseEnd < 0 ? base.relativize(path) : path))
+                    .filter(InputFiles::isReadable)
+                    .sorted()
+                    .map(path -> path.toAbsolutePath().toFile())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    // Empty files are skipped when files are found by listing
+    private static boolean isReadable(Path path) {
+        if (!Files.isRegularFile(path)) {
+            return false;
+        }
+        if (path.toFile().length() == 0) {
+            logger.warn("File {} is empty, skipped.", path);
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,8 @@
+package com.test.eventinserter.bl.producer;
+
+// Receives the lines of an input without their line terminator.
+// The buffer is reused for the next line, so its content must not be kept.
+public interface LineHandler {
+
+    void onLine(byte[] buffer, int offset, int length);
+}
@@ -0,0 +1,156 @@
+package com.test.eventinserter.bl.producer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Reads a file with multiple threads. The file is split into newline
+// aligned chunks, every chunk is memory mapped and its lines are handed
+// to the given handler by one of the worker threads, so the handler is
+// called concurrently. Lines of a chunk are handled in order, but there
+// is no ordering between chunks.
+public class MappedFileReader {
+
+    // Single mapping can not be larger than 2 GB
+    private static final long MAX_CHUNK_SIZE = Integer.MAX_VALUE - 64 * 1024 * 1024;
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    private final int threads;
+    private final long chunkSize;
+
+    public MappedFileReader(File file, int threads, long chunkSize) {
+        this.file = file;
+        this.threads = threads;
+        this.chunkSize = Math.min(chunkSize, MAX_CHUNK_SIZE);
+    }
+
+    public void read(LineHandler lineHandler) throws IOException {
+        read(0, file.length(), lineHandler);
+    }
+
+    // Reads the lines between the given offsets, start must be the start of a line
+    public void read(long start, long end, LineHandler lineHandler) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+
+            List<long[]> chunks = split(channel, start, Math.min(end, channel.size()));
+
+            AtomicInteger threadNumber = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "file-reader-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            try {
+                List<Future<?>> futures = new ArrayList<>(chunks.size());
+                for (long[] chunk : chunks) {
+                    futures.add(executor.submit(() -> {
+                        readChunk(channel, chunk[0], chunk[1], lineHandler);
+                        return null;
+                    }));
+                }
+
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading file " + file, e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException("Problem reading chunk of file " + file, e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    // Returns [start, end) offsets of the chunks. Every chunk except
+    // the last one ends right after a newline character.
+    List<long[]> split(FileChannel channel, long start, long end) throws IOException {
+        List<long[]> chunks = new ArrayList<>();
+
+        while (start < end) {
+            long chunkEnd = start + chunkSize >= end ? end : Math.min(end, nextLineStart(channel, start + chunkSize));
+            chunks.add(new long[]{start, chunkEnd});
+            start = chunkEnd;
+        }
+
+        return chunks;
+    }
+
+    // Start of the first line which starts at or after the position
+    public static long lineStartAt(FileChannel channel, long position) throws IOException {
+        return position == 0 ? 0 : nextLineStart(channel, position - 1);
+    }
+
+    // Offset following the first newline at or after the position,
+    // the size of the file if there is no such newline
+    static long nextLineStart(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long size = channel.size();
+
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+
+        return size;
+    }
+
+    static void readChunk(FileChannel channel, long start, long end, LineHandler lineHandler) throws IOException {
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        byte[] line = new byte[1024];
+        int length = 0;
+
+        while (mapped.hasRemaining()) {
+            byte b = mapped.get();
+            if (b == '\n') {
+                handleLine(line, length, lineHandler);
+                length = 0;
+            } else {
+                if (length == line.length) {
+                    byte[] larger = new byte[line.length * 2];
+                    System.arraycopy(line, 0, larger, 0, length);
+                    line = larger;
+                }
+                line[length++] = b;
+            }
+        }
+
+        if (length > 0) {
+            handleLine(line, length, lineHandler);
+        }
+    }
+
+    private static void handleLine(byte[] line, int length, LineHandler lineHandler) {
+        // Strip the carriage return of windows line endings
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        lineHandler.onLine(line, 0, length);
+    }
+}
@@ -0,0 +1,129 @@
+package com.test.eventinserter.bl.producer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Reads many files with a fork join pool. Every file is a task which splits
+// the file into newline aligned chunks as MappedFileReader does, and every
+// chunk is a task of its own. Idle workers steal chunks of files read by
+// other workers, so a few large files among many small ones do not leave
+// threads without work. The handler is called concurrently, lines of a
+// chunk are handled in order but there is no ordering between chunks or files.
+// A gzip file cannot be split, it is read whole by its task while it is
+// decompressed on a thread of its own.
+public class MultiFileReader {
+
+    private final List<File> files;
+    private final int threads;
+    private final long chunkSize;
+
+    public MultiFileReader(List<File> files, int threads, long chunkSize) {
+        this.files = files;
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+    }
+
+    public void read(LineHandler lineHandler) throws IOException {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(threads, p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("file-reader-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+
+        // Largest files first, so that their chunks are available for stealing early
+        List<FileTask> tasks = new ArrayList<>(files.size());
+        files.stream()
+                .sorted(Comparator.comparingLong(File::length).reversed())
+                .forEach(file -> tasks.add(new FileTask(file, lineHandler)));
+
+        try {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private class FileTask extends RecursiveAction {
+
+        private final File file;
+        private final LineHandler lineHandler;
+
+        private FileTask(File file, LineHandler lineHandler) {
+            this.file = file;
+            this.lineHandler = lineHandler;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                if (DecompressingInputStream.isGzip(file)) {
+                    try (InputStream inputStream = new DecompressingInputStream(file, 1)) {
+                        new StreamLineReader(inputStream).read(lineHandler);
+                    }
+                    return;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Problem reading file " + file, e);
+            }
+
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+                 FileChannel channel = randomAccessFile.getChannel()) {
+
+                List<long[]> chunks = new MappedFileReader(file, threads, chunkSize).split(channel, 0, channel.size());
+                List<ChunkTask> chunkTasks = new ArrayList<>(chunks.size());
+                for (long[] chunk : chunks) {
+                    chunkTasks.add(new ChunkTask(channel, chunk[0], chunk[1], lineHandler));
+                }
+
+                // The channel stays open until every chunk is read
+                invokeAll(chunkTasks);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Problem reading file " + file, e);
+            }
+        }
+    }
+
+    private static class ChunkTask extends RecursiveAction {
+
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final LineHandler lineHandler;
+
+        private ChunkTask(FileChannel channel, long start, long end, LineHandler lineHandler) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.lineHandler = lineHandler;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                MappedFileReader.readChunk(channel, start, end, lineHandler);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.test.eventinserter.bl.producer;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Splits a stream into lines without decoding it into Strings.
+// Lines are handed to the handler straight from the read buffer.
+public class StreamLineReader {
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private final InputStream inputStream;
+
+    public StreamLineReader(InputStream inputStream) {
+        this.inputStream = inputStream;
+    }
+
+    public void read(LineHandler lineHandler) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int limit = 0;
+        int scanned = 0;
+
+        while (true) {
+            int read = inputStream.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                break;
+            }
+            limit += read;
+
+            int lineStart = 0;
+            for (int i = scanned; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    handleLine(buffer, lineStart, i, lineHandler);
+                    lineStart = i + 1;
+                }
+            }
+
+            // Keep the incomplete last line, the buffer is grown
+            // only if a single line does not fit into it
+            int remaining = limit - lineStart;
+            if (lineStart == 0 && limit == buffer.length) {
+                byte[] larger = new byte[buffer.length * 2];
+                System.arraycopy(buffer, 0, larger, 0, limit);
+                buffer = larger;
+            } else if (lineStart > 0) {
+                System.arraycopy(buffer, lineStart, buffer, 0, remaining);
+            }
+            limit = remaining;
+            scanned = remaining;
+        }
+
+        if (limit > 0) {
+            handleLine(buffer, 0, limit, lineHandler);
+        }
+    }
+
+    private static void handleLine(byte[] buffer, int start, int end, LineHandler lineHandler) {
+        // Strip the carriage return of windows line endings
+        if (end > start && buffer[end - 1] == '\r') {
+            end--;
+        }
+        lineHandler.onLine(buffer, start, end - start);
+    }
+}
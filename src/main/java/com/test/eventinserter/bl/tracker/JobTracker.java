@@ -0,0 +1,102 @@
+package com.test.eventinserter.bl.tracker;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Counts events handed over for sending and events the persistence stage
+// is done with, either saved or rejected. The job is complete when the
+// two counts meet, no matter how many consumers process the events or in
+// which order. Waiting on the counts can not miss a notification as
+// waiting on a single "last message" signal could.
+// The difference of the counts, the events in flight, is bounded by a
+// window as well. Every processed event returns a credit to the producer,
+// which waits for credits when the window is full instead of letting the
+// broker buffer grow.
+// When sent events can never be processed, e.g. the transport gave up
+// delivering them, the job fails and nobody waits for the counts any more.
+@Component
+public class JobTracker {
+
+    private long sentEvents;
+    private long processedEvents;
+    private boolean failed;
+
+    // 0 disables the window
+    private final long window;
+
+    // Once the window is full the producer waits until this many events are left in flight,
+    // so it is paused and resumed in large steps rather than once per event
+    private final long resumeLevel;
+
+    @Autowired
+    public JobTracker(@Value("${eventinserter.flow.window-events}") long window) {
+        this.window = window;
+        this.resumeLevel = window - window / 4;
+    }
+
+    public synchronized void eventsSent(int count) {
+        sentEvents += count;
+    }
+
+    public synchronized void eventsProcessed(int count) {
+        processedEvents += count;
+        notifyAll();
+    }
+
+    // Wakes up the waiters, which would wait forever otherwise
+    public synchronized void fail() {
+        failed = true;
+        notifyAll();
+    }
+
+    // Blocks until every event sent so far has been processed or the job has failed
+    public synchronized void awaitProcessed() throws InterruptedException {
+        long target = sentEvents;
+        while (processedEvents < target && !failed) {
+            wait();
+        }
+    }
+
+    // Returns at once while the window is not full. Otherwise runs
+    // beforeWaiting, which must hand over whatever the transport holds
+    // back, and blocks until the events in flight drain to the resume
+    // level. Returns the nanoseconds waited.
+    public long awaitCredit(Runnable beforeWaiting) throws InterruptedException {
+        if (window <= 0) {
+            return 0;
+        }
+        synchronized (this) {
+            if (sentEvents - processedEvents < window) {
+                return 0;
+            }
+        }
+
+        long startedAt = System.nanoTime();
+        // Not under the lock, as handing over may wait for the
+        // consumers, which report processed events to this tracker
+        beforeWaiting.run();
+        synchronized (this) {
+            while (sentEvents - processedEvents > resumeLevel && !failed) {
+                wait();
+            }
+        }
+        return System.nanoTime() - startedAt;
+    }
+
+    public synchronized boolean isFailed() {
+        return failed;
+    }
+
+    public synchronized long getSentEvents() {
+        return sentEvents;
+    }
+
+    public synchronized long getProcessedEvents() {
+        return processedEvents;
+    }
+
+    public synchronized long getEventsInFlight() {
+        return sentEvents - processedEvents;
+    }
+}
@@ -0,0 +1,77 @@
+package com.test.eventinserter.bl.transport;
+
+import org.apache.activemq.ActiveMQMessageProducer;
+import org.apache.activemq.AsyncCallback;
+import org.springframework.jms.support.converter.MessageConverter;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.DeliveryMode;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Queue;
+import javax.jms.Session;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Sends messages without waiting for the broker to acknowledge them. Every
+// send registers a callback which reports a failed message, so the caller
+// can deliver it again. JmsTemplate can not be used here, as its cached
+// producers hide the ActiveMQ producer which takes the callback.
+// The session and its producer are created once and shared by the sending
+// threads, which take turns on this sender.
+class AsyncJmsSender implements AutoCloseable {
+
+    private final Connection connection;
+    private final Session session;
+    private final ActiveMQMessageProducer producer;
+    private final MessageConverter messageConverter;
+    private final Map<String, Queue> queues = new HashMap<>();
+
+    AsyncJmsSender(ConnectionFactory connectionFactory, MessageConverter messageConverter,
+                   boolean persistent) throws JMSException {
+        this.messageConverter = messageConverter;
+        this.connection = connectionFactory.createConnection();
+        try {
+            session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            producer = (ActiveMQMessageProducer) session.createProducer(null);
+            producer.setDeliveryMode(persistent ? DeliveryMode.PERSISTENT : DeliveryMode.NON_PERSISTENT);
+        } catch (JMSException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    // The callback runs on a thread of the connection once the broker has answered
+    synchronized void send(String destination, Object payload, boolean hasMoreItems,
+                           Consumer<JMSException> onFailure) throws JMSException {
+        Message message = JmsEventTransport.setProperties(messageConverter.toMessage(payload, session),
+                payload, hasMoreItems);
+
+        Queue queue = queues.computeIfAbsent(destination, this::createQueue);
+        producer.send(queue, message, new AsyncCallback() {
+            @Override
+            public void onSuccess() {
+            }
+
+            @Override
+            public void onException(JMSException e) {
+                onFailure.accept(e);
+            }
+        });
+    }
+
+    @Override
+    public synchronized void close() throws JMSException {
+        connection.close();
+    }
+
+    private Queue createQueue(String name) {
+        try {
+            return session.createQueue(name);
+        } catch (JMSException e) {
+            throw new IllegalStateException("Could not create queue " + name, e);
+        }
+    }
+}
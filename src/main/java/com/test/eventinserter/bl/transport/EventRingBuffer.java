@@ -0,0 +1,115 @@
+package com.test.eventinserter.bl.transport;
+
+import com.test.eventinserter.model.Event;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Bounded lock-free queue of events for many producers and a single
+// consumer. Slots hold preallocated Event objects which are filled by
+// copying, so publishing does not allocate. Every slot has a sequence
+// number telling whether it is free for the producer of a position or
+// published for the consumer. A slot is released only after the consumer
+// is done with the whole drained batch, which lets the consumer use the
+// slot objects directly instead of copying them out.
+public class EventRingBuffer {
+
+    private final Event[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    // Next position to be claimed by a producer
+    private final AtomicLong tail = new AtomicLong();
+    // Next position to be read by the consumer, only written by the consumer
+    private volatile long head;
+
+    public EventRingBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+
+        this.slots = new Event[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Event();
+            sequences.set(i, i);
+        }
+    }
+
+    // Copies the event into the next free slot, waits while the buffer is full
+    public void publish(Event event) {
+        long position;
+        int index;
+
+        int idleCount = 0;
+        while (true) {
+            position = tail.get();
+            index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (difference < 0) {
+                // Slot of this position is not released by the consumer yet
+                idleCount = idle(idleCount);
+            }
+        }
+
+        Event slot = slots[index];
+        slot.setId(event.getId());
+        slot.setDuration(event.getDuration());
+        slot.setType(event.getType());
+        slot.setHost(event.getHost());
+        slot.setAlert(event.getAlert());
+
+        sequences.lazySet(index, position + 1);
+    }
+
+    // Adds up to maxEvents published slot events to the given list.
+    // The events stay valid until release is called with the returned count.
+    public int drain(List<Event> events, int maxEvents) {
+        long position = head;
+        int count = 0;
+
+        while (count < maxEvents) {
+            int index = (int) (position + count) & mask;
+            if (sequences.get(index) != position + count + 1) {
+                break;
+            }
+            events.add(slots[index]);
+            count++;
+        }
+
+        return count;
+    }
+
+    // Frees the slots of the last drained events for the producers
+    public void release(int count) {
+        long position = head;
+        for (int i = 0; i < count; i++) {
+            long slotPosition = position + i;
+            sequences.lazySet((int) slotPosition & mask, slotPosition + slots.length);
+        }
+        head = position + count;
+    }
+
+    public long size() {
+        return tail.get() - head;
+    }
+
+    // Spin first, then yield and finally park for a short time
+    static int idle(int idleCount) {
+        if (idleCount >= 200) {
+            LockSupport.parkNanos(50_000);
+        } else if (idleCount >= 100) {
+            Thread.yield();
+        }
+        return idleCount + 1;
+    }
+}
@@ -0,0 +1,24 @@
+package com.test.eventinserter.bl.transport;
+
+import com.test.eventinserter.model.Event;
+
+// Carries calculated events from the producer to the persistence stage.
+// Implementations must accept events from multiple threads.
+public interface EventTransport {
+
+    void send(Event event);
+
+    // Hands over whatever is buffered while the job goes on,
+    // so that every event sent so far can be processed
+    default void flush() {
+    }
+
+    // Hands over whatever is buffered, called after the last event of a job.
+    // Returns false if no event has been sent at all.
+    boolean finish();
+
+    // Messages sent but not taken by the persistence stage yet, -1 if unknown
+    default long pendingMessages() {
+        return -1;
+    }
+}
@@ -0,0 +1,357 @@
+package com.test.eventinserter.bl.transport;
+
+import com.test.eventinserter.bl.alert.AlertLane;
+import com.test.eventinserter.bl.tracker.JobTracker;
+import com.test.eventinserter.model.Event;
+import com.test.eventinserter.model.EventEnvelope;
+import org.apache.activemq.broker.BrokerRegistry;
+import org.apache.activemq.broker.BrokerService;
+import org.apache.activemq.broker.region.Destination;
+import org.apache.activemq.command.ActiveMQDestination;
+import org.apache.activemq.command.ActiveMQQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jms.JmsException;
+import org.springframework.jms.connection.SingleConnectionFactory;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.JmsUtils;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.jms.ConnectionFactory;
+import javax.jms.DeliveryMode;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Sends calculated events to the consumer over JMS. When envelopes are enabled
+// events are packed into EventEnvelope messages which are sent when they
+// are full or when their oldest event has waited long enough.
+// Otherwise every event is sent as a message of its own.
+// Alert events are sent to a destination of their own, so they do not wait
+// behind the normal events for their envelope or in the queue. They are
+// sent in envelopes through an AlertLane, without waiting for more.
+// In async send mode messages are sent without waiting for the broker.
+// A message which can not be sent is delivered again by a retry thread in
+// both modes, so the senders neither wait for it nor hold the envelope
+// lock meanwhile. If it can not be delivered at all the job fails, see
+// JobTracker.
+@Component
+@ConditionalOnProperty(name = "eventinserter.transport", havingValue = "jms", matchIfMissing = true)
+public class JmsEventTransport implements EventTransport {
+
+    public static final String EVENT_DESTINATION = "events";
+    public static final String ENVELOPE_DESTINATION = "eventEnvelopes";
+    public static final String ALERT_DESTINATION = "alerts";
+
+    // Number of events a message carries, so a consumer which can not
+    // convert the message can still count them as done with
+    public static final String EVENT_COUNT_PROPERTY = "eventCount";
+
+    private static Logger logger = LoggerFactory.getLogger(JmsEventTransport.class);
+
+    @Autowired
+    private JmsTemplate jmsTemplate;
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private JobTracker jobTracker;
+
+    // Envelopes are disabled when size is less than 2
+    @Value("${eventinserter.jms.envelope-size}")
+    private int envelopeSize;
+
+    @Value("${eventinserter.jms.envelope-max-age-ms}")
+    private long envelopeMaxAgeMs;
+
+    // sync waits for the broker on every send, async does not
+    @Value("${eventinserter.jms.send-mode}")
+    private String sendMode;
+
+    private AsyncJmsSender asyncSender;
+    private ExecutorService retryExecutor;
+
+    private List<Event> envelope = new ArrayList<>();
+    private long envelopeStartedAt;
+
+    // Without envelopes the last event is held back until the next one
+    // arrives, so that the final message can carry hasMoreItems=false
+    private Event pendingEvent;
+
+    private volatile boolean sentAny;
+
+    private ScheduledExecutorService flushScheduler;
+
+    private AlertLane alertLane;
+
+    @PostConstruct
+    public void start() {
+        retryExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "jms-send-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if ("async".equals(sendMode)) {
+            startAsyncSender();
+        }
+
+        alertLane = new AlertLane("alert-sender", envelopeSize, jobTracker,
+                events -> deliver(ALERT_DESTINATION, new EventEnvelope(events), true));
+
+        if (!isEnvelopeEnabled()) {
+            return;
+        }
+
+        flushScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "event-envelope-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, envelopeMaxAgeMs / 2);
+        flushScheduler.scheduleAtFixedRate(this::flushIfExpired, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        alertLane.stop();
+
+        if (flushScheduler != null) {
+            flushScheduler.shutdownNow();
+        }
+        retryExecutor.shutdown();
+        retryExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        if (asyncSender != null) {
+            try {
+                asyncSender.close();
+            } catch (JMSException e) {
+                logger.warn("Could not close JMS connection of async sender", e);
+            }
+        }
+    }
+
+    // The sender has a connection of its own, taken from the
+    // ActiveMQ connection factory behind the caching one
+    private void startAsyncSender() {
+        ConnectionFactory targetConnectionFactory = connectionFactory;
+        if (connectionFactory instanceof SingleConnectionFactory) {
+            targetConnectionFactory = ((SingleConnectionFactory) connectionFactory).getTargetConnectionFactory();
+        }
+        boolean persistent = !jmsTemplate.isExplicitQosEnabled() || jmsTemplate.getDeliveryMode() == DeliveryMode.PERSISTENT;
+
+        try {
+            asyncSender = new AsyncJmsSender(targetConnectionFactory, jmsTemplate.getMessageConverter(), persistent);
+        } catch (JMSException e) {
+            throw JmsUtils.convertJmsAccessException(e);
+        }
+        logger.info("Sending JMS messages asynchronously, {} delivery", persistent ? "persistent" : "non-persistent");
+    }
+
+    @Override
+    public void send(Event event) {
+        if (Boolean.TRUE.equals(event.getAlert())) {
+            sendAlert(event);
+        } else {
+            sendBatched(event);
+        }
+    }
+
+    // Not held back for the final message, as the alert consumer
+    // writes every alert as soon as it is received
+    private void sendAlert(Event event) {
+        sentAny = true;
+        jobTracker.eventsSent(1);
+        alertLane.add(event);
+    }
+
+    private synchronized void sendBatched(Event event) {
+        sentAny = true;
+        jobTracker.eventsSent(1);
+
+        if (!isEnvelopeEnabled()) {
+            if (pendingEvent != null) {
+                deliver(EVENT_DESTINATION, pendingEvent, true);
+            }
+            pendingEvent = event;
+            return;
+        }
+
+        if (envelope.isEmpty()) {
+            envelopeStartedAt = System.currentTimeMillis();
+        }
+        envelope.add(event);
+
+        if (envelope.size() >= envelopeSize) {
+            deliver(ENVELOPE_DESTINATION, takeEnvelope(), true);
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (isEnvelopeEnabled()) {
+            if (!envelope.isEmpty()) {
+                deliver(ENVELOPE_DESTINATION, takeEnvelope(), true);
+            }
+        } else if (pendingEvent != null) {
+            deliver(EVENT_DESTINATION, pendingEvent, true);
+            pendingEvent = null;
+        }
+    }
+
+    // Sends whatever is buffered as the last message of the job
+    @Override
+    public synchronized boolean finish() {
+        if (!sentAny) {
+            return false;
+        }
+
+        if (isEnvelopeEnabled()) {
+            // The final envelope may be empty if the last one was just sent
+            deliver(ENVELOPE_DESTINATION, takeEnvelope(), false);
+        } else if (pendingEvent != null) {
+            // Nothing is held back if the transport has just been flushed,
+            // the consumers then write their last batch once it ages
+            deliver(EVENT_DESTINATION, pendingEvent, false);
+            pendingEvent = null;
+        }
+
+        sentAny = false;
+        return true;
+    }
+
+    // Only known when the broker is embedded, as it is with vm://
+    @Override
+    public long pendingMessages() {
+        BrokerService broker = BrokerRegistry.getInstance().findFirst();
+        if (broker == null) {
+            return -1;
+        }
+
+        try {
+            Map<ActiveMQDestination, Destination> destinations = broker.getRegionBroker().getDestinationMap();
+            long pending = 0;
+            for (String name : new String[]{EVENT_DESTINATION, ENVELOPE_DESTINATION, ALERT_DESTINATION}) {
+                Destination destination = destinations.get(new ActiveMQQueue(name));
+                if (destination != null) {
+                    pending += destination.getDestinationStatistics().getMessages().getCount();
+                }
+            }
+            return pending;
+        } catch (Exception e) {
+            logger.debug("Could not read queue depth from broker", e);
+            return -1;
+        }
+    }
+
+    private synchronized void flushIfExpired() {
+        if (!envelope.isEmpty() && System.currentTimeMillis() - envelopeStartedAt >= envelopeMaxAgeMs) {
+            deliver(ENVELOPE_DESTINATION, takeEnvelope(), true);
+        }
+    }
+
+    private EventEnvelope takeEnvelope() {
+        EventEnvelope eventEnvelope = new EventEnvelope(envelope);
+        envelope = new ArrayList<>(envelopeSize);
+        return eventEnvelope;
+    }
+
+    private boolean isEnvelopeEnabled() {
+        return envelopeSize > 1;
+    }
+
+    private void deliver(String destination, Object payload, boolean hasMoreItems) {
+        try {
+            if (asyncSender != null) {
+                sendAsync(destination, payload, hasMoreItems);
+            } else {
+                convertAndSend(destination, payload, hasMoreItems);
+            }
+            logger.debug("{} has been sent.", payload);
+        } catch (JmsException e) {
+            logger.error("Problem sending event message!", e);
+            retryLater(destination, payload, hasMoreItems);
+        }
+    }
+
+    // A message the broker rejects is delivered again by the retry thread
+    private void sendAsync(String destination, Object payload, boolean hasMoreItems) {
+        try {
+            asyncSender.send(destination, payload, hasMoreItems, e -> {
+                logger.error("Problem sending event message!", e);
+                retryLater(destination, payload, hasMoreItems);
+            });
+        } catch (JMSException e) {
+            throw JmsUtils.convertJmsAccessException(e);
+        }
+    }
+
+    private void retryLater(String destination, Object payload, boolean hasMoreItems) {
+        try {
+            retryExecutor.execute(() -> retryMessageDelivery(destination, payload, hasMoreItems));
+        } catch (RejectedExecutionException rejected) {
+            abandon(payload);
+        }
+    }
+
+    // The failure arrived after the transport was stopped, there is nothing
+    // left to deliver it with. Its events are done with, so that nothing
+    // waits for them.
+    private void abandon(Object payload) {
+        int events = eventCount(payload);
+        logger.error("Transport is stopped, {} with {} events could not be sent again!", payload, events);
+        jobTracker.eventsProcessed(events);
+    }
+
+    private void convertAndSend(String destination, Object payload, boolean hasMoreItems) {
+        jmsTemplate.convertAndSend(destination, payload, m -> setProperties(m, payload, hasMoreItems));
+    }
+
+    static Message setProperties(Message message, Object payload, boolean hasMoreItems) throws JMSException {
+        message.setBooleanProperty("hasMoreItems", hasMoreItems);
+        message.setIntProperty(EVENT_COUNT_PROPERTY, eventCount(payload));
+        return message;
+    }
+
+    private static int eventCount(Object payload) {
+        return payload instanceof EventEnvelope ? ((EventEnvelope) payload).getEvents().size() : 1;
+    }
+
+    // When a problem occurs with message delivery
+    // retry for multiple times. If the problem persists
+    // then the job fails and the producer terminates the application
+    private void retryMessageDelivery(String destination, Object payload, boolean hasMoreItems) {
+
+        for (int i = 0; i < 10; i++) {
+            try {
+                convertAndSend(destination, payload, hasMoreItems);
+                return;
+            } catch (JmsException e) {
+                logger.error("Problem sending event message (Retry)!", e);
+
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e1) {
+                    Thread.currentThread().interrupt();
+                    logger.warn("Interrupted while retrying to send event message", e1);
+                    break;
+                }
+
+            }
+        }
+
+        logger.error("Fatal Error! Unable to send {}!", payload);
+        jobTracker.fail();
+    }
+}
@@ -0,0 +1,117 @@
+package com.test.eventinserter.bl.transport;
+
+import com.test.eventinserter.bl.consumer.AlertWriter;
+import com.test.eventinserter.bl.tracker.JobTracker;
+import com.test.eventinserter.model.Event;
+import com.test.eventinserter.persistence.service.EventService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+
+// In-process transport for single node runs. Events skip JMS conversion
+// and the broker, they are copied into a ring buffer and a dedicated
+// thread drains them in batches straight into the database. Alert events
+// skip the ring buffer and go to the alert writer, which saves them at once.
+@Component
+@ConditionalOnProperty(name = "eventinserter.transport", havingValue = "ring-buffer")
+public class RingBufferEventTransport implements EventTransport {
+
+    private static Logger logger = LoggerFactory.getLogger(RingBufferEventTransport.class);
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private JobTracker jobTracker;
+
+    @Autowired
+    private AlertWriter alertWriter;
+
+    // Must be a power of two
+    @Value("${eventinserter.ring-buffer.capacity}")
+    private int capacity;
+
+    @Value("${eventinserter.persistence.batch-size}")
+    private int batchSize;
+
+    private EventRingBuffer ringBuffer;
+    private Thread consumerThread;
+    private volatile boolean running;
+    private volatile boolean sentAny;
+
+    @PostConstruct
+    public void start() {
+        ringBuffer = new EventRingBuffer(capacity);
+        running = true;
+        consumerThread = new Thread(this::drainLoop, "ring-buffer-consumer");
+        consumerThread.setDaemon(true);
+        consumerThread.start();
+        logger.info("Using in-process ring buffer transport with capacity {}.", capacity);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        consumerThread.join();
+    }
+
+    @Override
+    public void send(Event event) {
+        sentAny = true;
+        jobTracker.eventsSent(1);
+        if (Boolean.TRUE.equals(event.getAlert())) {
+            alertWriter.add(event);
+        } else {
+            ringBuffer.publish(event);
+        }
+    }
+
+    @Override
+    public boolean finish() {
+        // The consumer drains continuously, nothing is held back
+        boolean sent = sentAny;
+        sentAny = false;
+        return sent;
+    }
+
+    // Every event is a message of its own in the ring buffer
+    @Override
+    public long pendingMessages() {
+        return ringBuffer.size();
+    }
+
+    private void drainLoop() {
+        List<Event> batch = new ArrayList<>(batchSize);
+        int idleCount = 0;
+
+        // Remaining events are drained before stopping
+        while (running || ringBuffer.size() > 0) {
+            batch.clear();
+            int count = ringBuffer.drain(batch, batchSize);
+
+            if (count == 0) {
+                idleCount = EventRingBuffer.idle(idleCount);
+                continue;
+            }
+            idleCount = 0;
+
+            try {
+                int saved = eventService.saveEvents(batch);
+                logger.debug("Saved batch of {} events to database.", saved);
+            } catch (Exception e) {
+                logger.error("Error saving events to database!", e);
+            }
+
+            ringBuffer.release(count);
+            jobTracker.eventsProcessed(count);
+        }
+    }
+}
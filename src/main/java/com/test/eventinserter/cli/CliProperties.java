@@ -0,0 +1,71 @@
+package com.test.eventinserter.cli;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+// The configuration of a run without Spring. application.properties is read
+// from the class path, then application-<profile>.properties of every profile
+// in spring.profiles.active and finally the --name=value arguments, each of
+// them overriding the ones before, as Spring Boot does. Placeholders and
+// relaxed names are not supported.
+class CliProperties {
+
+    private final Properties properties = new Properties();
+
+    CliProperties(String[] args) throws IOException {
+        Map<String, String> arguments = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (arg.startsWith("--") && separator > 2) {
+                arguments.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+
+        load("application.properties");
+        String profiles = arguments.getOrDefault("spring.profiles.active",
+                properties.getProperty("spring.profiles.active", ""));
+        for (String profile : profiles.split(",")) {
+            if (!profile.trim().isEmpty()) {
+                load("application-" + profile.trim() + ".properties");
+            }
+        }
+        properties.putAll(arguments);
+    }
+
+    String get(String name) {
+        String value = properties.getProperty(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Property " + name + " is not set");
+        }
+        return value.trim();
+    }
+
+    String get(String name, String defaultValue) {
+        String value = properties.getProperty(name);
+        return value == null ? defaultValue : value.trim();
+    }
+
+    int getInt(String name) {
+        return Integer.parseInt(get(name));
+    }
+
+    long getLong(String name) {
+        return Long.parseLong(get(name));
+    }
+
+    boolean getBoolean(String name) {
+        return Boolean.parseBoolean(get(name));
+    }
+
+    // A missing profile file is skipped, as Spring Boot does
+    private void load(String resource) throws IOException {
+        try (InputStream inputStream = CliProperties.class.getClassLoader().getResourceAsStream(resource)) {
+            if (inputStream != null) {
+                properties.load(inputStream);
+            }
+        }
+    }
+}
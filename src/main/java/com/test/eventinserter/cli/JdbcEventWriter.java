@@ -0,0 +1,173 @@
+package com.test.eventinserter.cli;
+
+import com.test.eventinserter.bl.metrics.PipelineMetrics;
+import com.test.eventinserter.model.Event;
+import com.test.eventinserter.persistence.repository.EventSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+
+// Writes events to the event table over a plain JDBC connection, the way
+// EventService does: a batch is committed at once, and a batch rejected
+// because of a duplicate id is inserted again one by one, so that only the
+// duplicates are skipped. The table is created as Hibernate creates it for
+// the Event entity, see EventSchema. Its secondary indexes are only built once the load is
+// done when the table has been created by this run.
+class JdbcEventWriter implements AutoCloseable {
+
+    private static Logger logger = LoggerFactory.getLogger(JdbcEventWriter.class);
+
+    private static final String TABLE = "EVENT";
+
+    private static final String INSERT_SQL = "INSERT INTO event (id, duration, type, host, alert) VALUES (?, ?, ?, ?, ?)";
+
+    private final Connection connection;
+    private final PipelineMetrics pipelineMetrics;
+    private PreparedStatement insert;
+
+    private boolean indexesDeferred;
+    private boolean bulkLoad;
+
+    JdbcEventWriter(String url, String username, String password, PipelineMetrics pipelineMetrics) throws SQLException {
+        this.pipelineMetrics = pipelineMetrics;
+        this.connection = DriverManager.getConnection(url, username, password);
+        try {
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    // ddlAuto takes the values of spring.jpa.hibernate.ddl-auto. The table
+    // is not dropped at the end of a create-drop run, as it is the result.
+    // A bulk load writes the rows without the transaction log.
+    // Must be called before the first write.
+    void prepareTable(String ddlAuto, boolean bulkLoad) throws SQLException {
+        boolean exists;
+        try (ResultSet tables = connection.getMetaData().getTables(null, null, TABLE, null)) {
+            exists = tables.next();
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            if (exists && ("create".equals(ddlAuto) || "create-drop".equals(ddlAuto))) {
+                statement.execute("DROP TABLE event");
+                exists = false;
+            }
+            if (!exists && !"none".equals(ddlAuto) && !"validate".equals(ddlAuto)) {
+                statement.execute(EventSchema.CREATE_TABLE_SQL);
+                indexesDeferred = true;
+            }
+            if (bulkLoad) {
+                statement.execute("SET FILES LOG FALSE");
+                this.bulkLoad = true;
+            }
+        }
+        connection.commit();
+        insert = connection.prepareStatement(INSERT_SQL);
+    }
+
+    // Returns the number of inserted events
+    int write(List<Event> events) throws SQLException {
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        long startedAt = System.nanoTime();
+        int saved;
+        try {
+            for (Event event : events) {
+                bind(event);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            connection.commit();
+            saved = events.size();
+        } catch (SQLException e) {
+            insert.clearBatch();
+            connection.rollback();
+            if (!isDuplicate(e)) {
+                throw e;
+            }
+            logger.warn("Batch of {} events contains duplicate ids, inserting one by one.", events.size());
+            saved = writeIndividually(events);
+        }
+
+        pipelineMetrics.eventsPersisted(saved, System.nanoTime() - startedAt);
+        return saved;
+    }
+
+    // Builds the deferred indexes and makes a bulk load durable
+    void finish() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (indexesDeferred) {
+                long startedAt = System.currentTimeMillis();
+                for (String sql : EventSchema.createIndexSql()) {
+                    statement.execute(sql);
+                }
+                indexesDeferred = false;
+                logger.info("Indexes built in {} ms", System.currentTimeMillis() - startedAt);
+            }
+            if (bulkLoad) {
+                statement.execute("SET FILES LOG TRUE");
+                statement.execute("CHECKPOINT");
+                bulkLoad = false;
+            }
+        }
+        connection.commit();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    private int writeIndividually(List<Event> events) throws SQLException {
+        int saved = 0;
+        for (Event event : events) {
+            try {
+                bind(event);
+                insert.executeUpdate();
+                connection.commit();
+                saved++;
+            } catch (SQLException e) {
+                connection.rollback();
+                if (!isDuplicate(e)) {
+                    throw e;
+                }
+                logger.warn("Event {} already exists in database, skipped.", event.getId());
+            }
+        }
+        return saved;
+    }
+
+    private void bind(Event event) throws SQLException {
+        insert.setString(1, event.getId());
+        if (event.getDuration() != null) {
+            insert.setLong(2, event.getDuration());
+        } else {
+            insert.setNull(2, Types.BIGINT);
+        }
+        insert.setString(3, event.getType());
+        insert.setString(4, event.getHost());
+        insert.setBoolean(5, Boolean.TRUE.equals(event.getAlert()));
+    }
+
+    // Integrity constraint violations have SQL states of class 23
+    private static boolean isDuplicate(SQLException e) {
+        for (SQLException next = e; next != null; next = next.getNextException()) {
+            if (next.getSQLState() != null && next.getSQLState().startsWith("23")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
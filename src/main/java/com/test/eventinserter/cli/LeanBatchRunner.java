@@ -0,0 +1,273 @@
+package com.test.eventinserter.cli;
+
+import com.test.eventinserter.bl.aggregate.EventAggregate;
+import com.test.eventinserter.bl.aggregate.EventAggregates;
+import com.test.eventinserter.bl.alert.AlertRules;
+import com.test.eventinserter.bl.metrics.PipelineMetrics;
+import com.test.eventinserter.bl.pairing.EventPairer;
+import com.test.eventinserter.bl.pairing.OffHeapPairingStore;
+import com.test.eventinserter.bl.pairing.PairingExpiry;
+import com.test.eventinserter.bl.pairing.PairingStore;
+import com.test.eventinserter.bl.pairing.ShardedPairingStore;
+import com.test.eventinserter.bl.parser.EventLineParser;
+import com.test.eventinserter.bl.producer.DecompressingInputStream;
+import com.test.eventinserter.bl.producer.InputFiles;
+import com.test.eventinserter.bl.producer.MappedFileReader;
+import com.test.eventinserter.bl.producer.MultiFileReader;
+import com.test.eventinserter.bl.producer.StreamLineReader;
+import com.test.eventinserter.model.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Reads, pairs and saves a batch of input files without Spring Boot, JPA or
+// the broker, for the small inputs whose run would mostly be spent starting
+// the application. The parser, the readers, the off-heap pairing store and
+// the event pairer of the application are wired by hand, and the events are
+// written by a single thread over a plain JDBC connection. It reads the same
+// properties as the application and saves the same events. The features
+// which need the application are refused: distributed roles, following a
+// file, partitioned ingestion, resuming, the Ehcache store and expiry.
+// No checkpoints are written, a failed batch is run again.
+// Run it with: java -cp <jars> com.test.eventinserter.cli.LeanBatchRunner <paths> [--name=value]
+public class LeanBatchRunner {
+
+    // Without Spring Boot logback needs a configuration of its own
+    static {
+        if (System.getProperty("logback.configurationFile") == null) {
+            System.setProperty("logback.configurationFile", "logback-lean.xml");
+        }
+    }
+
+    private static Logger logger = LoggerFactory.getLogger(LeanBatchRunner.class);
+
+    // Full batches waiting for the writer, the reading pauses when it is full
+    private static final int QUEUED_BATCHES = 4;
+
+    private final PipelineMetrics pipelineMetrics = new PipelineMetrics();
+    private final EventAggregates eventAggregates = new EventAggregates();
+    private final EventPairer eventPairer;
+    private final int batchSize;
+    private final BlockingQueue<List<Event>> batches = new ArrayBlockingQueue<>(QUEUED_BATCHES);
+
+    // Parsers keep the state of the line being processed
+    private final ThreadLocal<EventLineParser> parsers = ThreadLocal.withInitial(EventLineParser::new);
+
+    private List<Event> batch;
+    private volatile boolean writeFailed;
+
+    private LeanBatchRunner(PairingStore pairingStore, AlertRules alertRules, int batchSize) {
+        // Expiry is refused, the pairing expiry is left disabled
+        this.eventPairer = new EventPairer(pairingStore, alertRules, pipelineMetrics,
+                new PairingExpiry(), eventAggregates);
+        this.batchSize = batchSize;
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    public static void main(String[] args) {
+        boolean completed;
+        try {
+            completed = run(args);
+        } catch (IllegalArgumentException e) {
+            logger.error(e.getMessage());
+            completed = false;
+        } catch (IOException | SQLException | RuntimeException e) {
+            logger.error("Problem running batch!", e);
+            completed = false;
+        }
+        logger.info("Exiting...");
+        System.exit(completed ? 0 : 1);
+    }
+
+    private static boolean run(String[] args) throws IOException, SQLException {
+        long startedAt = System.currentTimeMillis();
+        CliProperties properties = new CliProperties(args);
+        checkSupported(properties);
+
+        // Options such as --spring.profiles.active are not inputs
+        String[] paths = Arrays.stream(args).filter(arg -> !arg.startsWith("--")).toArray(String[]::new);
+        List<File> files = InputFiles.resolve(paths);
+        if (files.isEmpty()) {
+            return false;
+        }
+
+        AlertRules alertRules = new AlertRules(properties.getLong("eventinserter.alert.threshold-ms"),
+                properties.get("eventinserter.alert.type-thresholds", ""),
+                properties.get("eventinserter.alert.host-thresholds", ""));
+
+        int shards = properties.getInt("eventinserter.pairing.shards");
+        int initialCapacity = properties.getInt("eventinserter.pairing.offheap.initial-capacity");
+        int maxKeyLength = properties.getInt("eventinserter.pairing.offheap.max-key-length");
+        List<PairingStore> stores = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            stores.add(new OffHeapPairingStore(Math.max(1, initialCapacity / shards), maxKeyLength));
+        }
+
+        PairingStore pairingStore = new ShardedPairingStore(stores);
+        try {
+            LeanBatchRunner runner = new LeanBatchRunner(pairingStore, alertRules,
+                    properties.getInt("eventinserter.persistence.batch-size"));
+            boolean completed = runner.ingest(files, properties);
+
+            EventAggregate total = runner.eventAggregates.getTotal();
+            logger.info("Read {} lines of {} files, saved {} of {} events with {} alerts, {} items left without their pair in {} ms",
+                    runner.pipelineMetrics.getLinesRead(), files.size(), runner.pipelineMetrics.getEventsPersisted(),
+                    total.getEvents(), total.getAlerts(), pairingStore.size(), System.currentTimeMillis() - startedAt);
+            return completed;
+        } finally {
+            pairingStore.close();
+        }
+    }
+
+    private static void checkSupported(CliProperties properties) {
+        refuseUnless("standalone".equals(properties.get("eventinserter.role")), "eventinserter.role");
+        refuseUnless(!properties.getBoolean("eventinserter.follow.enabled"), "eventinserter.follow.enabled");
+        refuseUnless("stream".equals(properties.get("eventinserter.ingest.mode")), "eventinserter.ingest.mode");
+        refuseUnless(!properties.getBoolean("eventinserter.checkpoint.resume"), "eventinserter.checkpoint.resume");
+        refuseUnless("offheap".equals(properties.get("eventinserter.pairing.store")), "eventinserter.pairing.store");
+        refuseUnless(properties.getLong("eventinserter.pairing.window-ms") == 0, "eventinserter.pairing.window-ms");
+    }
+
+    private static void refuseUnless(boolean supported, String property) {
+        if (!supported) {
+            throw new IllegalArgumentException("The value of " + property
+                    + " is not supported by the lean runner, run EventinserterApplication instead!");
+        }
+    }
+
+    private boolean ingest(List<File> files, CliProperties properties) throws IOException, SQLException {
+        try (JdbcEventWriter eventWriter = new JdbcEventWriter(properties.get("spring.datasource.url"),
+                properties.get("spring.datasource.username", "sa"),
+                properties.get("spring.datasource.password", ""), pipelineMetrics)) {
+            eventWriter.prepareTable(properties.get("spring.jpa.hibernate.ddl-auto", "none"),
+                    properties.getBoolean("eventinserter.persistence.bulk-load"));
+
+            Thread writerThread = new Thread(() -> writeBatches(eventWriter), "lean-event-writer");
+            writerThread.start();
+
+            boolean read;
+            try {
+                read(files, properties.getInt("eventinserter.ingest.threads"),
+                        properties.getLong("eventinserter.ingest.chunk-size-mb") * 1024 * 1024);
+                read = true;
+            } catch (IOException | UncheckedIOException e) {
+                logger.error("Problem reading file!", e);
+                read = false;
+            } finally {
+                List<Event> last = takeBatch();
+                if (!last.isEmpty()) {
+                    enqueue(last);
+                }
+                // An empty batch stops the writer once the batches before it are written
+                enqueue(Collections.emptyList());
+                join(writerThread);
+            }
+
+            eventWriter.finish();
+            return read && !writeFailed;
+        }
+    }
+
+    private void read(List<File> files, int threads, long chunkSize) throws IOException {
+        if (files.size() > 1) {
+            logger.info("Reading {} files with {} threads", files.size(), threads);
+            new MultiFileReader(files, threads, chunkSize).read(this::processLine);
+            return;
+        }
+
+        File file = files.get(0);
+        if (DecompressingInputStream.isGzip(file)) {
+            try (InputStream inputStream = new DecompressingInputStream(file, threads)) {
+                new StreamLineReader(inputStream).read(this::processLine);
+            }
+        } else if (threads > 1) {
+            new MappedFileReader(file, threads, chunkSize).read(this::processLine);
+        } else {
+            try (InputStream inputStream = new FileInputStream(file)) {
+                new StreamLineReader(inputStream).read(this::processLine);
+            }
+        }
+    }
+
+    // Pairs the line as EventProducer does, the item of an invalid line is cancelled
+    private void processLine(byte[] buffer, int offset, int length) {
+        EventLineParser parser = parsers.get();
+        pipelineMetrics.lineRead(length);
+
+        if (eventPairer.parse(parser, buffer, offset, length, eventPairer::cancel)) {
+            Event event = eventPairer.pair(parser);
+            if (event != null) {
+                add(event);
+            }
+        }
+    }
+
+    private void add(Event event) {
+        List<Event> full = null;
+        synchronized (this) {
+            pipelineMetrics.eventSent();
+            batch.add(event);
+            if (batch.size() >= batchSize) {
+                full = takeBatch();
+            }
+        }
+        if (full != null) {
+            enqueue(full);
+        }
+    }
+
+    private synchronized List<Event> takeBatch() {
+        List<Event> events = batch;
+        batch = new ArrayList<>(batchSize);
+        return events;
+    }
+
+    private void enqueue(List<Event> events) {
+        try {
+            batches.put(events);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while waiting for events to be saved"));
+        }
+    }
+
+    // Takes batches until the empty one whatever happens to a batch,
+    // otherwise the reading threads would wait for room in the queue forever
+    private void writeBatches(JdbcEventWriter eventWriter) {
+        try {
+            List<Event> events;
+            while (!(events = batches.take()).isEmpty()) {
+                try {
+                    int saved = eventWriter.write(events);
+                    logger.debug("Saved batch of {} events to database.", saved);
+                } catch (SQLException | RuntimeException e) {
+                    logger.error("Error saving events to database!", e);
+                    writeFailed = true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void join(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
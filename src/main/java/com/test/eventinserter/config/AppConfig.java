@@ -1,7 +1,9 @@
 package com.test.eventinserter.config;
 
+import com.test.eventinserter.converter.BinaryEventMessageConverter;
 import com.test.eventinserter.handler.JmsErrorHandler;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.jms.DefaultJmsListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -19,17 +21,49 @@ public class AppConfig {
     @Autowired
     JmsErrorHandler jmsErrorHandler;
 
+    // Number of consumers per destination, e.g. "4" or "2-8"
+    @Value("${eventinserter.jms.consumer-concurrency}")
+    String consumerConcurrency;
+
+    // Consumers of the alert destination, which do not compete
+    // with the consumers of the normal events
+    @Value("${eventinserter.alert.consumer-concurrency}")
+    String alertConsumerConcurrency;
+
+    // json or binary
+    @Value("${eventinserter.jms.message-format}")
+    String messageFormat;
+
     @Bean
     public JmsListenerContainerFactory<?> jmsListenerContainerFactory(ConnectionFactory connectionFactory,
                                                                       DefaultJmsListenerContainerFactoryConfigurer configurer) {
         DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory();
         factory.setErrorHandler(jmsErrorHandler);
         configurer.configure(factory, connectionFactory);
+        factory.setConcurrency(consumerConcurrency);
+        return factory;
+    }
+
+    @Bean
+    public JmsListenerContainerFactory<?> alertListenerContainerFactory(ConnectionFactory connectionFactory,
+                                                                        DefaultJmsListenerContainerFactoryConfigurer configurer) {
+        DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory();
+        factory.setErrorHandler(jmsErrorHandler);
+        configurer.configure(factory, connectionFactory);
+        factory.setConcurrency(alertConsumerConcurrency);
         return factory;
     }
 
     @Bean
-    public MessageConverter jacksonJmsMessageConverter() {
+    public MessageConverter jmsMessageConverter() {
+        MessageConverter jsonConverter = jacksonJmsMessageConverter();
+        if ("binary".equals(messageFormat)) {
+            return new BinaryEventMessageConverter(jsonConverter);
+        }
+        return jsonConverter;
+    }
+
+    private MessageConverter jacksonJmsMessageConverter() {
         MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
         converter.setTargetType(MessageType.TEXT);
         converter.setTypeIdPropertyName("_type");
@@ -0,0 +1,44 @@
+package com.test.eventinserter.config;
+
+import org.apache.activemq.broker.BrokerService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import javax.jms.ConnectionFactory;
+
+// Runs a broker in this JVM which the nodes of a distributed run connect
+// to over the given connector, e.g. tcp://0.0.0.0:61616. It is named
+// localhost, so a vm://localhost connection of this JVM uses it as well.
+@Configuration
+@ConditionalOnProperty(name = "eventinserter.broker.connector")
+public class BrokerConfig {
+
+    @Bean(destroyMethod = "stop")
+    public BrokerService brokerService(@Value("${eventinserter.broker.connector}") String connector) throws Exception {
+        BrokerService brokerService = new BrokerService();
+        brokerService.setBrokerName("localhost");
+        brokerService.setPersistent(false);
+        brokerService.setUseShutdownHook(false);
+        brokerService.setUseJmx(false);
+        brokerService.addConnector(connector);
+        brokerService.start();
+        return brokerService;
+    }
+
+    // The connection factories of the application are created once the
+    // broker is started, as if they were declared with @DependsOn
+    @Bean
+    public static BeanFactoryPostProcessor connectionFactoriesDependOnBroker() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanNamesForType(ConnectionFactory.class, true, false)) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                definition.setDependsOn(StringUtils.addStringToArray(definition.getDependsOn(), "brokerService"));
+            }
+        };
+    }
+}
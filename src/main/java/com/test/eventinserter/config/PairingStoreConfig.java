@@ -0,0 +1,112 @@
+package com.test.eventinserter.config;
+
+import com.test.eventinserter.bl.pairing.EhcachePairingStore;
+import com.test.eventinserter.bl.pairing.OffHeapPairingStore;
+import com.test.eventinserter.bl.pairing.PairingStore;
+import com.test.eventinserter.bl.pairing.ShardedPairingStore;
+import org.ehcache.CacheManager;
+import org.ehcache.PersistentCacheManager;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.CacheManagerBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.impl.internal.statistics.DefaultStatisticsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class PairingStoreConfig {
+
+    private static Logger logger = LoggerFactory.getLogger(PairingStoreConfig.class);
+
+    // offheap or ehcache
+    @Value("${eventinserter.pairing.store}")
+    private String store;
+
+    @Value("${eventinserter.pairing.shards}")
+    private int shards;
+
+    @Value("${eventinserter.pairing.offheap.initial-capacity}")
+    private int initialCapacity;
+
+    @Value("${eventinserter.pairing.offheap.max-key-length}")
+    private int maxKeyLength;
+
+    @Value("${eventinserter.pairing.ehcache.heap-mb}")
+    private long heapMb;
+
+    @Value("${eventinserter.pairing.ehcache.offheap-mb}")
+    private long offheapMb;
+
+    @Value("${eventinserter.pairing.ehcache.disk-mb}")
+    private long diskMb;
+
+    private CacheManager cacheManager;
+
+    // Provides the number of items in each tier for the metrics
+    private DefaultStatisticsService statisticsService;
+
+    @Bean(destroyMethod = "close")
+    public PairingStore pairingStore() {
+        List<PairingStore> stores = new ArrayList<>(shards);
+
+        if ("ehcache".equals(store)) {
+            buildCacheManager();
+            for (int i = 0; i < shards; i++) {
+                stores.add(new EhcachePairingStore(cacheManager.getCache(cacheAlias(i), String.class, Long.class),
+                        statisticsService.getCacheStatistics(cacheAlias(i))));
+            }
+        } else {
+            for (int i = 0; i < shards; i++) {
+                stores.add(new OffHeapPairingStore(Math.max(1, initialCapacity / shards), maxKeyLength));
+            }
+        }
+
+        logger.info("Using {} pairing store with {} shards.", store, shards);
+        return new ShardedPairingStore(stores);
+    }
+
+    @PreDestroy
+    public void closeCacheManager() {
+        if (cacheManager != null) {
+            cacheManager.close();
+        }
+    }
+
+    // Ehcache supports overflow. By using it, we prevent
+    // possibility of being out of memory when dealing with large files.
+    // The configured sizes are shared by the caches of all shards.
+    private void buildCacheManager() {
+        statisticsService = new DefaultStatisticsService();
+        CacheManagerBuilder<PersistentCacheManager> builder = CacheManagerBuilder.newCacheManagerBuilder()
+                .using(statisticsService)
+                .with(CacheManagerBuilder.persistence(new File("cache")));
+
+        for (int i = 0; i < shards; i++) {
+            builder = builder.withCache(cacheAlias(i),
+                    CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, Long.class,
+                            ResourcePoolsBuilder.newResourcePoolsBuilder()
+                                    .heap(heapMb * 1024 / shards, MemoryUnit.KB)
+                                    .offheap(offheapMb * 1024 / shards, MemoryUnit.KB)
+                                    .disk(diskMb * 1024 / shards, MemoryUnit.KB))
+                            .build());
+        }
+
+        cacheManager = builder.build();
+        cacheManager.init();
+
+        logger.debug("Cache built successfully.");
+    }
+
+    private static String cacheAlias(int shard) {
+        return "eventItems-" + shard;
+    }
+}
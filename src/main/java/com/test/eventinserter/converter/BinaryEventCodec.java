@@ -0,0 +1,221 @@
+package com.test.eventinserter.converter;
+
+import com.test.eventinserter.model.Event;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compact binary form of events. A message is a kind byte, the number of
+// events as a varint and the events. An event is a flag byte for alert and
+// the presence of duration, the id, the duration as a zigzag varint, and the
+// type and host. Type and host values repeat a lot, so every distinct value
+// is written once per message and referenced by its index afterwards.
+// Decoding a corrupt or truncated message throws IllegalArgumentException.
+public final class BinaryEventCodec {
+
+    public static final byte KIND_EVENT = 1;
+    public static final byte KIND_ENVELOPE = 2;
+
+    private static final int FLAG_ALERT = 1;
+    private static final int FLAG_DURATION = 2;
+
+    // String references: null, a new value following inline, or an index + 2
+    private static final int REF_NULL = 0;
+    private static final int REF_LITERAL = 1;
+
+    private BinaryEventCodec() {
+    }
+
+    public static byte[] encode(byte kind, List<Event> events) {
+        Writer writer = new Writer(16 + events.size() * 32);
+        Map<String, Integer> dictionary = new HashMap<>();
+
+        writer.writeByte(kind);
+        writer.writeVarLong(events.size());
+
+        for (Event event : events) {
+            int flags = 0;
+            if (Boolean.TRUE.equals(event.getAlert())) {
+                flags |= FLAG_ALERT;
+            }
+            if (event.getDuration() != null) {
+                flags |= FLAG_DURATION;
+            }
+            writer.writeByte(flags);
+            writer.writeString(event.getId());
+            if (event.getDuration() != null) {
+                long duration = event.getDuration();
+                writer.writeVarLong((duration << 1) ^ (duration >> 63));
+            }
+            writer.writeDictionaryString(event.getType(), dictionary);
+            writer.writeDictionaryString(event.getHost(), dictionary);
+        }
+
+        return writer.toByteArray();
+    }
+
+    public static byte kindOf(byte[] bytes) {
+        if (bytes.length == 0) {
+            throw new IllegalArgumentException("Binary event message is empty");
+        }
+        return bytes[0];
+    }
+
+    public static List<Event> decode(byte[] bytes) {
+        Reader reader = new Reader(bytes);
+        List<String> dictionary = new ArrayList<>();
+
+        reader.readByte();
+        // An event takes at least four bytes, a larger count cannot be right
+        long count = reader.readVarLong();
+        if (count < 0 || count > reader.remaining() / 4) {
+            throw new IllegalArgumentException("Binary event message is truncated, " + count + " events in "
+                    + reader.remaining() + " bytes");
+        }
+        List<Event> events = new ArrayList<>((int) count);
+
+        for (int i = 0; i < count; i++) {
+            Event event = new Event();
+            int flags = reader.readByte();
+            event.setAlert((flags & FLAG_ALERT) != 0);
+            event.setId(reader.readString());
+            if ((flags & FLAG_DURATION) != 0) {
+                long zigzag = reader.readVarLong();
+                event.setDuration((zigzag >>> 1) ^ -(zigzag & 1));
+            }
+            event.setType(reader.readDictionaryString(dictionary));
+            event.setHost(reader.readDictionaryString(dictionary));
+            events.add(event);
+        }
+
+        return events;
+    }
+
+    private static final class Writer {
+        private byte[] buffer;
+        private int position;
+
+        private Writer(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        private void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        // Length + 1 followed by the UTF-8 bytes, 0 for null
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void writeDictionaryString(String value, Map<String, Integer> dictionary) {
+            if (value == null) {
+                writeVarLong(REF_NULL);
+                return;
+            }
+            Integer index = dictionary.get(value);
+            if (index != null) {
+                writeVarLong(index + 2);
+                return;
+            }
+            dictionary.put(value, dictionary.size());
+            writeVarLong(REF_LITERAL);
+            writeString(value);
+        }
+
+        private void ensureCapacity(int length) {
+            if (position + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buffer;
+        private int position;
+
+        private Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        private int remaining() {
+            return buffer.length - position;
+        }
+
+        private int readByte() {
+            if (position >= buffer.length) {
+                throw new IllegalArgumentException("Binary event message is truncated at " + position);
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        // A long takes at most ten groups of seven bits
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Varint longer than 64 bits at " + position);
+        }
+
+        private String readString() {
+            long length = readVarLong() - 1;
+            if (length == -1) {
+                return null;
+            }
+            if (length < 0 || length > remaining()) {
+                throw new IllegalArgumentException("String of " + length + " bytes at " + position
+                        + " exceeds the message");
+            }
+            String value = new String(buffer, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            return value;
+        }
+
+        private String readDictionaryString(List<String> dictionary) {
+            long reference = readVarLong();
+            if (reference == REF_NULL) {
+                return null;
+            }
+            if (reference == REF_LITERAL) {
+                String value = readString();
+                dictionary.add(value);
+                return value;
+            }
+            if (reference < 0 || reference - 2 >= dictionary.size()) {
+                throw new IllegalArgumentException("Unknown string reference " + reference + " at " + position);
+            }
+            return dictionary.get((int) (reference - 2));
+        }
+    }
+}
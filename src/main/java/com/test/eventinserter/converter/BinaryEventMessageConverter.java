@@ -0,0 +1,74 @@
+package com.test.eventinserter.converter;
+
+import com.test.eventinserter.model.Event;
+import com.test.eventinserter.model.EventEnvelope;
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.jms.support.converter.MessageConverter;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+import java.util.Collections;
+import java.util.List;
+
+// Sends Event and EventEnvelope payloads as BytesMessages in the format
+// of BinaryEventCodec. Any other payload, and any received message which
+// is not a BytesMessage, goes through the fallback converter, so JSON
+// producers and consumers keep working against the same destinations.
+public class BinaryEventMessageConverter implements MessageConverter {
+
+    private final MessageConverter fallbackConverter;
+
+    public BinaryEventMessageConverter(MessageConverter fallbackConverter) {
+        this.fallbackConverter = fallbackConverter;
+    }
+
+    @Override
+    public Message toMessage(Object object, Session session) throws JMSException, MessageConversionException {
+        byte[] bytes;
+        if (object instanceof Event) {
+            bytes = BinaryEventCodec.encode(BinaryEventCodec.KIND_EVENT, Collections.singletonList((Event) object));
+        } else if (object instanceof EventEnvelope) {
+            bytes = BinaryEventCodec.encode(BinaryEventCodec.KIND_ENVELOPE, ((EventEnvelope) object).getEvents());
+        } else {
+            return fallbackConverter.toMessage(object, session);
+        }
+
+        BytesMessage message = session.createBytesMessage();
+        message.writeBytes(bytes);
+        return message;
+    }
+
+    @Override
+    public Object fromMessage(Message message) throws JMSException, MessageConversionException {
+        if (!(message instanceof BytesMessage)) {
+            return fallbackConverter.fromMessage(message);
+        }
+
+        BytesMessage bytesMessage = (BytesMessage) message;
+        byte[] bytes = new byte[(int) bytesMessage.getBodyLength()];
+        bytesMessage.readBytes(bytes);
+
+        List<Event> events;
+        byte kind;
+        try {
+            kind = BinaryEventCodec.kindOf(bytes);
+            events = BinaryEventCodec.decode(bytes);
+        } catch (IllegalArgumentException e) {
+            throw new MessageConversionException("Could not decode binary event message", e);
+        }
+
+        switch (kind) {
+            case BinaryEventCodec.KIND_EVENT:
+                if (events.size() != 1) {
+                    throw new MessageConversionException("Binary event message holds " + events.size() + " events");
+                }
+                return events.get(0);
+            case BinaryEventCodec.KIND_ENVELOPE:
+                return new EventEnvelope(events);
+            default:
+                throw new MessageConversionException("Unknown binary message kind " + kind);
+        }
+    }
+}
@@ -3,11 +3,18 @@ package com.test.eventinserter.model;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
 import java.io.Serializable;
 
+// Every index ends with the id, so keyset pages of a filter are read in index order
 @Entity
-@Table
+@Table(indexes = {
+        @Index(name = "idx_event_host", columnList = "host, id"),
+        @Index(name = "idx_event_type", columnList = "type, id"),
+        @Index(name = "idx_event_alert", columnList = "alert, id"),
+        @Index(name = "idx_event_duration", columnList = "duration, id")
+})
 public class Event implements Serializable {
 
     @Id
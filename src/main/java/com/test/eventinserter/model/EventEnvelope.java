@@ -0,0 +1,32 @@
+package com.test.eventinserter.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Carries several events in a single JMS message
+public class EventEnvelope {
+
+    private List<Event> events = new ArrayList<>();
+
+    public EventEnvelope() {
+    }
+
+    public EventEnvelope(List<Event> events) {
+        this.events = events;
+    }
+
+    public List<Event> getEvents() {
+        return events;
+    }
+
+    public void setEvents(List<Event> events) {
+        this.events = events;
+    }
+
+    @Override
+    public String toString() {
+        return "EventEnvelope{" +
+                "events=" + events.size() +
+                '}';
+    }
+}
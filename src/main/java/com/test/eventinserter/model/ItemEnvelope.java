@@ -0,0 +1,34 @@
+package com.test.eventinserter.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Carries event items from a reader node to the pairer node owning their
+// group in a single JMS message. An item without timestamp is a tombstone,
+// it cancels the item waiting with its id.
+public class ItemEnvelope {
+
+    private List<EventItem> items = new ArrayList<>();
+
+    public ItemEnvelope() {
+    }
+
+    public ItemEnvelope(List<EventItem> items) {
+        this.items = items;
+    }
+
+    public List<EventItem> getItems() {
+        return items;
+    }
+
+    public void setItems(List<EventItem> items) {
+        this.items = items;
+    }
+
+    @Override
+    public String toString() {
+        return "ItemEnvelope{" +
+                "items=" + items.size() +
+                '}';
+    }
+}
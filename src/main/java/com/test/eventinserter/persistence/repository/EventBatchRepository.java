@@ -0,0 +1,61 @@
+package com.test.eventinserter.persistence.repository;
+
+import com.test.eventinserter.model.Event;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+// Insert-only access to the event table. Event ids are assigned by the producer,
+// so going through JPA's save would merge (SELECT + INSERT) every single row.
+// Here rows are written as plain JDBC batch inserts instead.
+@Repository
+public class EventBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO event (id, duration, type, host, alert) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public EventBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // The whole batch is committed at once, a duplicate id rolls back the batch
+    @Transactional
+    public void insertAll(List<Event> events) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                bind(ps, events.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return events.size();
+            }
+        });
+    }
+
+    public void insert(Event event) {
+        jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, event));
+    }
+
+    private static void bind(PreparedStatement ps, Event event) throws SQLException {
+        ps.setString(1, event.getId());
+        if (event.getDuration() != null) {
+            ps.setLong(2, event.getDuration());
+        } else {
+            ps.setNull(2, Types.BIGINT);
+        }
+        ps.setString(3, event.getType());
+        ps.setString(4, event.getHost());
+        ps.setBoolean(5, Boolean.TRUE.equals(event.getAlert()));
+    }
+}
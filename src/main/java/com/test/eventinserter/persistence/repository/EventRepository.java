@@ -1,7 +1,61 @@
 package com.test.eventinserter.persistence.repository;
 
 import com.test.eventinserter.model.Event;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface EventRepository extends JpaRepository<Event, String> {
+
+    String FETCH_SIZE = "1000";
+
+    // Streams read the rows through a cursor. They must be consumed
+    // inside a transaction and closed.
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = FETCH_SIZE), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select e from Event e")
+    Stream<Event> streamAll();
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = FETCH_SIZE), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Event> streamByHost(String host);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = FETCH_SIZE), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Event> streamByType(String type);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = FETCH_SIZE), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Event> streamByAlert(Boolean alert);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = FETCH_SIZE), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Event> streamByDurationBetween(Long minDuration, Long maxDuration);
+
+    // Keyset pagination: a page starts after the last event of the previous
+    // page instead of at an offset, so every page is an index range scan.
+    // The page size is taken from the Pageable, its page number must be 0.
+
+    List<Event> findByIdGreaterThanOrderByIdAsc(String afterId, Pageable pageable);
+
+    List<Event> findByHostAndIdGreaterThanOrderByIdAsc(String host, String afterId, Pageable pageable);
+
+    List<Event> findByTypeAndIdGreaterThanOrderByIdAsc(String type, String afterId, Pageable pageable);
+
+    List<Event> findByAlertAndIdGreaterThanOrderByIdAsc(Boolean alert, String afterId, Pageable pageable);
+
+    // Ordered by duration to follow idx_event_duration
+    List<Event> findByDurationBetweenOrderByDurationAscIdAsc(Long minDuration, Long maxDuration, Pageable pageable);
+
+    @Query("select e from Event e where e.duration between :minDuration and :maxDuration "
+            + "and (e.duration > :afterDuration or (e.duration = :afterDuration and e.id > :afterId)) "
+            + "order by e.duration, e.id")
+    List<Event> findByDurationBetweenAfter(@Param("minDuration") Long minDuration, @Param("maxDuration") Long maxDuration,
+                                           @Param("afterDuration") Long afterDuration, @Param("afterId") String afterId,
+                                           Pageable pageable);
 }
@@ -0,0 +1,30 @@
+package com.test.eventinserter.persistence.repository;
+
+import com.test.eventinserter.model.Event;
+
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.util.ArrayList;
+import java.util.List;
+
+// DDL of the event table for the code which creates it without Hibernate,
+// such as the lean runner and the benchmarks. The table has the columns
+// Hibernate generates for the Event entity, EventSchemaTest compares the
+// two. The indexes are read from the @Table annotation of the entity.
+public final class EventSchema {
+
+    public static final String CREATE_TABLE_SQL = "CREATE TABLE event (id VARCHAR(255) NOT NULL, alert BOOLEAN, "
+            + "duration BIGINT, host VARCHAR(255), type VARCHAR(255), PRIMARY KEY (id))";
+
+    private EventSchema() {
+    }
+
+    // The indexes declared on the Event entity
+    public static List<String> createIndexSql() {
+        List<String> statements = new ArrayList<>();
+        for (Index index : Event.class.getAnnotation(Table.class).indexes()) {
+            statements.add("CREATE INDEX " + index.name() + " ON event (" + index.columnList() + ")");
+        }
+        return statements;
+    }
+}
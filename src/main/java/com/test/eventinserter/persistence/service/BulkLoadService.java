@@ -0,0 +1,94 @@
+package com.test.eventinserter.persistence.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Prepares HSQLDB for loading a large number of events into an empty table.
+// During the load the event table is a CACHED table, so rows are written to
+// the data file instead of being kept in memory, its non-unique indexes are
+// dropped, and the transaction log is off, so every row is written once.
+// At the end the indexes are built in one pass over the table and a
+// CHECKPOINT makes the data file consistent. A crash during the load leaves
+// the database without a usable log, the load must then be run again.
+@Service
+public class BulkLoadService {
+
+    private static Logger logger = LoggerFactory.getLogger(BulkLoadService.class);
+
+    private static final String TABLE = "EVENT";
+
+    // Indexes of the primary key and of constraints are kept,
+    // unique indexes as well as they reject rows during the load
+    private static final String INDEX_SQL = "SELECT INDEX_NAME, COLUMN_NAME FROM INFORMATION_SCHEMA.SYSTEM_INDEXINFO "
+            + "WHERE TABLE_SCHEM = 'PUBLIC' AND TABLE_NAME = ? AND NON_UNIQUE = TRUE AND INDEX_NAME NOT LIKE 'SYS_IDX_%' "
+            + "ORDER BY INDEX_NAME, ORDINAL_POSITION";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${eventinserter.persistence.bulk-load}")
+    private boolean enabled;
+
+    // Statements recreating the dropped indexes
+    private final List<String> indexDefinitions = new ArrayList<>();
+
+    @Autowired
+    public BulkLoadService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Returns true if the database has been prepared and finish must be called
+    public boolean begin() {
+        if (!enabled) {
+            return false;
+        }
+
+        Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + TABLE, Long.class);
+        if (rows != null && rows > 0) {
+            logger.warn("Event table has {} rows, bulk load is only used for an empty table.", rows);
+            return false;
+        }
+
+        jdbcTemplate.execute("SET TABLE " + TABLE + " TYPE CACHED");
+        dropIndexes();
+        jdbcTemplate.execute("SET FILES LOG FALSE");
+        logger.info("Bulk load started, dropped {} indexes", indexDefinitions.size());
+        return true;
+    }
+
+    public void finish() {
+        long startedAt = System.currentTimeMillis();
+
+        for (String definition : indexDefinitions) {
+            jdbcTemplate.execute(definition);
+        }
+        indexDefinitions.clear();
+
+        jdbcTemplate.execute("SET FILES LOG TRUE");
+        jdbcTemplate.execute("CHECKPOINT");
+        logger.info("Bulk load finished, indexes built and checkpoint written in {} ms",
+                System.currentTimeMillis() - startedAt);
+    }
+
+    private void dropIndexes() {
+        Map<String, List<String>> columns = new LinkedHashMap<>();
+        jdbcTemplate.query(INDEX_SQL, (RowCallbackHandler) rs -> columns
+                .computeIfAbsent(rs.getString("INDEX_NAME"), key -> new ArrayList<>())
+                .add(rs.getString("COLUMN_NAME")), TABLE);
+
+        for (Map.Entry<String, List<String>> index : columns.entrySet()) {
+            indexDefinitions.add("CREATE INDEX " + index.getKey() + " ON " + TABLE
+                    + " (" + String.join(", ", index.getValue()) + ")");
+            jdbcTemplate.execute("DROP INDEX " + index.getKey());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.test.eventinserter.persistence.service;
+
+import com.test.eventinserter.model.Event;
+import com.test.eventinserter.persistence.repository.EventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Read access to the persisted events in constant memory, as opposed to
+// EventService.findAll which loads the whole table.
+// The forEach methods stream the matching events, and every event is
+// detached once the action is done with it, so the persistence context
+// does not grow with the table.
+// The page methods return up to size events following the given one.
+// Pass null for the first page, then the last event of the previous page.
+@Service
+public class EventQueryService {
+
+    // Lower than every non-empty id, the first page starts after it
+    private static final String FIRST_ID = "";
+
+    private final EventRepository eventRepository;
+
+    private final EntityManager entityManager;
+
+    @Autowired
+    public EventQueryService(EventRepository eventRepository, EntityManager entityManager) {
+        this.eventRepository = eventRepository;
+        this.entityManager = entityManager;
+    }
+
+    @Transactional(readOnly = true)
+    public void forEachEvent(Consumer<Event> action) {
+        consume(eventRepository.streamAll(), action);
+    }
+
+    @Transactional(readOnly = true)
+    public void forEachEventOfHost(String host, Consumer<Event> action) {
+        consume(eventRepository.streamByHost(host), action);
+    }
+
+    @Transactional(readOnly = true)
+    public void forEachEventOfType(String type, Consumer<Event> action) {
+        consume(eventRepository.streamByType(type), action);
+    }
+
+    @Transactional(readOnly = true)
+    public void forEachEventWithAlert(boolean alert, Consumer<Event> action) {
+        consume(eventRepository.streamByAlert(alert), action);
+    }
+
+    // Both bounds are inclusive
+    @Transactional(readOnly = true)
+    public void forEachEventWithDuration(long minDuration, long maxDuration, Consumer<Event> action) {
+        consume(eventRepository.streamByDurationBetween(minDuration, maxDuration), action);
+    }
+
+    // Ordered by id
+    public List<Event> findPage(Event after, int size) {
+        return eventRepository.findByIdGreaterThanOrderByIdAsc(afterId(after), PageRequest.of(0, size));
+    }
+
+    public List<Event> findPageOfHost(String host, Event after, int size) {
+        return eventRepository.findByHostAndIdGreaterThanOrderByIdAsc(host, afterId(after), PageRequest.of(0, size));
+    }
+
+    public List<Event> findPageOfType(String type, Event after, int size) {
+        return eventRepository.findByTypeAndIdGreaterThanOrderByIdAsc(type, afterId(after), PageRequest.of(0, size));
+    }
+
+    public List<Event> findPageWithAlert(boolean alert, Event after, int size) {
+        return eventRepository.findByAlertAndIdGreaterThanOrderByIdAsc(alert, afterId(after), PageRequest.of(0, size));
+    }
+
+    // Ordered by duration, then id. Both bounds are inclusive.
+    // The event to follow must have a duration, as every event of the pages has.
+    public List<Event> findPageWithDuration(long minDuration, long maxDuration, Event after, int size) {
+        if (after == null) {
+            return eventRepository.findByDurationBetweenOrderByDurationAscIdAsc(minDuration, maxDuration,
+                    PageRequest.of(0, size));
+        }
+        if (after.getDuration() == null) {
+            throw new IllegalArgumentException("Event " + after.getId() + " has no duration to page after!");
+        }
+        return eventRepository.findByDurationBetweenAfter(minDuration, maxDuration, after.getDuration(), after.getId(),
+                PageRequest.of(0, size));
+    }
+
+    private void consume(Stream<Event> events, Consumer<Event> action) {
+        try (Stream<Event> stream = events) {
+            stream.forEach(event -> {
+                action.accept(event);
+                entityManager.detach(event);
+            });
+        }
+    }
+
+    private static String afterId(Event after) {
+        return after == null ? FIRST_ID : after.getId();
+    }
+}
@@ -1,24 +1,85 @@
 package com.test.eventinserter.persistence.service;
 
+import com.test.eventinserter.bl.metrics.PipelineMetrics;
 import com.test.eventinserter.model.Event;
+import com.test.eventinserter.persistence.repository.EventBatchRepository;
 import com.test.eventinserter.persistence.repository.EventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
 import java.util.List;
 
 @Service
 public class EventService {
 
+    private static Logger logger = LoggerFactory.getLogger(EventService.class);
+
     private final EventRepository eventRepository;
 
+    private final EventBatchRepository eventBatchRepository;
+
+    private final PipelineMetrics pipelineMetrics;
+
     @Autowired
-    public EventService(EventRepository eventRepository) {
+    public EventService(EventRepository eventRepository, EventBatchRepository eventBatchRepository,
+                        PipelineMetrics pipelineMetrics) {
         this.eventRepository = eventRepository;
+        this.eventBatchRepository = eventBatchRepository;
+        this.pipelineMetrics = pipelineMetrics;
     }
 
     public void saveEvent(Event event) {
-        this.eventRepository.save(event);
+        saveEvents(Collections.singletonList(event));
+    }
+
+    // Writes the events as a single JDBC batch. If the batch is rejected
+    // because of duplicate ids, the events are inserted one by one so that
+    // only the duplicates are skipped. Returns the number of inserted events.
+    // If the events can not be written they are counted as lost, which
+    // keeps a checkpoint from being written past them.
+    public int saveEvents(List<Event> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        long startedAt = System.nanoTime();
+        int saved;
+        try {
+            try {
+                eventBatchRepository.insertAll(events);
+                saved = events.size();
+            } catch (DataIntegrityViolationException e) {
+                logger.warn("Batch of {} events contains duplicate ids, inserting one by one.", events.size());
+                saved = saveEventsIndividually(events);
+            }
+        } catch (RuntimeException e) {
+            pipelineMetrics.eventsLost(events.size());
+            throw e;
+        }
+
+        pipelineMetrics.eventsPersisted(saved, System.nanoTime() - startedAt);
+        return saved;
+    }
+
+    private int saveEventsIndividually(List<Event> events) {
+        int saved = 0;
+        for (Event event : events) {
+            try {
+                eventBatchRepository.insert(event);
+                saved++;
+            } catch (DataIntegrityViolationException e) {
+                logger.warn("Event {} already exists in database, skipped.", event.getId());
+            }
+        }
+        return saved;
+    }
+
+    public long countEvents() {
+        return this.eventRepository.count();
     }
 
     public List<Event> findAll() {
@@ -3,14 +3,11 @@ package com.test.eventinserter;
 import com.test.eventinserter.bl.producer.EventProducer;
 import com.test.eventinserter.datageneration.DataGenerator;
 import com.test.eventinserter.model.Event;
-import com.test.eventinserter.model.EventItem;
 import com.test.eventinserter.persistence.service.EventService;
 import org.apache.commons.io.FileUtils;
-import org.ehcache.Cache;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.powermock.reflect.Whitebox;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -38,53 +35,6 @@ public class EventinserterApplicationTests {
         file.deleteOnExit();
     }
 
-    @Test
-    public void should_FileBeNull_IfInputIsEmpty() throws Exception {
-        String[] args = {};
-        File file = Whitebox.invokeMethod(eventProducer, "validateAndGetFile", (Object) args);
-        Assert.assertNull(file);
-    }
-
-    @Test
-    public void should_FileBeNull_IfInputDoesNotExist() throws Exception {
-        String[] args = {"no_such_file.txt"};
-        File file = Whitebox.invokeMethod(eventProducer, "validateAndGetFile", (Object) args);
-        Assert.assertNull(file);
-    }
-
-    @Test
-    public void should_FileBeNull_IfFileIsEmpty() throws Exception {
-        File tmpFile = File.createTempFile("data", "tmp");
-        tmpFile.deleteOnExit();
-        String[] args = {tmpFile.getAbsolutePath()};
-        File file = Whitebox.invokeMethod(eventProducer, "validateAndGetFile", (Object) args);
-        Assert.assertNull(file);
-    }
-
-    @Test
-    public void should_EventItemBeNull_IfInputDoesNotContainId() throws Exception {
-        String input = "{\"state\":\"STARTED\", \"type\":\"APPLICATION_LOG\",\"host\":\"12345\", \"timestamp\":1491377495212}";
-        EventItem eventItem = Whitebox.invokeMethod(eventProducer, "validateAndReadJSON", input);
-        Assert.assertNull(eventItem);
-    }
-
-    @Test
-    public void should_EventItemBeNull_IfInputIsInvalidJSON() throws Exception {
-        String input = ":\"STARTED\", \"type\":\"APPLICATION_LOG\",\"host\":\"12345\", \"timestamp\":1491377495212}";
-        EventItem eventItem = Whitebox.invokeMethod(eventProducer, "validateAndReadJSON", input);
-        Assert.assertNull(eventItem);
-    }
-
-    @Test
-    public void should_CacheBeEmpty_IfInputIsInvalidJSONWithId() throws Exception {
-        String input = "{\"id\":\"scsmbstgra\", \"state\":\"STARTED\", \"type\":\"APPLICATION_LOG\",\"host\":\"12345\", ";
-        Cache cache = eventProducer.getCache();
-        cache.put("scsmbstgra", 1L);
-        Whitebox.invokeMethod(eventProducer, "validateAndReadJSON", input);
-        Long eventItem = (Long) cache.get("scsmbstgra");
-        Assert.assertNull(eventItem);
-    }
-
 
     @Test
     public void should_ReturnAllEventsFromDatabase_ForValidInput() throws IOException {
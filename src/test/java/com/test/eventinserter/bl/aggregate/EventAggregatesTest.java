@@ -0,0 +1,47 @@
+package com.test.eventinserter.bl.aggregate;
+
+import com.test.eventinserter.model.Event;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class EventAggregatesTest {
+
+    @Test
+    public void should_CountEveryEventOnce_ForConcurrentUpdates() throws InterruptedException {
+        EventAggregates aggregates = new EventAggregates();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    aggregates.add(event("host-" + (i % 3), i % 2 == 0 ? "APPLICATION_LOG" : null, i % 10));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(40000, aggregates.getTotal().getEvents());
+        Assert.assertEquals(20000, aggregates.getTotal().getAlerts());
+        Assert.assertEquals(3, aggregates.getByHost().size());
+        Assert.assertEquals(20000, aggregates.getType(EventAggregates.UNKNOWN).getEvents());
+        Assert.assertEquals(20000, aggregates.getType("APPLICATION_LOG").getEvents());
+        Assert.assertEquals(9, aggregates.getTotal().getDurationPercentile(100));
+        Assert.assertEquals(4, aggregates.getTotal().getDurationPercentile(50));
+    }
+
+    private static Event event(String host, String type, long duration) {
+        Event event = new Event();
+        event.setId(host + duration);
+        event.setHost(host);
+        event.setType(type);
+        event.setDuration(duration);
+        event.setAlert(duration > 4);
+        return event;
+    }
+}
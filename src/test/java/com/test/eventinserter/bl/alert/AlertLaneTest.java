@@ -0,0 +1,74 @@
+package com.test.eventinserter.bl.alert;
+
+import com.test.eventinserter.bl.tracker.JobTracker;
+import com.test.eventinserter.model.Event;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class AlertLaneTest {
+
+    @Test
+    public void should_HandleAlertAtOnce_IfNoMoreAlertsArrive() throws InterruptedException {
+        CountDownLatch handled = new CountDownLatch(1);
+        List<List<Event>> batches = Collections.synchronizedList(new ArrayList<>());
+        AlertLane alertLane = new AlertLane("alert-test", 100, new JobTracker(0), alerts -> {
+            batches.add(alerts);
+            handled.countDown();
+        });
+
+        alertLane.add(alert("scsmbstgra"));
+
+        // The lane does not wait for the other 99 alerts of a batch
+        Assert.assertTrue(handled.await(5, TimeUnit.SECONDS));
+        alertLane.stop();
+        Assert.assertEquals(1, batches.size());
+        Assert.assertEquals("scsmbstgra", batches.get(0).get(0).getId());
+    }
+
+    @Test
+    public void should_HandleQueuedAlertsInFewBatches_BeforeStopping() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<List<Event>> batches = Collections.synchronizedList(new ArrayList<>());
+        AlertLane alertLane = new AlertLane("alert-test", 10, new JobTracker(0), alerts -> {
+            batches.add(alerts);
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        alertLane.add(alert("first"));
+        Assert.assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        // Queued while the handler is busy with the first alert
+        for (int i = 0; i < 25; i++) {
+            alertLane.add(alert("queued-" + i));
+        }
+        release.countDown();
+        alertLane.stop();
+
+        int alerts = 0;
+        for (List<Event> batch : batches) {
+            Assert.assertTrue(batch.size() <= 10);
+            alerts += batch.size();
+        }
+        Assert.assertEquals(26, alerts);
+        Assert.assertEquals(4, batches.size());
+    }
+
+    private static Event alert(String id) {
+        Event event = new Event();
+        event.setId(id);
+        event.setDuration(10L);
+        event.setAlert(true);
+        return event;
+    }
+}
@@ -0,0 +1,32 @@
+package com.test.eventinserter.bl.alert;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AlertRulesTest {
+
+    @Test
+    public void should_UseDefaultThreshold_IfNoOverrideMatches() {
+        AlertRules rules = new AlertRules(4, "", "");
+
+        Assert.assertFalse(rules.isAlert("APPLICATION_LOG", "12345", 4));
+        Assert.assertTrue(rules.isAlert("APPLICATION_LOG", "12345", 5));
+        Assert.assertTrue(rules.isAlert(null, null, 5));
+    }
+
+    @Test
+    public void should_PreferHostThreshold_OverTypeThreshold() {
+        AlertRules rules = new AlertRules(4, "APPLICATION_LOG:10, SYSTEM_LOG:1", "12345:100");
+
+        Assert.assertEquals(10, rules.getThreshold("APPLICATION_LOG", "other"));
+        Assert.assertEquals(1, rules.getThreshold("SYSTEM_LOG", null));
+        Assert.assertEquals(100, rules.getThreshold("SYSTEM_LOG", "12345"));
+        Assert.assertEquals(100, rules.getThreshold(null, "12345"));
+        Assert.assertFalse(rules.isAlert("SYSTEM_LOG", "12345", 50));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_Fail_IfThresholdIsInvalid() {
+        new AlertRules(4, "APPLICATION_LOG=10", "");
+    }
+}
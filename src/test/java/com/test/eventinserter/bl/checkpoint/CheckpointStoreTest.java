@@ -0,0 +1,72 @@
+package com.test.eventinserter.bl.checkpoint;
+
+import com.test.eventinserter.bl.pairing.OffHeapPairingStore;
+import com.test.eventinserter.bl.pairing.PairingStore;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.powermock.reflect.Whitebox;
+
+import java.io.File;
+import java.io.IOException;
+
+public class CheckpointStoreTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private CheckpointStore checkpointStore;
+    private File checkpointFile;
+
+    @Before
+    public void setUp() {
+        checkpointFile = new File(temporaryFolder.getRoot(), "checkpoint/test.checkpoint");
+        checkpointStore = new CheckpointStore();
+        Whitebox.setInternalState(checkpointStore, "path", checkpointFile.getPath());
+    }
+
+    @Test
+    public void should_ReturnNull_IfNoCheckpointSaved() throws IOException {
+        Assert.assertNull(checkpointStore.load());
+    }
+
+    @Test
+    public void should_RestoreUnmatchedItems_ForSavedCheckpoint() throws IOException {
+        // Numeric, plain, non ascii and overflowing ids take different paths in the store
+        PairingStore saved = new OffHeapPairingStore(16, 16);
+        saved.pairOrStore("12345", 1L);
+        saved.pairOrStore("scsmbstgra", 2L);
+        saved.pairOrStore("ğüşiöç", 3L);
+        saved.pairOrStore("an-id-longer-than-the-slot-key-area", 4L);
+
+        checkpointStore.save(new Checkpoint("/data/events.txt", 1024L, 77L), saved);
+
+        Checkpoint checkpoint = checkpointStore.load();
+        Assert.assertEquals("/data/events.txt", checkpoint.getInputPath());
+        Assert.assertEquals(1024L, checkpoint.getOffset());
+        Assert.assertEquals(77L, checkpoint.getPersistedEvents());
+
+        PairingStore restored = new OffHeapPairingStore(16, 16);
+        Assert.assertEquals(4, checkpointStore.restoreItems(restored));
+        Assert.assertEquals(1L, restored.pairOrStore("12345", 10L));
+        Assert.assertEquals(2L, restored.pairOrStore("scsmbstgra", 10L));
+        Assert.assertEquals(3L, restored.pairOrStore("ğüşiöç", 10L));
+        Assert.assertEquals(4L, restored.pairOrStore("an-id-longer-than-the-slot-key-area", 10L));
+        Assert.assertEquals(0, restored.size());
+    }
+
+    @Test
+    public void should_ReplacePreviousCheckpoint_IfSavedAgain() throws IOException {
+        PairingStore store = new OffHeapPairingStore(16, 16);
+        checkpointStore.save(new Checkpoint("/data/events.txt", 10L, 1L), store);
+        checkpointStore.save(new Checkpoint("/data/events.txt", 20L, 2L), store);
+
+        Assert.assertEquals(20L, checkpointStore.load().getOffset());
+        Assert.assertFalse(new File(checkpointFile.getPath() + ".tmp").exists());
+
+        checkpointStore.delete();
+        Assert.assertNull(checkpointStore.load());
+    }
+}
@@ -0,0 +1,50 @@
+package com.test.eventinserter.bl.consumer;
+
+import com.test.eventinserter.bl.tracker.JobTracker;
+import com.test.eventinserter.model.Event;
+import com.test.eventinserter.persistence.service.EventService;
+import org.junit.Assert;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class AlertWriterTest {
+
+    @Test
+    public void should_WriteAlert_WithoutWaitingForBatch() throws InterruptedException {
+        CountDownLatch saved = new CountDownLatch(1);
+        List<Event> savedEvents = Collections.synchronizedList(new ArrayList<>());
+        EventService eventService = new EventService(null, null, null) {
+            @Override
+            public int saveEvents(List<Event> events) {
+                savedEvents.addAll(events);
+                saved.countDown();
+                return events.size();
+            }
+        };
+        JobTracker jobTracker = new JobTracker(0);
+
+        AlertWriter alertWriter = new AlertWriter();
+        Whitebox.setInternalState(alertWriter, "eventService", eventService);
+        Whitebox.setInternalState(alertWriter, "jobTracker", jobTracker);
+        Whitebox.setInternalState(alertWriter, "batchSize", 1000);
+        alertWriter.start();
+
+        Event alert = new Event();
+        alert.setId("scsmbstgra");
+        alert.setDuration(10L);
+        alert.setAlert(true);
+        jobTracker.eventsSent(1);
+        alertWriter.add(alert);
+
+        Assert.assertTrue(saved.await(5, TimeUnit.SECONDS));
+        alertWriter.stop();
+        Assert.assertEquals(Collections.singletonList(alert), savedEvents);
+        Assert.assertEquals(1, jobTracker.getProcessedEvents());
+    }
+}
@@ -0,0 +1,132 @@
+package com.test.eventinserter.bl.consumer;
+
+import com.test.eventinserter.bl.metrics.PipelineMetrics;
+import com.test.eventinserter.bl.tracker.JobTracker;
+import com.test.eventinserter.bl.transport.JmsEventTransport;
+import com.test.eventinserter.converter.BinaryEventMessageConverter;
+import com.test.eventinserter.model.Event;
+import com.test.eventinserter.model.EventEnvelope;
+import com.test.eventinserter.persistence.service.EventService;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+import org.springframework.jms.support.converter.MessageConverter;
+import org.springframework.jms.support.converter.SimpleMessageConverter;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class TransactedBatchConsumerTest {
+
+    private final ActiveMQConnectionFactory connectionFactory =
+            new ActiveMQConnectionFactory("vm://transacted-batch?broker.persistent=false&broker.useJmx=false");
+
+    private final Set<String> savedIds = ConcurrentHashMap.newKeySet();
+
+    private final JobTracker jobTracker = new JobTracker(0);
+
+    private TransactedBatchConsumer consumer;
+
+    @Before
+    public void setUp() {
+        // A body marked as malformed fails in the converter the way a truncated one
+        // would fail in a decoder, with an exception which is not a MessageConversionException
+        BinaryEventMessageConverter binaryConverter = new BinaryEventMessageConverter(new SimpleMessageConverter());
+        MessageConverter converter = new MessageConverter() {
+            @Override
+            public Message toMessage(Object object, Session session) throws JMSException {
+                return binaryConverter.toMessage(object, session);
+            }
+
+            @Override
+            public Object fromMessage(Message message) throws JMSException {
+                if (message.propertyExists("malformed")) {
+                    throw new IndexOutOfBoundsException("Truncated body");
+                }
+                return binaryConverter.fromMessage(message);
+            }
+        };
+
+        EventService eventService = new EventService(null, null, null) {
+            @Override
+            public int saveEvents(List<Event> events) {
+                events.forEach(event -> savedIds.add(event.getId()));
+                return events.size();
+            }
+        };
+
+        consumer = new TransactedBatchConsumer();
+        Whitebox.setInternalState(consumer, "connectionFactory", connectionFactory);
+        Whitebox.setInternalState(consumer, "jmsMessageConverter", converter);
+        Whitebox.setInternalState(consumer, "eventService", eventService);
+        Whitebox.setInternalState(consumer, "jobTracker", jobTracker);
+        Whitebox.setInternalState(consumer, "pipelineMetrics", new PipelineMetrics());
+        Whitebox.setInternalState(consumer, "consumerConcurrency", "2");
+        Whitebox.setInternalState(consumer, "batchSize", 100);
+        Whitebox.setInternalState(consumer, "batchMaxAgeMs", 200L);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        consumer.stop();
+    }
+
+    @Test
+    public void should_CompleteJob_IfMalformedMessageIsReceived() throws Exception {
+        consumer.start();
+
+        Connection connection = connectionFactory.createConnection();
+        try {
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            MessageProducer producer = session.createProducer(session.createQueue(JmsEventTransport.ENVELOPE_DESTINATION));
+            producer.send(message(session, envelope("a", "b"), true));
+            Message malformed = message(session, envelope("lost"), true);
+            malformed.setBooleanProperty("malformed", true);
+            producer.send(malformed);
+            producer.send(message(session, envelope("c"), false));
+            jobTracker.eventsSent(4);
+        } finally {
+            connection.close();
+        }
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (jobTracker.getProcessedEvents() < 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        Assert.assertEquals(4, jobTracker.getProcessedEvents());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), savedIds);
+    }
+
+    // Marked the way JmsEventTransport marks the messages it sends
+    private Message message(Session session, EventEnvelope envelope, boolean hasMoreItems) throws JMSException {
+        MessageConverter converter = Whitebox.getInternalState(consumer, "jmsMessageConverter");
+        Message message = converter.toMessage(envelope, session);
+        message.setBooleanProperty("hasMoreItems", hasMoreItems);
+        message.setIntProperty(JmsEventTransport.EVENT_COUNT_PROPERTY, envelope.getEvents().size());
+        return message;
+    }
+
+    private static EventEnvelope envelope(String... ids) {
+        List<Event> events = new ArrayList<>();
+        for (String id : ids) {
+            Event event = new Event();
+            event.setId(id);
+            event.setDuration(1L);
+            events.add(event);
+        }
+        return new EventEnvelope(events);
+    }
+}
@@ -0,0 +1,221 @@
+package com.test.eventinserter.bl.distributed;
+
+import com.test.eventinserter.bl.aggregate.EventAggregates;
+import com.test.eventinserter.bl.alert.AlertRules;
+import com.test.eventinserter.bl.metrics.PipelineMetrics;
+import com.test.eventinserter.bl.pairing.EventPairer;
+import com.test.eventinserter.bl.pairing.OffHeapPairingStore;
+import com.test.eventinserter.bl.pairing.PairingExpiry;
+import com.test.eventinserter.bl.pairing.PairingStore;
+import com.test.eventinserter.bl.parser.EventLineParser;
+import com.test.eventinserter.bl.producer.EventProducer;
+import com.test.eventinserter.bl.tracker.JobTracker;
+import com.test.eventinserter.bl.transport.EventTransport;
+import com.test.eventinserter.model.Event;
+import com.test.eventinserter.model.EventItem;
+import com.test.eventinserter.model.ItemEnvelope;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import org.apache.activemq.broker.TransportConnector;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+import org.springframework.jms.connection.SingleConnectionFactory;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.converter.MappingJackson2MessageConverter;
+import org.springframework.jms.support.converter.MessageType;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Two reader nodes publish the items over an embedded TCP broker to two
+// pairer nodes, the way nodes of the reader and pairer profiles do
+public class DistributedPairingTest {
+
+    private static final int PAIRS = 300;
+    private static final int CANCELLED = 20;
+
+    private final MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+
+    private BrokerService broker;
+    private SingleConnectionFactory publisherConnectionFactory;
+    private final List<Connection> pairerConnections = new ArrayList<>();
+
+    // Ids received by each pairer node
+    private final List<Set<String>> receivedIds = new ArrayList<>();
+    private final List<PairingStore> pairingStores = new ArrayList<>();
+    private final List<Event> events = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger itemsReceived = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        converter.setTargetType(MessageType.TEXT);
+        converter.setTypeIdPropertyName("_type");
+
+        broker = new BrokerService();
+        broker.setBrokerName("distributed-test");
+        broker.setPersistent(false);
+        broker.setUseJmx(false);
+        broker.setUseShutdownHook(false);
+        TransportConnector connector = broker.addConnector("tcp://localhost:0");
+        broker.start();
+        String url = connector.getPublishableConnectString();
+
+        for (int i = 0; i < 2; i++) {
+            startPairer(url);
+        }
+        publisherConnectionFactory = new SingleConnectionFactory(new ActiveMQConnectionFactory(url));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (Connection connection : pairerConnections) {
+            connection.close();
+        }
+        if (publisherConnectionFactory != null) {
+            publisherConnectionFactory.destroy();
+        }
+        broker.stop();
+    }
+
+    @Test
+    public void should_PairEveryIdOnOneNode_IfItemsArePublishedByDifferentReaders() throws Exception {
+        ItemPublisher firstReader = startReader();
+        ItemPublisher secondReader = startReader();
+        EventLineParser parser = new EventLineParser();
+
+        for (int i = 0; i < PAIRS; i++) {
+            publish(firstReader, parser, "{\"id\":\"id-" + i + "\",\"state\":\"STARTED\",\"timestamp\":" + (1000 + i) + "}");
+            publish(secondReader, parser, "{\"id\":\"id-" + i + "\",\"state\":\"FINISHED\",\"timestamp\":" + (1003 + i)
+                    + ",\"type\":\"APPLICATION_LOG\",\"host\":\"12345\"}");
+        }
+        // A line which can not be parsed cancels the item read before it
+        for (int i = 0; i < CANCELLED; i++) {
+            publish(firstReader, parser, "{\"id\":\"cancelled-" + i + "\",\"state\":\"STARTED\",\"timestamp\":1000}");
+            byte[] broken = ("{\"id\":\"cancelled-" + i + "\",\"state\":").getBytes(StandardCharsets.UTF_8);
+            Assert.assertFalse(parser.parse(broken, 0, broken.length));
+            Assert.assertTrue(parser.findId(broken, 0, broken.length));
+            firstReader.publishTombstone(parser);
+        }
+        firstReader.flush();
+        secondReader.flush();
+        firstReader.stop();
+        secondReader.stop();
+
+        long deadline = System.currentTimeMillis() + 20000;
+        while (itemsReceived.get() < 2 * (PAIRS + CANCELLED) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        Assert.assertEquals(2 * (PAIRS + CANCELLED), itemsReceived.get());
+
+        // The broker hands a group, and so every item of an id, to a single node
+        Set<String> onBothNodes = new HashSet<>(receivedIds.get(0));
+        onBothNodes.retainAll(receivedIds.get(1));
+        Assert.assertTrue("Ids received by both nodes: " + onBothNodes, onBothNodes.isEmpty());
+        Assert.assertFalse(receivedIds.get(0).isEmpty());
+        Assert.assertFalse(receivedIds.get(1).isEmpty());
+        Set<Integer> groupsOnBothNodes = groupsOf(receivedIds.get(0));
+        groupsOnBothNodes.retainAll(groupsOf(receivedIds.get(1)));
+        Assert.assertTrue(groupsOnBothNodes.isEmpty());
+
+        Set<String> pairedIds = new HashSet<>();
+        for (Event event : events) {
+            Assert.assertTrue("Paired twice " + event.getId(), pairedIds.add(event.getId()));
+            Assert.assertEquals(Long.valueOf(3), event.getDuration());
+            Assert.assertEquals("APPLICATION_LOG", event.getType());
+        }
+        Assert.assertEquals(PAIRS, pairedIds.size());
+        for (PairingStore pairingStore : pairingStores) {
+            Assert.assertEquals(0, pairingStore.size());
+        }
+    }
+
+    private void startPairer(String url) throws JMSException {
+        PairingStore pairingStore = new OffHeapPairingStore(16, 24);
+        EventTransport eventTransport = new EventTransport() {
+            @Override
+            public void send(Event event) {
+                events.add(event);
+            }
+
+            @Override
+            public boolean finish() {
+                return true;
+            }
+        };
+
+        PipelineMetrics pipelineMetrics = new PipelineMetrics();
+        EventPairer eventPairer = new EventPairer(pairingStore, new AlertRules(4, "", ""), pipelineMetrics,
+                new PairingExpiry(), new EventAggregates());
+
+        EventProducer eventProducer = new EventProducer();
+        Whitebox.setInternalState(eventProducer, "pairingStore", pairingStore);
+        Whitebox.setInternalState(eventProducer, "eventPairer", eventPairer);
+        Whitebox.setInternalState(eventProducer, "eventTransport", eventTransport);
+        Whitebox.setInternalState(eventProducer, "jobTracker", new JobTracker(0));
+        Whitebox.setInternalState(eventProducer, "pipelineMetrics", pipelineMetrics);
+        ItemPairer itemPairer = new ItemPairer();
+        Whitebox.setInternalState(itemPairer, "eventProducer", eventProducer);
+
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        Connection connection = new ActiveMQConnectionFactory(url).createConnection();
+        Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        MessageConsumer consumer = session.createConsumer(session.createQueue(ItemPublisher.ITEM_DESTINATION));
+        consumer.setMessageListener(message -> {
+            try {
+                ItemEnvelope envelope = (ItemEnvelope) converter.fromMessage(message);
+                for (EventItem item : envelope.getItems()) {
+                    ids.add(item.getId());
+                }
+                itemPairer.receiveItems(envelope);
+                itemsReceived.addAndGet(envelope.getItems().size());
+            } catch (JMSException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        connection.start();
+
+        pairerConnections.add(connection);
+        receivedIds.add(ids);
+        pairingStores.add(pairingStore);
+    }
+
+    private ItemPublisher startReader() {
+        JmsTemplate jmsTemplate = new JmsTemplate(publisherConnectionFactory);
+        jmsTemplate.setMessageConverter(converter);
+
+        ItemPublisher itemPublisher = new ItemPublisher();
+        Whitebox.setInternalState(itemPublisher, "jmsTemplate", jmsTemplate);
+        Whitebox.setInternalState(itemPublisher, "groupCount", 16);
+        Whitebox.setInternalState(itemPublisher, "envelopeSize", 10);
+        Whitebox.setInternalState(itemPublisher, "envelopeMaxAgeMs", 100L);
+        itemPublisher.start();
+        return itemPublisher;
+    }
+
+    private static Set<Integer> groupsOf(Set<String> ids) {
+        Set<Integer> groups = new HashSet<>();
+        for (String id : ids) {
+            groups.add(ItemPublisher.groupOf(id, 16));
+        }
+        return groups;
+    }
+
+    private static void publish(ItemPublisher itemPublisher, EventLineParser parser, String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        Assert.assertTrue(parser.parse(bytes, 0, bytes.length));
+        itemPublisher.publish(parser);
+    }
+}
@@ -0,0 +1,59 @@
+package com.test.eventinserter.bl.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void should_ReturnZero_IfNothingRecorded() {
+        Assert.assertEquals(0, new LatencyHistogram().percentile(99));
+    }
+
+    @Test
+    public void should_PlaceEveryValueInBucketCoveringIt() {
+        long[] values = {0, 1, 7, 8, 15, 16, 17, 100, 1000, 123456789L, Long.MAX_VALUE};
+        for (long value : values) {
+            int index = LatencyHistogram.indexOf(value);
+            Assert.assertTrue(value + " above its bucket", value <= LatencyHistogram.highestValueAt(index));
+            if (index > 0) {
+                Assert.assertTrue(value + " below its bucket", value > LatencyHistogram.highestValueAt(index - 1));
+            }
+        }
+    }
+
+    @Test
+    public void should_ReportPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+
+        Assert.assertEquals(1000, histogram.count());
+        assertWithinPrecision(500, histogram.percentile(50));
+        assertWithinPrecision(990, histogram.percentile(99));
+        assertWithinPrecision(1000, histogram.percentile(100));
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        Assert.assertTrue(actual + " is below " + expected, actual >= expected);
+        Assert.assertTrue(actual + " is too far above " + expected, actual <= expected * 1.125);
+    }
+
+    @Test
+    public void should_EqualSingleHistogram_IfHistogramsAreMerged() {
+        LatencyHistogram single = new LatencyHistogram();
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        for (long value = 0; value < 10000; value++) {
+            single.record(value);
+            (value % 3 == 0 ? first : second).record(value);
+        }
+
+        first.merge(second);
+        Assert.assertEquals(single.count(), first.count());
+        for (double percentile : new double[]{1, 50, 95, 99, 100}) {
+            Assert.assertEquals(single.percentile(percentile), first.percentile(percentile));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.test.eventinserter.bl.metrics;
+
+import com.test.eventinserter.bl.aggregate.EventAggregates;
+import com.test.eventinserter.model.Event;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+import org.springframework.jmx.export.annotation.AnnotationMBeanExporter;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+public class MetricsReporterTest {
+
+    private EventAggregates eventAggregates;
+    private MBeanServer server;
+    private ObjectName name;
+
+    @Before
+    public void setUp() throws Exception {
+        eventAggregates = new EventAggregates();
+        MetricsReporter metricsReporter = new MetricsReporter();
+        Whitebox.setInternalState(metricsReporter, "eventAggregates", eventAggregates);
+
+        // Exported the way the application context does, to a server of its own
+        server = MBeanServerFactory.newMBeanServer();
+        AnnotationMBeanExporter exporter = new AnnotationMBeanExporter();
+        exporter.setServer(server);
+        exporter.registerManagedResource(metricsReporter);
+        name = new ObjectName("eventinserter:type=PipelineMetrics");
+    }
+
+    @After
+    public void tearDown() {
+        MBeanServerFactory.releaseMBeanServer(server);
+    }
+
+    @Test
+    public void should_ExposeAggregatesOverJmx_WhileEventsAreAdded() throws Exception {
+        Assert.assertEquals(0L, server.getAttribute(name, "EventsCalculated"));
+
+        eventAggregates.add(event("host-1", "APPLICATION_LOG", 3, false));
+        eventAggregates.add(event("host-1", "APPLICATION_LOG", 7, true));
+        eventAggregates.add(event("host-2", "SYSTEM_LOG", 100, true));
+
+        Assert.assertEquals(3L, server.getAttribute(name, "EventsCalculated"));
+        Assert.assertEquals(2L, server.getAttribute(name, "AlertsRaised"));
+        Assert.assertEquals(2L, invoke("countEventsOfHost", "host-1"));
+        Assert.assertEquals(1L, invoke("countAlertsOfHost", "host-1"));
+        Assert.assertEquals(0L, invoke("countEventsOfHost", "host-3"));
+        Assert.assertEquals(1L, invoke("countAlertsOfType", "SYSTEM_LOG"));
+        Assert.assertEquals(2L, invoke("countEventsOfType", "APPLICATION_LOG"));
+
+        long p99 = (Long) server.invoke(name, "durationPercentileOfType", new Object[]{"SYSTEM_LOG", 99.0},
+                new String[]{String.class.getName(), double.class.getName()});
+        Assert.assertTrue(p99 >= 100 && p99 <= 113);
+        Assert.assertEquals(-1L, server.invoke(name, "durationPercentileOfHost", new Object[]{"host-3", 50.0},
+                new String[]{String.class.getName(), double.class.getName()}));
+        Assert.assertTrue(((String) server.getAttribute(name, "EventsByHost")).contains("host-2"));
+    }
+
+    private Object invoke(String operation, String key) throws Exception {
+        return server.invoke(name, operation, new Object[]{key}, new String[]{String.class.getName()});
+    }
+
+    private static Event event(String host, String type, long duration, boolean alert) {
+        Event event = new Event();
+        event.setId(host + duration);
+        event.setHost(host);
+        event.setType(type);
+        event.setDuration(duration);
+        event.setAlert(alert);
+        return event;
+    }
+}
@@ -0,0 +1,87 @@
+package com.test.eventinserter.bl.pairing;
+
+import org.ehcache.CacheManager;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.CacheManagerBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.impl.internal.statistics.DefaultStatisticsService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+public class EhcachePairingStoreTest {
+
+    private CacheManager cacheManager;
+
+    private EhcachePairingStore store;
+
+    @Before
+    public void setUp() {
+        DefaultStatisticsService statisticsService = new DefaultStatisticsService();
+        cacheManager = CacheManagerBuilder.newCacheManagerBuilder()
+                .using(statisticsService)
+                .withCache("eventItems", CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, Long.class,
+                        ResourcePoolsBuilder.heap(10)).build())
+                .build(true);
+        store = new EhcachePairingStore(cacheManager.getCache("eventItems", String.class, Long.class),
+                statisticsService.getCacheStatistics("eventItems"));
+    }
+
+    @After
+    public void tearDown() {
+        store.close();
+        cacheManager.close();
+    }
+
+    @Test
+    public void should_ReturnPreviousTimestamp_IfPairIsComplete() {
+        Assert.assertEquals(PairingStore.NO_TIMESTAMP, store.pairOrStore("scsmbstgra", 1491377495212L));
+        Assert.assertEquals(1, store.size());
+        Assert.assertEquals(1491377495212L, store.pairOrStore("scsmbstgra", 1491377495217L));
+        Assert.assertEquals(0, store.size());
+    }
+
+    @Test
+    public void should_NotCountEvictedItems_IfCacheIsFull() {
+        for (int i = 0; i < 100; i++) {
+            store.pairOrStore("id" + i, i);
+        }
+
+        long[] entries = new long[1];
+        store.forEach((id, timestamp) -> entries[0]++);
+        Assert.assertTrue(store.size() <= 10);
+        Assert.assertEquals(entries[0], store.size());
+    }
+
+    @Test
+    public void should_NotEvictItemAgain_IfPassFailsPartway() {
+        store.pairOrStore("a", 1L);
+        store.pairOrStore("b", 2L);
+        store.pairOrStore("c", 10L);
+
+        Set<String> evicted = new HashSet<>();
+        try {
+            store.evictOlderThan(5L, (id, timestamp) -> {
+                if (!evicted.isEmpty()) {
+                    throw new UncheckedIOException(new IOException("Disk is full"));
+                }
+                evicted.add(id);
+            });
+            Assert.fail("Failure of the action is not thrown");
+        } catch (UncheckedIOException e) {
+            Assert.assertEquals(2, store.size());
+        }
+
+        Set<String> evictedAgain = new HashSet<>();
+        Assert.assertEquals(1, store.evictOlderThan(5L, (id, timestamp) -> evictedAgain.add(id)));
+        Assert.assertTrue(Collections.disjoint(evicted, evictedAgain));
+        Assert.assertEquals(1, store.size());
+    }
+}
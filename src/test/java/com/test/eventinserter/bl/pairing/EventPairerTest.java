@@ -0,0 +1,100 @@
+package com.test.eventinserter.bl.pairing;
+
+import com.test.eventinserter.bl.aggregate.EventAggregates;
+import com.test.eventinserter.bl.alert.AlertRules;
+import com.test.eventinserter.bl.metrics.PipelineMetrics;
+import com.test.eventinserter.bl.parser.EventLineParser;
+import com.test.eventinserter.model.Event;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class EventPairerTest {
+
+    private OffHeapPairingStore pairingStore;
+    private PipelineMetrics pipelineMetrics;
+    private EventAggregates eventAggregates;
+    private EventPairer eventPairer;
+    private EventLineParser parser;
+
+    @Before
+    public void setUp() {
+        pairingStore = new OffHeapPairingStore(16, 16);
+        pipelineMetrics = new PipelineMetrics();
+        eventAggregates = new EventAggregates();
+        eventPairer = new EventPairer(pairingStore, new AlertRules(4, "", ""), pipelineMetrics,
+                new PairingExpiry(), eventAggregates);
+        parser = new EventLineParser();
+    }
+
+    @After
+    public void tearDown() {
+        pairingStore.close();
+    }
+
+    @Test
+    public void should_CalculateEvent_IfPairIsRead() {
+        Assert.assertNull(pair("{\"id\":\"scsmbstgra\", \"state\":\"STARTED\", \"type\":\"APPLICATION_LOG\", \"host\":\"12345\", \"timestamp\":1491377495212}"));
+        Event event = pair("{\"id\":\"scsmbstgra\", \"state\":\"FINISHED\", \"type\":\"APPLICATION_LOG\", \"host\":\"12345\", \"timestamp\":1491377495217}");
+
+        Assert.assertEquals("scsmbstgra", event.getId());
+        Assert.assertEquals("APPLICATION_LOG", event.getType());
+        Assert.assertEquals("12345", event.getHost());
+        Assert.assertEquals(Long.valueOf(5), event.getDuration());
+        Assert.assertEquals(Boolean.TRUE, event.getAlert());
+        Assert.assertEquals(0, pairingStore.size());
+        Assert.assertEquals(1, eventAggregates.getTotal().getEvents());
+        Assert.assertEquals(1, eventAggregates.getTotal().getAlerts());
+    }
+
+    @Test
+    public void should_CancelWaitingItem_IfPairCannotBeParsed() {
+        Assert.assertNull(pair("{\"id\":\"scsmbstgra\", \"state\":\"STARTED\", \"timestamp\":1491377495212}"));
+
+        Assert.assertFalse(parse("{\"id\":\"scsmbstgra\", \"state\":\"FINISHED\", \"timestamp\":14913x}"));
+        Assert.assertEquals(0, pairingStore.size());
+        Assert.assertEquals(1, pipelineMetrics.getParseFailures());
+    }
+
+    @Test
+    public void should_CancelWaitingItem_IfPairIsTruncated() {
+        Assert.assertNull(pair("{\"id\":\"scsmbstgra\", \"state\":\"STARTED\", \"timestamp\":1491377495212}"));
+
+        Assert.assertFalse(parse("{\"id\":\"scsmbstgra\", \"state\":\"STARTED\", \"type\":\"APPLICATION_LOG\",\"host\":\"12345\", "));
+        Assert.assertEquals(0, pairingStore.size());
+    }
+
+    @Test
+    public void should_RejectLine_IfInputIsInvalidJSON() {
+        Assert.assertFalse(parse(":\"STARTED\", \"type\":\"APPLICATION_LOG\",\"host\":\"12345\", \"timestamp\":1491377495212}"));
+        Assert.assertEquals(1, pipelineMetrics.getParseFailures());
+        Assert.assertEquals(0, pairingStore.size());
+    }
+
+    @Test
+    public void should_RejectLine_IfIdIsMissing() {
+        Assert.assertFalse(parse("{\"state\":\"STARTED\", \"type\":\"APPLICATION_LOG\",\"host\":\"12345\", \"timestamp\":1491377495212}"));
+        Assert.assertEquals(1, pipelineMetrics.getParseFailures());
+        Assert.assertEquals(0, pairingStore.size());
+    }
+
+    @Test
+    public void should_RejectLine_IfTimestampIsMissing() {
+        Assert.assertFalse(parse("{\"id\":\"scsmbstgra\", \"state\":\"STARTED\"}"));
+        Assert.assertEquals(1, pipelineMetrics.getParseFailures());
+        Assert.assertEquals(0, pairingStore.size());
+    }
+
+    private boolean parse(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return eventPairer.parse(parser, bytes, 0, bytes.length, eventPairer::cancel);
+    }
+
+    private Event pair(String line) {
+        Assert.assertTrue(parse(line));
+        return eventPairer.pair(parser);
+    }
+}
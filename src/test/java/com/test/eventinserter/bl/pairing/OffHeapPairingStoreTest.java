@@ -0,0 +1,103 @@
+package com.test.eventinserter.bl.pairing;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class OffHeapPairingStoreTest {
+
+    private OffHeapPairingStore store;
+
+    @Before
+    public void setUp() {
+        store = new OffHeapPairingStore(16, 16);
+    }
+
+    @After
+    public void tearDown() {
+        store.close();
+    }
+
+    @Test
+    public void should_ReturnPreviousTimestamp_IfPairIsComplete() {
+        Assert.assertEquals(PairingStore.NO_TIMESTAMP, store.pairOrStore("scsmbstgra", 1491377495212L));
+        Assert.assertEquals(1, store.size());
+        Assert.assertEquals(1491377495212L, store.pairOrStore("scsmbstgra", 1491377495217L));
+        Assert.assertEquals(0, store.size());
+    }
+
+    @Test
+    public void should_KeepNumericAndTextIdsApart_IfTheyLookAlike() {
+        store.pairOrStore("42", 1L);
+        store.pairOrStore("042", 2L);
+        Assert.assertEquals(2, store.size());
+        Assert.assertEquals(1L, store.pairOrStore("42", 3L));
+        Assert.assertEquals(2L, store.pairOrStore("042", 4L));
+    }
+
+    @Test
+    public void should_StoreIdsLongerThanSlot_IfKeyDoesNotFit() {
+        String longId = "an-id-which-is-longer-than-the-slot-key-area";
+        store.pairOrStore(longId, 5L);
+        store.pairOrStore("çalışma", 6L);
+        Assert.assertEquals(2, store.size());
+        Assert.assertEquals(5L, store.pairOrStore(longId, 7L));
+        Assert.assertEquals(6L, store.pairOrStore("çalışma", 8L));
+    }
+
+    @Test
+    public void should_BehaveLikeHashMap_ForRandomOperations() {
+        Map<String, Long> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 200000; i++) {
+            int key = random.nextInt(5000);
+            String id = random.nextBoolean() ? Integer.toString(key) : "id" + key;
+            long timestamp = random.nextLong() & Long.MAX_VALUE;
+
+            if (random.nextInt(10) == 0) {
+                expected.remove(id);
+                store.remove(id);
+            } else {
+                Long previous = expected.remove(id);
+                if (previous == null) {
+                    expected.put(id, timestamp);
+                }
+                long actual = store.pairOrStore(id, timestamp);
+                Assert.assertEquals(previous == null ? PairingStore.NO_TIMESTAMP : previous, actual);
+            }
+            Assert.assertEquals(expected.size(), store.size());
+        }
+    }
+
+    @Test
+    public void should_EvictOnlyOlderItems_IfItemsAreShiftedDuringEviction() {
+        Map<String, Long> expected = new HashMap<>();
+        Random random = new Random(11);
+
+        for (int i = 0; i < 20000; i++) {
+            String id = random.nextInt(3) == 0 ? "an-id-which-does-not-fit-the-slot-" + i : Integer.toString(i);
+            long timestamp = random.nextInt(1000);
+            expected.put(id, timestamp);
+            store.pairOrStore(id, timestamp);
+        }
+
+        Map<String, Long> evicted = new HashMap<>();
+        long count = store.evictOlderThan(500, (id, timestamp) ->
+                Assert.assertNull("Evicted twice " + id, evicted.put(id, timestamp)));
+
+        Assert.assertEquals(evicted.size(), count);
+        Assert.assertEquals(expected.size() - evicted.size(), store.size());
+        for (Map.Entry<String, Long> entry : expected.entrySet()) {
+            boolean old = entry.getValue() < 500;
+            Assert.assertEquals(entry.getKey(), old, evicted.containsKey(entry.getKey()));
+            long previous = store.pairOrStore(entry.getKey(), 0L);
+            Assert.assertEquals(old ? PairingStore.NO_TIMESTAMP : entry.getValue(), previous);
+        }
+    }
+}
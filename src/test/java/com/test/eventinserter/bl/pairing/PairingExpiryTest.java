@@ -0,0 +1,123 @@
+package com.test.eventinserter.bl.pairing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.test.eventinserter.bl.metrics.PipelineMetrics;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.powermock.reflect.Whitebox;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class PairingExpiryTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private PairingStore pairingStore;
+    private PipelineMetrics pipelineMetrics;
+    private PairingExpiry pairingExpiry;
+    private File deadLetterFile;
+
+    @Before
+    public void setUp() {
+        pairingStore = new OffHeapPairingStore(16, 16);
+        pipelineMetrics = new PipelineMetrics();
+        deadLetterFile = new File(temporaryFolder.getRoot(), "dead-letters/unmatched.jsonl");
+
+        pairingExpiry = new PairingExpiry();
+        Whitebox.setInternalState(pairingExpiry, "pairingStore", pairingStore);
+        Whitebox.setInternalState(pairingExpiry, "pipelineMetrics", pipelineMetrics);
+        Whitebox.setInternalState(pairingExpiry, "windowMs", 1000L);
+        Whitebox.setInternalState(pairingExpiry, "deadLetterFile", deadLetterFile.getPath());
+    }
+
+    @After
+    public void tearDown() {
+        pairingStore.close();
+    }
+
+    @Test
+    public void should_EvictItemsOlderThanWindow_BeforeHighestTimestamp() throws IOException {
+        pairingStore.pairOrStore("a", 1000L);
+        pairingStore.pairOrStore("b", 1500L);
+        pairingStore.pairOrStore("c", 2500L);
+
+        pairingExpiry.observe(2600L);
+        // An older line does not move the watermark back
+        pairingExpiry.observe(1200L);
+        pairingExpiry.evict();
+
+        Assert.assertEquals(2600L, pairingExpiry.getWatermark());
+        Assert.assertEquals(1, pairingStore.size());
+        Assert.assertEquals(2, pipelineMetrics.getItemsExpired());
+
+        Map<String, Long> deadLetters = readDeadLetters();
+        Assert.assertEquals(2, deadLetters.size());
+        Assert.assertEquals(Long.valueOf(1000L), deadLetters.get("a"));
+        Assert.assertEquals(Long.valueOf(1500L), deadLetters.get("b"));
+    }
+
+    @Test
+    public void should_AppendLines_ForEveryPassWithExpiredItems() throws IOException {
+        pairingStore.pairOrStore("a", 1000L);
+        pairingStore.pairOrStore("b", 2000L);
+
+        pairingExpiry.observe(2500L);
+        pairingExpiry.evict();
+        // The watermark did not move, nothing is written
+        pairingExpiry.evict();
+        pairingExpiry.observe(3500L);
+        pairingExpiry.evict();
+
+        Assert.assertEquals(0, pairingStore.size());
+        List<String> lines = Files.readAllLines(deadLetterFile.toPath(), StandardCharsets.UTF_8);
+        Assert.assertEquals(2, lines.size());
+        Assert.assertEquals("{\"id\":\"a\",\"timestamp\":1000}", lines.get(0));
+        Assert.assertEquals("{\"id\":\"b\",\"timestamp\":2000}", lines.get(1));
+    }
+
+    @Test
+    public void should_KeepItemsAndFile_IfNothingExpired() {
+        pairingStore.pairOrStore("a", 1000L);
+
+        pairingExpiry.observe(1800L);
+        pairingExpiry.evict();
+
+        Assert.assertEquals(1, pairingStore.size());
+        Assert.assertFalse(deadLetterFile.exists());
+    }
+
+    @Test
+    public void should_NotTrackWatermark_IfWindowIsZero() {
+        Whitebox.setInternalState(pairingExpiry, "windowMs", 0L);
+        pairingStore.pairOrStore("a", 1000L);
+
+        pairingExpiry.observe(5000L);
+        pairingExpiry.evict();
+
+        Assert.assertFalse(pairingExpiry.isEnabled());
+        Assert.assertEquals(Long.MIN_VALUE, pairingExpiry.getWatermark());
+        Assert.assertEquals(1, pairingStore.size());
+    }
+
+    private Map<String, Long> readDeadLetters() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, Long> deadLetters = new HashMap<>();
+        for (String line : Files.readAllLines(deadLetterFile.toPath(), StandardCharsets.UTF_8)) {
+            JsonNode node = objectMapper.readTree(line);
+            deadLetters.put(node.get("id").asText(), node.get("timestamp").asLong());
+        }
+        return deadLetters;
+    }
+}
@@ -0,0 +1,83 @@
+package com.test.eventinserter.bl.pairing;
+
+import com.test.eventinserter.bl.parser.EventLineParser;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class PartitionedPairerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final EventLineParser parser = new EventLineParser();
+
+    @Test
+    public void should_PairItemsAcrossPartitions_ForInterleavedPairs() throws IOException {
+        File parent = temporaryFolder.newFolder();
+        Map<String, Long> durations = new ConcurrentHashMap<>();
+        long unmatched;
+
+        try (PartitionedPairer pairer = new PartitionedPairer(parent, 8)) {
+            for (int i = 0; i < 1000; i++) {
+                spill(pairer, "{\"id\":\"id-" + i + "\",\"timestamp\":" + i + "}");
+            }
+            for (int i = 0; i < 1000; i += 2) {
+                spill(pairer, "{\"id\":\"id-" + i + "\",\"timestamp\":" + (i + 3) + ",\"type\":\"T\",\"host\":\"h\"}");
+            }
+
+            unmatched = pairer.pair(4, (id, type, host, timestamp, previousTimestamp) -> {
+                Assert.assertEquals("T", type);
+                Assert.assertEquals("h", host);
+                Assert.assertNull("Paired twice " + id, durations.put(id, timestamp - previousTimestamp));
+            });
+        }
+
+        Assert.assertEquals(500, durations.size());
+        Assert.assertEquals(500, unmatched);
+        durations.values().forEach(duration -> Assert.assertEquals(3L, (long) duration));
+        Assert.assertArrayEquals(new String[0], parent.list());
+    }
+
+    @Test
+    public void should_CancelWaitingItem_IfTombstoneFollows() throws IOException {
+        Map<String, Long> durations = new ConcurrentHashMap<>();
+        long unmatched;
+
+        try (PartitionedPairer pairer = new PartitionedPairer(temporaryFolder.newFolder(), 4)) {
+            spill(pairer, "{\"id\":\"a\",\"timestamp\":1}");
+            spill(pairer, "{\"id\":\"b\",\"timestamp\":1}");
+            tombstone(pairer, "{\"id\":\"a\",\"timestamp\":");
+            // The escaped spelling of b meets its raw spelling
+            spill(pairer, "{\"id\":\"\\u0062\",\"timestamp\":5}");
+            spill(pairer, "{\"id\":\"a\",\"timestamp\":9}");
+
+            unmatched = pairer.pair(1, (id, type, host, timestamp, previousTimestamp) ->
+                    durations.put(id, timestamp - previousTimestamp));
+        }
+
+        Assert.assertEquals(1, durations.size());
+        Assert.assertEquals(4L, (long) durations.get("b"));
+        Assert.assertEquals(1, unmatched);
+    }
+
+    private void spill(PartitionedPairer pairer, String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        Assert.assertTrue(parser.parse(bytes, 0, bytes.length));
+        pairer.spill(parser);
+    }
+
+    private void tombstone(PartitionedPairer pairer, String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        Assert.assertFalse(parser.parse(bytes, 0, bytes.length));
+        Assert.assertTrue(parser.findId(bytes, 0, bytes.length));
+        pairer.spillTombstone(parser);
+    }
+}
@@ -0,0 +1,75 @@
+package com.test.eventinserter.bl.parser;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class EventLineParserTest {
+
+    private final EventLineParser parser = new EventLineParser();
+
+    @Test
+    public void should_ReadAllFields_ForValidLine() {
+        Assert.assertTrue(parse("{\"id\":\"scsmbstgra\", \"state\":\"STARTED\", \"type\":\"APPLICATION_LOG\",\"host\":\"12345\", \"timestamp\":1491377495212}"));
+        Assert.assertEquals("scsmbstgra", parser.getId());
+        Assert.assertEquals("STARTED", parser.getState());
+        Assert.assertEquals("APPLICATION_LOG", parser.getType());
+        Assert.assertEquals("12345", parser.getHost());
+        Assert.assertTrue(parser.hasTimestamp());
+        Assert.assertEquals(1491377495212L, parser.getTimestamp());
+        Assert.assertTrue(parser.isIdRaw());
+    }
+
+    @Test
+    public void should_LeaveFieldsNull_IfTheyAreMissing() {
+        Assert.assertTrue(parse(" {\"id\":\"scsmbstgrb\", \"state\":\"STARTED\", \"timestamp\":\"1491377495213\"} "));
+        Assert.assertNull(parser.getType());
+        Assert.assertNull(parser.getHost());
+        Assert.assertEquals(1491377495213L, parser.getTimestamp());
+    }
+
+    @Test
+    public void should_UnescapeStrings_IfTheyContainEscapes() {
+        Assert.assertTrue(parse("{\"id\":\"a\\\"b\\u0041\", \"host\":\"h\\\\1\", \"timestamp\":1}"));
+        Assert.assertEquals("a\"bA", parser.getId());
+        Assert.assertEquals("h\\1", parser.getHost());
+        Assert.assertFalse(parser.isIdRaw());
+    }
+
+    @Test
+    public void should_NotHaveId_IfInputDoesNotContainId() {
+        Assert.assertTrue(parse("{\"state\":\"STARTED\", \"type\":\"APPLICATION_LOG\",\"host\":\"12345\", \"timestamp\":1491377495212}"));
+        Assert.assertFalse(parser.hasId());
+    }
+
+    @Test
+    public void should_Fail_IfInputIsInvalidJSON() {
+        Assert.assertFalse(parse(":\"STARTED\", \"type\":\"APPLICATION_LOG\",\"host\":\"12345\", \"timestamp\":1491377495212}"));
+        Assert.assertFalse(parse("{\"id\":\"scsmbstgra\", \"state\":\"STARTED\", \"type\":\"APPLICATION_LOG\",\"host\":\"12345\", "));
+        Assert.assertFalse(parse("{\"id\":\"scsmbstgra\", \"timestamp\":12x}"));
+        Assert.assertFalse(parse("{\"id\":\"scsmbstgra\", \"timestamp\":99999999999999999999}"));
+        Assert.assertFalse(parse("{\"id\":\"scsmbstgra\", \"unknown\":1}"));
+        Assert.assertFalse(parse(""));
+    }
+
+    @Test
+    public void should_FindId_IfInputIsInvalidJSONWithId() {
+        String line = "{\"id\":\"scsmbstgra\", \"state\":\"STARTED\", \"type\":\"APPLICATION_LOG\",\"host\":\"12345\", ";
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        Assert.assertFalse(parser.parse(bytes, 0, bytes.length));
+        Assert.assertTrue(parser.findId(bytes, 0, bytes.length));
+        Assert.assertEquals("scsmbstgra", parser.getId());
+    }
+
+    @Test
+    public void should_NotFindId_IfIdIsCutOff() {
+        byte[] bytes = "{\"state\":\"STARTED\", \"id\":\"scsm".getBytes(StandardCharsets.UTF_8);
+        Assert.assertFalse(parser.findId(bytes, 0, bytes.length));
+    }
+
+    private boolean parse(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return parser.parse(bytes, 0, bytes.length);
+    }
+}
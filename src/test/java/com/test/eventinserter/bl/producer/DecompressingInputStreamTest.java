@@ -0,0 +1,144 @@
+package com.test.eventinserter.bl.producer;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+public class DecompressingInputStreamTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void should_ReadPlainFileAsItIs_IfItIsNotGzip() throws IOException {
+        byte[] content = lines(100);
+        File file = temporaryFolder.newFile();
+        FileUtils.writeByteArrayToFile(file, content);
+
+        Assert.assertFalse(DecompressingInputStream.isGzip(file));
+        try (InputStream inputStream = DecompressingInputStream.open(file, 4)) {
+            Assert.assertArrayEquals(content, IOUtils.toByteArray(inputStream));
+        }
+    }
+
+    @Test
+    public void should_ReadEveryMember_ForConcatenatedGzipMembers() throws IOException {
+        byte[] content = lines(100000);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        for (int start = 0; start < content.length; start += 1000000) {
+            compressed.write(gzip(Arrays.copyOfRange(content, start, Math.min(content.length, start + 1000000))));
+        }
+        File file = temporaryFolder.newFile();
+        FileUtils.writeByteArrayToFile(file, compressed.toByteArray());
+
+        Assert.assertTrue(DecompressingInputStream.isGzip(file));
+        try (InputStream inputStream = DecompressingInputStream.open(file, 4)) {
+            Assert.assertArrayEquals(content, IOUtils.toByteArray(inputStream));
+        }
+    }
+
+    @Test
+    public void should_KeepMembersInOrder_IfBgzfMembersAreInflatedInParallel() throws IOException {
+        byte[] content = lines(100000);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        for (int start = 0; start < content.length; start += 60000) {
+            compressed.write(bgzfMember(Arrays.copyOfRange(content, start, Math.min(content.length, start + 60000))));
+        }
+        // The end of file marker of BGZF is an empty member
+        compressed.write(bgzfMember(new byte[0]));
+        File file = temporaryFolder.newFile();
+        FileUtils.writeByteArrayToFile(file, compressed.toByteArray());
+
+        try (InputStream inputStream = DecompressingInputStream.open(file, 4)) {
+            Assert.assertArrayEquals(content, IOUtils.toByteArray(inputStream));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void should_ThrowIOException_IfGzipIsTruncated() throws IOException {
+        byte[] compressed = gzip(lines(10000));
+        File file = temporaryFolder.newFile();
+        FileUtils.writeByteArrayToFile(file, Arrays.copyOf(compressed, compressed.length / 2));
+
+        try (InputStream inputStream = DecompressingInputStream.open(file, 1)) {
+            IOUtils.toByteArray(inputStream);
+        }
+    }
+
+    @Test
+    public void should_EstimateUncompressedLength_ForGzipFile() throws IOException {
+        byte[] content = lines(1000000);
+        File file = temporaryFolder.newFile();
+        FileUtils.writeByteArrayToFile(file, gzip(content));
+
+        long estimate = DecompressingInputStream.estimateUncompressedLength(file);
+
+        Assert.assertTrue(file.length() * 2 < content.length);
+        Assert.assertTrue(estimate > content.length * 0.8 && estimate < content.length * 1.2);
+    }
+
+    @Test
+    public void should_EstimateFileLength_ForPlainFile() throws IOException {
+        File file = temporaryFolder.newFile();
+        FileUtils.writeByteArrayToFile(file, lines(100));
+
+        Assert.assertEquals(file.length(), DecompressingInputStream.estimateUncompressedLength(file));
+    }
+
+    private static byte[] lines(int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append("{\"id\":\"id-").append(i).append("\",\"timestamp\":").append(i).append("}\n");
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream outputStream = new GZIPOutputStream(compressed)) {
+            outputStream.write(content);
+        }
+        return compressed.toByteArray();
+    }
+
+    // A gzip member with the BC extra subfield holding its total size - 1
+    private static byte[] bgzfMember(byte[] content) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(content);
+        deflater.finish();
+        byte[] deflated = new byte[content.length + 1024];
+        int deflatedLength = deflater.deflate(deflated);
+        deflater.end();
+
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        int blockSize = 18 + deflatedLength + 8;
+
+        ByteArrayOutputStream member = new ByteArrayOutputStream();
+        member.write(new byte[]{0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff, 6, 0, 'B', 'C', 2, 0}, 0, 16);
+        writeLittleEndian(member, blockSize - 1, 2);
+        member.write(deflated, 0, deflatedLength);
+        writeLittleEndian(member, crc.getValue(), 4);
+        writeLittleEndian(member, content.length, 4);
+        return member.toByteArray();
+    }
+
+    private static void writeLittleEndian(ByteArrayOutputStream outputStream, long value, int bytes) {
+        for (int i = 0; i < bytes; i++) {
+            outputStream.write((int) (value >>> (8 * i)) & 0xff);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.test.eventinserter.bl.producer;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class FileFollowerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File file;
+    private FileFollower follower;
+    private Thread followerThread;
+    private final List<String> lines = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() {
+        file = new File(temporaryFolder.getRoot(), "events.log");
+        follower = new FileFollower(file, 5);
+        followerThread = new Thread(() -> {
+            try {
+                follower.follow((buffer, offset, length) ->
+                        lines.add(new String(buffer, offset, length, StandardCharsets.UTF_8)), () -> { });
+            } catch (IOException | InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        followerThread.start();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        follower.stop();
+        followerThread.join(5000);
+    }
+
+    @Test
+    public void should_HandleOnlyCompleteLines_IfLineIsWrittenInParts() throws Exception {
+        append("first\nsec");
+        awaitLines(1);
+        Thread.sleep(50);
+        Assert.assertEquals(1, lines.size());
+
+        append("ond\r\nthird\n");
+        awaitLines(3);
+        Assert.assertEquals("first", lines.get(0));
+        Assert.assertEquals("second", lines.get(1));
+        Assert.assertEquals("third", lines.get(2));
+    }
+
+    @Test
+    public void should_ReadOldAndNewFile_IfFileIsRotated() throws Exception {
+        append("before\n");
+        awaitLines(1);
+
+        // Written to the old file after it has been moved away
+        File rotated = new File(temporaryFolder.getRoot(), "events.log.1");
+        Assert.assertTrue(file.renameTo(rotated));
+        Files.write(rotated.toPath(), "late\nunterminated".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        append("after\n");
+
+        awaitLines(4);
+        Assert.assertEquals("before", lines.get(0));
+        Assert.assertTrue(lines.containsAll(Arrays.asList("late", "unterminated", "after")));
+        Assert.assertEquals("after", lines.get(3));
+    }
+
+    @Test
+    public void should_ReadFromBeginning_IfFileIsTruncated() throws Exception {
+        append("a rather long line before truncation\n");
+        awaitLines(1);
+
+        Files.write(file.toPath(), new byte[0], StandardOpenOption.TRUNCATE_EXISTING);
+        Thread.sleep(50);
+        append("new\n");
+
+        awaitLines(2);
+        Assert.assertEquals("new", lines.get(1));
+    }
+
+    private void append(String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private void awaitLines(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (lines.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        Assert.assertTrue("Expected " + count + " lines but got " + lines, lines.size() >= count);
+    }
+}
@@ -0,0 +1,40 @@
+package com.test.eventinserter.bl.producer;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class InputFilesTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void should_FileBeNull_IfInputIsEmpty() {
+        Assert.assertNull(InputFiles.validateAndGetFile(new String[]{}));
+    }
+
+    @Test
+    public void should_FileBeNull_IfInputDoesNotExist() {
+        Assert.assertNull(InputFiles.validateAndGetFile(new String[]{"no_such_file.txt"}));
+    }
+
+    @Test
+    public void should_FileBeNull_IfFileIsEmpty() throws IOException {
+        File file = temporaryFolder.newFile("empty.log");
+        Assert.assertNull(InputFiles.validateAndGetFile(new String[]{file.getAbsolutePath()}));
+    }
+
+    @Test
+    public void should_ReturnFile_IfFileHasContent() throws IOException {
+        File file = temporaryFolder.newFile("events.log");
+        FileUtils.writeStringToFile(file, "{\"id\":\"a\", \"timestamp\":1}\n", StandardCharsets.UTF_8);
+        Assert.assertEquals(file, InputFiles.validateAndGetFile(new String[]{file.getAbsolutePath()}));
+    }
+}
@@ -0,0 +1,48 @@
+package com.test.eventinserter.bl.producer;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class MappedFileReaderTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void should_HandleEveryLineOnce_ForLineAlignedShares() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            content.append("line-").append(i).append(i % 3 == 0 ? "-long-line\n" : "\n");
+        }
+        File file = temporaryFolder.newFile("events.log");
+        FileUtils.writeStringToFile(file, content.toString(), StandardCharsets.UTF_8);
+
+        for (int shares : new int[]{1, 3, 7, 2000}) {
+            Map<String, Integer> handled = new ConcurrentHashMap<>();
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+                 FileChannel channel = randomAccessFile.getChannel()) {
+                long length = channel.size();
+                for (int share = 0; share < shares; share++) {
+                    long start = MappedFileReader.lineStartAt(channel, length * share / shares);
+                    long end = MappedFileReader.lineStartAt(channel, length * (share + 1) / shares);
+                    new MappedFileReader(file, 2, 100).read(start, end, (buffer, offset, lineLength) ->
+                            handled.merge(new String(buffer, offset, lineLength, StandardCharsets.UTF_8), 1, Integer::sum));
+                }
+            }
+
+            Assert.assertEquals(1000, handled.size());
+            Assert.assertTrue(handled.values().stream().allMatch(count -> count == 1));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.test.eventinserter.bl.producer;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class MultiFileReaderTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void should_HandleEveryLineOnce_ForManyFilesSplitIntoChunks() throws IOException {
+        List<File> files = new ArrayList<>();
+        int lines = 0;
+        for (int f = 0; f < 5; f++) {
+            StringBuilder content = new StringBuilder();
+            // Files of different sizes, the last line of some has no newline
+            for (int i = 0; i < 200 * (f + 1); i++) {
+                content.append("file-").append(f).append("-line-").append(i);
+                content.append(i % 7 == 0 ? "\r\n" : "\n");
+                lines++;
+            }
+            if (f % 2 == 0) {
+                content.setLength(content.length() - 1);
+            }
+            File file = temporaryFolder.newFile("events-" + f + ".log");
+            FileUtils.writeStringToFile(file, content.toString(), StandardCharsets.UTF_8);
+            files.add(file);
+        }
+        files.add(temporaryFolder.newFile("empty.log"));
+
+        Map<String, Integer> handled = new ConcurrentHashMap<>();
+        new MultiFileReader(files, 4, 1024).read((buffer, offset, length) ->
+                handled.merge(new String(buffer, offset, length, StandardCharsets.UTF_8), 1, Integer::sum));
+
+        Assert.assertEquals(lines, handled.size());
+        Assert.assertTrue(handled.values().stream().allMatch(count -> count == 1));
+        Assert.assertTrue(handled.containsKey("file-4-line-999"));
+        Assert.assertTrue(handled.containsKey("file-0-line-0"));
+    }
+
+    @Test(expected = IOException.class)
+    public void should_ThrowIOException_IfFileIsMissing() throws IOException {
+        List<File> files = new ArrayList<>();
+        files.add(new File(temporaryFolder.getRoot(), "missing.log"));
+        new MultiFileReader(files, 2, 1024).read((buffer, offset, length) -> { });
+    }
+}
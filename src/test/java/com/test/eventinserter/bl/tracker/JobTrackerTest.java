@@ -0,0 +1,79 @@
+package com.test.eventinserter.bl.tracker;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class JobTrackerTest {
+
+    @Test
+    public void should_NotWait_IfWindowIsNotFull() throws InterruptedException {
+        JobTracker jobTracker = new JobTracker(100);
+        AtomicInteger flushes = new AtomicInteger();
+
+        jobTracker.eventsSent(99);
+
+        Assert.assertEquals(0, jobTracker.awaitCredit(flushes::incrementAndGet));
+        Assert.assertEquals(0, flushes.get());
+    }
+
+    @Test
+    public void should_FlushAndWaitForResumeLevel_IfWindowIsFull() throws InterruptedException {
+        JobTracker jobTracker = new JobTracker(100);
+        AtomicInteger flushes = new AtomicInteger();
+        jobTracker.eventsSent(100);
+
+        Thread consumer = new Thread(() -> {
+            for (int i = 0; i < 100; i++) {
+                jobTracker.eventsProcessed(1);
+                sleep();
+            }
+        });
+        consumer.start();
+
+        jobTracker.awaitCredit(flushes::incrementAndGet);
+        long inFlight = jobTracker.getEventsInFlight();
+        consumer.join();
+
+        Assert.assertEquals(1, flushes.get());
+        // Resumed once a quarter of the window had drained, not at the first credit
+        Assert.assertTrue("in flight " + inFlight, inFlight <= 75);
+    }
+
+    @Test
+    public void should_NeverWait_IfWindowIsDisabled() throws InterruptedException {
+        JobTracker jobTracker = new JobTracker(0);
+        jobTracker.eventsSent(1_000_000);
+
+        Assert.assertEquals(0, jobTracker.awaitCredit(() -> Assert.fail("Must not flush")));
+    }
+
+    @Test
+    public void should_StopWaiting_IfJobFails() throws InterruptedException {
+        JobTracker jobTracker = new JobTracker(100);
+        jobTracker.eventsSent(100);
+
+        Thread transport = new Thread(() -> {
+            sleep();
+            jobTracker.fail();
+        });
+        transport.start();
+
+        jobTracker.awaitCredit(() -> {
+        });
+        jobTracker.awaitProcessed();
+        transport.join();
+
+        Assert.assertTrue(jobTracker.isFailed());
+        Assert.assertEquals(100, jobTracker.getEventsInFlight());
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
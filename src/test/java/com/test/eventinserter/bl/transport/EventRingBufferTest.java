@@ -0,0 +1,52 @@
+package com.test.eventinserter.bl.transport;
+
+import com.test.eventinserter.model.Event;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class EventRingBufferTest {
+
+    @Test
+    public void should_DeliverEveryEventOnce_ForConcurrentProducers() throws InterruptedException {
+        EventRingBuffer ringBuffer = new EventRingBuffer(64);
+        int producers = 4;
+        int eventsPerProducer = 10000;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                Event event = new Event();
+                for (int i = 0; i < eventsPerProducer; i++) {
+                    event.setId(producer + "-" + i);
+                    event.setDuration((long) i);
+                    ringBuffer.publish(event);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        Set<String> ids = new HashSet<>();
+        List<Event> batch = new ArrayList<>();
+        while (ids.size() < producers * eventsPerProducer) {
+            batch.clear();
+            int count = ringBuffer.drain(batch, 16);
+            for (Event event : batch) {
+                Assert.assertTrue("Duplicate event " + event.getId(), ids.add(event.getId()));
+                Assert.assertEquals(event.getId().substring(event.getId().indexOf('-') + 1), event.getDuration().toString());
+            }
+            ringBuffer.release(count);
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(0, ringBuffer.size());
+    }
+}
@@ -0,0 +1,90 @@
+package com.test.eventinserter.bl.transport;
+
+import com.test.eventinserter.bl.tracker.JobTracker;
+import com.test.eventinserter.model.Event;
+import com.test.eventinserter.model.EventEnvelope;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+import org.springframework.jms.UncategorizedJmsException;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.MessagePostProcessor;
+
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class JmsEventTransportTest {
+
+    private final BlockingQueue<Object[]> sent = new LinkedBlockingQueue<>();
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private JmsEventTransport transport;
+
+    @Before
+    public void setUp() {
+        // Records the messages instead of sending them to a broker
+        JmsTemplate jmsTemplate = new JmsTemplate() {
+            @Override
+            public void convertAndSend(String destinationName, Object message, MessagePostProcessor postProcessor) {
+                if (failures.getAndDecrement() > 0) {
+                    throw new UncategorizedJmsException("Broker is gone");
+                }
+                sent.add(new Object[]{destinationName, message, Thread.currentThread().getName()});
+            }
+        };
+
+        transport = new JmsEventTransport();
+        Whitebox.setInternalState(transport, "jmsTemplate", jmsTemplate);
+        Whitebox.setInternalState(transport, "jobTracker", new JobTracker(0));
+        Whitebox.setInternalState(transport, "envelopeSize", 100);
+        Whitebox.setInternalState(transport, "envelopeMaxAgeMs", 60000L);
+        Whitebox.setInternalState(transport, "sendMode", "sync");
+        transport.start();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        transport.stop();
+    }
+
+    @Test
+    public void should_SendAlertToAlertDestination_WithoutWaitingForEnvelope() throws InterruptedException {
+        transport.send(event("normal", false));
+        Event alert = event("alert", true);
+        transport.send(alert);
+
+        Object[] message = sent.poll(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(message);
+        Assert.assertEquals(JmsEventTransport.ALERT_DESTINATION, message[0]);
+        Assert.assertEquals(Collections.singletonList(alert), ((EventEnvelope) message[1]).getEvents());
+
+        // The normal event waits for its envelope to fill or to age
+        Assert.assertNull(sent.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void should_RetryOnRetryThread_IfSendFails() throws InterruptedException {
+        failures.set(1);
+        transport.send(event("normal", false));
+        transport.flush();
+
+        Object[] message = sent.poll(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(message);
+        Assert.assertEquals(JmsEventTransport.ENVELOPE_DESTINATION, message[0]);
+        Assert.assertEquals("jms-send-retry", message[2]);
+    }
+
+    private static Event event(String id, boolean alert) {
+        Event event = new Event();
+        event.setId(id);
+        event.setDuration(alert ? 10L : 1L);
+        event.setAlert(alert);
+        return event;
+    }
+}
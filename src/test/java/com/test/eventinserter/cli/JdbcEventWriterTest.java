@@ -0,0 +1,64 @@
+package com.test.eventinserter.cli;
+
+import com.test.eventinserter.bl.metrics.PipelineMetrics;
+import com.test.eventinserter.model.Event;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+public class JdbcEventWriterTest {
+
+    @Test
+    public void should_SkipOnlyDuplicates_IfBatchContainsExistingId() throws SQLException {
+        String url = "jdbc:hsqldb:mem:writer-duplicates";
+        try (JdbcEventWriter eventWriter = new JdbcEventWriter(url, "sa", "", new PipelineMetrics())) {
+            eventWriter.prepareTable("create-drop", false);
+
+            Assert.assertEquals(2, eventWriter.write(Arrays.asList(event("a", 3), event("b", 5))));
+            Assert.assertEquals(1, eventWriter.write(Arrays.asList(event("b", 7), event("c", 9))));
+            eventWriter.finish();
+        }
+
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             ResultSet rows = connection.createStatement().executeQuery("SELECT COUNT(*), SUM(duration) FROM event")) {
+            rows.next();
+            Assert.assertEquals(3, rows.getInt(1));
+            Assert.assertEquals(17, rows.getLong(2));
+        }
+    }
+
+    @Test
+    public void should_BuildIndexes_IfTableIsCreated() throws SQLException {
+        String url = "jdbc:hsqldb:mem:writer-indexes";
+        try (JdbcEventWriter eventWriter = new JdbcEventWriter(url, "sa", "", new PipelineMetrics())) {
+            eventWriter.prepareTable("create", true);
+            eventWriter.write(Arrays.asList(event("a", 3), event("b", 5)));
+            eventWriter.finish();
+        }
+
+        int indexes = 0;
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             ResultSet rows = connection.getMetaData().getIndexInfo(null, null, "EVENT", false, false)) {
+            while (rows.next()) {
+                if (rows.getString("INDEX_NAME").startsWith("IDX_EVENT_") && rows.getShort("ORDINAL_POSITION") == 1) {
+                    indexes++;
+                }
+            }
+        }
+        Assert.assertEquals(4, indexes);
+    }
+
+    private static Event event(String id, long duration) {
+        Event event = new Event();
+        event.setId(id);
+        event.setDuration(duration);
+        event.setHost("host");
+        event.setType("type");
+        return event;
+    }
+}
@@ -0,0 +1,81 @@
+package com.test.eventinserter.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.test.eventinserter.model.Event;
+import com.test.eventinserter.model.EventEnvelope;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class BinaryEventCodecTest {
+
+    @Test
+    public void should_DecodeSameEvents_ForEncodedEnvelope() {
+        Event first = event("scsmbstgra", 5L, "APPLICATION_LOG", "12345", true);
+        Event second = event("scsmbstgrb", 3L, "APPLICATION_LOG", "12345", false);
+        Event third = event("şçö", null, null, "other", false);
+
+        byte[] bytes = BinaryEventCodec.encode(BinaryEventCodec.KIND_ENVELOPE, Arrays.asList(first, second, third));
+        List<Event> events = BinaryEventCodec.decode(bytes);
+
+        Assert.assertEquals(BinaryEventCodec.KIND_ENVELOPE, BinaryEventCodec.kindOf(bytes));
+        Assert.assertEquals(3, events.size());
+        Assert.assertEquals(first.toString(), events.get(0).toString());
+        Assert.assertEquals(second.toString(), events.get(1).toString());
+        Assert.assertEquals(third.toString(), events.get(2).toString());
+    }
+
+    @Test
+    public void should_BeSmallerThanJson_ForRepeatedStrings() throws Exception {
+        Event first = event("1", 1491377495212L, "APPLICATION_LOG", "12345", true);
+        Event second = event("2", -3L, "APPLICATION_LOG", "12345", false);
+
+        byte[] bytes = BinaryEventCodec.encode(BinaryEventCodec.KIND_ENVELOPE, Arrays.asList(first, second));
+        List<Event> events = BinaryEventCodec.decode(bytes);
+
+        Assert.assertEquals(Long.valueOf(-3L), events.get(1).getDuration());
+        Assert.assertEquals("APPLICATION_LOG", events.get(1).getType());
+        Assert.assertTrue(bytes.length < new ObjectMapper().writeValueAsBytes(new EventEnvelope(Arrays.asList(first, second))).length);
+    }
+
+    @Test
+    public void should_ThrowIllegalArgument_ForTruncatedMessage() {
+        Event first = event("scsmbstgra", 5L, "APPLICATION_LOG", "12345", true);
+        Event second = event("scsmbstgrb", 3L, "APPLICATION_LOG", "12345", false);
+        byte[] bytes = BinaryEventCodec.encode(BinaryEventCodec.KIND_ENVELOPE, Arrays.asList(first, second));
+
+        for (int length = 0; length < bytes.length; length++) {
+            byte[] truncated = Arrays.copyOf(bytes, length);
+            try {
+                BinaryEventCodec.decode(truncated);
+                Assert.fail("Decoded a message truncated to " + length + " bytes");
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_ThrowIllegalArgument_ForVarintLongerThan64Bits() {
+        byte[] bytes = new byte[16];
+        bytes[0] = BinaryEventCodec.KIND_ENVELOPE;
+        Arrays.fill(bytes, 1, bytes.length, (byte) 0x80);
+        BinaryEventCodec.decode(bytes);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_ThrowIllegalArgument_ForEmptyMessage() {
+        BinaryEventCodec.kindOf(new byte[0]);
+    }
+
+    private static Event event(String id, Long duration, String type, String host, boolean alert) {
+        Event event = new Event();
+        event.setId(id);
+        event.setDuration(duration);
+        event.setType(type);
+        event.setHost(host);
+        event.setAlert(alert);
+        return event;
+    }
+}
@@ -0,0 +1,39 @@
+package com.test.eventinserter.converter;
+
+import com.test.eventinserter.model.Event;
+import org.apache.activemq.command.ActiveMQBytesMessage;
+import org.junit.Test;
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.jms.support.converter.SimpleMessageConverter;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class BinaryEventMessageConverterTest {
+
+    private final BinaryEventMessageConverter converter = new BinaryEventMessageConverter(new SimpleMessageConverter());
+
+    @Test(expected = MessageConversionException.class)
+    public void should_ThrowMessageConversion_ForTruncatedBody() throws Exception {
+        Event event = new Event();
+        event.setId("scsmbstgra");
+        event.setDuration(5L);
+        event.setType("APPLICATION_LOG");
+        event.setHost("12345");
+        byte[] bytes = BinaryEventCodec.encode(BinaryEventCodec.KIND_EVENT, Collections.singletonList(event));
+
+        converter.fromMessage(bytesMessage(Arrays.copyOf(bytes, bytes.length - 3)));
+    }
+
+    @Test(expected = MessageConversionException.class)
+    public void should_ThrowMessageConversion_ForEmptyBody() throws Exception {
+        converter.fromMessage(bytesMessage(new byte[0]));
+    }
+
+    private static ActiveMQBytesMessage bytesMessage(byte[] bytes) throws Exception {
+        ActiveMQBytesMessage message = new ActiveMQBytesMessage();
+        message.writeBytes(bytes);
+        message.reset();
+        return message;
+    }
+}
@@ -3,8 +3,6 @@ package com.test.eventinserter.datageneration;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.test.eventinserter.model.EventItem;
 import org.apache.commons.io.FileUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
@@ -13,56 +11,56 @@ import java.util.*;
 
 public class DataGenerator {
 
-    private static Logger logger = LoggerFactory.getLogger(DataGenerator.class);
-
+    // Writes itemNumber / 2 pairs with unique ids, see WorkloadGenerator
     public static File generateFile(Integer itemNumber) throws IOException {
-        logger.info("Started creating file with item number: {}", itemNumber);
         File file = File.createTempFile("data", "tmp");
+        file.deleteOnExit();
+
+        Workload workload = new Workload();
+        workload.setLines(itemNumber);
+        new WorkloadGenerator(workload).generate(file);
+
+        return file;
+    }
 
+    // Generates lines in memory, for benchmarks which should not measure file access.
+    // Ids are drawn from idCardinality distinct values, an id which is used
+    // more than once gets its STARTED and FINISHED items in turn.
+    public static List<String> generateLines(Integer itemNumber, Integer idCardinality) throws IOException {
         List<Integer> ids = new ArrayList<>();
 
         for (int i = 0; i < itemNumber / 2; i++) {
-            ids.add(i);
-            ids.add(i);
+            ids.add(i % idCardinality);
+            ids.add(i % idCardinality);
         }
 
-        Collections.shuffle(ids);
+        Collections.shuffle(ids, new Random(itemNumber));
 
         HashMap<Integer, Boolean> startFlags = new HashMap<>();
-        Random random = new Random();
+        Random random = new Random(idCardinality);
         ObjectMapper objectMapper = new ObjectMapper();
+        List<String> lines = new ArrayList<>(ids.size());
+        long timestamp = Instant.now().toEpochMilli();
 
-        for (int i = 0; i < itemNumber; i++) {
+        for (Integer id : ids) {
             EventItem eventItem = new EventItem();
-            Integer id = ids.get(i);
             eventItem.setId(id.toString());
             eventItem.setHost("12345");
-            eventItem.setTimestamp(Instant.now().toEpochMilli());
+            eventItem.setTimestamp(timestamp + random.nextInt(10));
             eventItem.setType("APPLICATION_LOG");
-            Boolean previousFlag = startFlags.get(id);
+            Boolean previousFlag = startFlags.remove(id);
             if (previousFlag == null) {
                 Boolean stateBool = random.nextBoolean();
                 startFlags.put(id, stateBool);
-                String state = stateBool ? "STARTED" : "FINISHED";
-                eventItem.setState(state);
+                eventItem.setState(stateBool ? "STARTED" : "FINISHED");
             } else {
-                String state = !previousFlag ? "STARTED" : "FINISHED";
-                eventItem.setState(state);
-                startFlags.remove(id);
+                eventItem.setState(!previousFlag ? "STARTED" : "FINISHED");
             }
 
-            String eventItemJson = objectMapper.writeValueAsString(eventItem);
-
-            FileUtils.writeStringToFile(file, eventItemJson + "\n", "UTF-8", true);
+            lines.add(objectMapper.writeValueAsString(eventItem));
         }
 
-        file.deleteOnExit();
-
-        Long fileLength = file.length() / (1024 * 1024);
-
-        logger.info("File created with size {} MB!", fileLength);
-
-        return file;
+        return lines;
     }
 
     public static File generateFile(String input) throws IOException {
@@ -0,0 +1,255 @@
+package com.test.eventinserter.datageneration;
+
+import com.test.eventinserter.EventinserterApplication;
+import com.test.eventinserter.bl.metrics.PipelineMetrics;
+import com.test.eventinserter.bl.producer.EventProducer;
+import com.test.eventinserter.persistence.service.EventService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Generates a synthetic workload, feeds it through the whole pipeline and
+// reports the throughput, the peak memory and the time of the stages.
+// The options of the workload start with --workload., e.g.
+// --workload.lines=10000000 --workload.locality=100000 --workload.orphan-rate=0.01,
+// every other argument is passed to the application, e.g. --spring.profiles.active=jms-tuned.
+// Exits with 1 if the number of saved events is not the one expected.
+public class LoadTestRunner {
+
+    private static Logger logger = LoggerFactory.getLogger(LoadTestRunner.class);
+
+    private static final String OPTION_PREFIX = "--workload.";
+
+    private static final long MB = 1024 * 1024;
+
+    public static void main(String[] args) throws IOException {
+        Workload workload = new Workload();
+        List<String> applicationArgs = new ArrayList<>();
+        File file = null;
+
+        for (String arg : args) {
+            if (!arg.startsWith(OPTION_PREFIX)) {
+                applicationArgs.add(arg);
+                continue;
+            }
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected " + OPTION_PREFIX + "name=value: " + arg);
+            }
+            String name = arg.substring(OPTION_PREFIX.length(), separator);
+            String value = arg.substring(separator + 1);
+            if (name.equals("output")) {
+                file = new File(value);
+            } else {
+                setOption(workload, name, value);
+            }
+        }
+
+        if (file == null) {
+            file = File.createTempFile("workload", ".log");
+            file.deleteOnExit();
+        }
+        WorkloadGenerator.Result generated = new WorkloadGenerator(workload).generate(file);
+        applicationArgs.add(file.getAbsolutePath());
+
+        boolean passed = run(applicationArgs.toArray(new String[0]), generated);
+        logger.info("Exiting...");
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static void setOption(Workload workload, String name, String value) {
+        switch (name) {
+            case "lines":
+                workload.setLines(Long.parseLong(value));
+                break;
+            case "id-cardinality":
+                workload.setIdCardinality(Long.parseLong(value));
+                break;
+            case "locality":
+                workload.setLocality(Integer.parseInt(value));
+                break;
+            case "orphan-rate":
+                workload.setOrphanRate(Double.parseDouble(value));
+                break;
+            case "malformed-rate":
+                workload.setMalformedRate(Double.parseDouble(value));
+                break;
+            case "hosts":
+                workload.setHostCardinality(Integer.parseInt(value));
+                break;
+            case "types":
+                workload.setTypeCardinality(Integer.parseInt(value));
+                break;
+            case "max-duration-ms":
+                workload.setMaxDurationMs(Integer.parseInt(value));
+                break;
+            case "threads":
+                workload.setThreads(Integer.parseInt(value));
+                break;
+            case "seed":
+                workload.setSeed(Long.parseLong(value));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown workload option: " + name);
+        }
+    }
+
+    private static boolean run(String[] args, WorkloadGenerator.Result generated) {
+        long startedAt = System.nanoTime();
+        ConfigurableApplicationContext context = SpringApplication.run(EventinserterApplication.class, args);
+        long startupNanos = System.nanoTime() - startedAt;
+
+        PipelineMetrics pipelineMetrics = context.getBean(PipelineMetrics.class);
+        MemorySampler sampler = new MemorySampler(pipelineMetrics, generated.getLines());
+
+        long ingestStartedAt = System.nanoTime();
+        sampler.start(ingestStartedAt);
+        try {
+            context.getBean(EventProducer.class).produceEvent(args);
+        } finally {
+            sampler.stop();
+        }
+        long ingestNanos = System.nanoTime() - ingestStartedAt;
+        long readNanos = sampler.readNanos > 0 ? sampler.readNanos : ingestNanos;
+
+        long saved = context.getBean(EventService.class).countEvents();
+
+        logger.info("Generated {} lines, {} MB in {} ms, {} MB/s",
+                generated.getLines(), generated.getBytes() / MB, generated.getNanos() / 1_000_000,
+                perSecond(generated.getBytes() / MB, generated.getNanos()));
+        logger.info("Started the application in {} ms", startupNanos / 1_000_000);
+        logger.info("Read {} lines in {} ms, {} lines/s, {} MB/s",
+                pipelineMetrics.getLinesRead(), readNanos / 1_000_000,
+                perSecond(pipelineMetrics.getLinesRead(), readNanos),
+                perSecond(pipelineMetrics.getBytesRead() / MB, readNanos));
+        logger.info("Drained the pipeline in {} ms after reading", (ingestNanos - readNanos) / 1_000_000);
+        logger.info("Waited {} ms for credits, wrote to the database for {} ms over all consumers, "
+                        + "write latency p50 {} ms, p99 {} ms",
+                pipelineMetrics.getFlowControlWaitMs(), pipelineMetrics.getDbWriteMs(),
+                pipelineMetrics.getDbWriteLatency().percentile(50) / 1000.0,
+                pipelineMetrics.getDbWriteLatency().percentile(99) / 1000.0);
+        logger.info("Ingested {} events in {} ms, {} events/s, {} lines/s",
+                saved, ingestNanos / 1_000_000, perSecond(saved, ingestNanos),
+                perSecond(pipelineMetrics.getLinesRead(), ingestNanos));
+        logger.info("Peak heap {} MB, peak direct memory {} MB, peak resident memory {}",
+                sampler.heapPeakBytes() / MB, sampler.directPeakBytes / MB, residentPeak());
+
+        context.close();
+
+        if (saved != generated.getDistinctEvents()) {
+            logger.error("Saved {} events, expected {} of {} lines with {} orphans and {} malformed lines!",
+                    saved, generated.getDistinctEvents(), generated.getLines(), generated.getOrphans(),
+                    generated.getMalformedLines());
+            return false;
+        }
+        logger.info("Saved all {} expected events", saved);
+        return true;
+    }
+
+    private static long perSecond(long count, long nanos) {
+        return nanos == 0 ? 0 : count * 1_000_000_000L / nanos;
+    }
+
+    // The high water mark of the resident set, which covers the
+    // off-heap pairing store and the native memory of the JVM as well
+    private static String residentPeak() {
+        Path status = Paths.get("/proc/self/status");
+        if (!Files.isReadable(status)) {
+            return "unknown";
+        }
+        try {
+            for (String line : Files.readAllLines(status, StandardCharsets.US_ASCII)) {
+                if (line.startsWith("VmHWM:")) {
+                    return line.substring("VmHWM:".length()).trim();
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("Could not read {}", status, e);
+        }
+        return "unknown";
+    }
+
+    // Samples the direct buffers and notes when the last line has been
+    // read. The peaks of the heap pools are tracked by the JVM itself.
+    private static class MemorySampler {
+
+        private static final long PERIOD_MS = 20;
+
+        private final PipelineMetrics pipelineMetrics;
+        private final long lines;
+        private final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        private final List<BufferPoolMXBean> bufferPools;
+        private ScheduledExecutorService executor;
+        private long startedAt;
+
+        private volatile long directPeakBytes;
+        private volatile long readNanos;
+
+        private MemorySampler(PipelineMetrics pipelineMetrics, long lines) {
+            this.pipelineMetrics = pipelineMetrics;
+            this.lines = lines;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    heapPools.add(pool);
+                }
+            }
+            bufferPools = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class);
+        }
+
+        private void start(long startedAt) {
+            this.startedAt = startedAt;
+            heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+            executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "load-test-sampler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.scheduleAtFixedRate(this::sample, 0, PERIOD_MS, TimeUnit.MILLISECONDS);
+        }
+
+        private void stop() {
+            executor.shutdownNow();
+            sample();
+        }
+
+        private void sample() {
+            long direct = 0;
+            for (BufferPoolMXBean pool : bufferPools) {
+                if (pool.getName().equals("direct")) {
+                    direct += pool.getMemoryUsed();
+                }
+            }
+            directPeakBytes = Math.max(directPeakBytes, direct);
+
+            if (readNanos == 0 && pipelineMetrics.getLinesRead() >= lines) {
+                readNanos = System.nanoTime() - startedAt;
+            }
+        }
+
+        // The pools peak at different times, so this is an upper bound
+        private long heapPeakBytes() {
+            long peak = 0;
+            for (MemoryPoolMXBean pool : heapPools) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+            return peak;
+        }
+    }
+}
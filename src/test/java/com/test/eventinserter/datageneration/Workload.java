@@ -0,0 +1,149 @@
+package com.test.eventinserter.datageneration;
+
+// Parameters of a synthetic workload written by WorkloadGenerator.
+// Every pair is written as two lines, a STARTED and a FINISHED item,
+// unless it is an orphan which only gets the first of them.
+public class Workload {
+
+    // Lines of a workload without orphans, lines / 2 pairs are written
+    private long lines = 1_000_000;
+
+    // Distinct ids of the complete pairs, 0 gives every pair an id of its own.
+    // An id used by more than one pair gets its items in turn.
+    private long idCardinality = 0;
+
+    // The two items of a pair are less than this many lines apart.
+    // The pairs are shuffled in blocks of this many lines.
+    private int locality = 10_000;
+
+    // Share of the pairs whose second item is missing
+    private double orphanRate = 0;
+
+    // Share of the lines which are cut off after the host, so they
+    // can not be parsed but their id can
+    private double malformedRate = 0;
+
+    private int hostCardinality = 1;
+
+    private int typeCardinality = 1;
+
+    // Durations of the pairs are drawn from 0 to this
+    private int maxDurationMs = 10;
+
+    // Writing threads, each of them renders whole blocks
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    // The same seed gives the same blocks, no matter how many threads write them
+    private long seed = 1;
+
+    public void validate() {
+        if (lines < 0) {
+            throw new IllegalArgumentException("Lines must not be negative: " + lines);
+        }
+        if (locality < 2) {
+            throw new IllegalArgumentException("Locality must be at least 2 lines: " + locality);
+        }
+        // Otherwise two pairs of the same id could be shuffled into each other
+        if (idCardinality != 0 && idCardinality < locality / 2) {
+            throw new IllegalArgumentException("Id cardinality " + idCardinality
+                    + " must be 0 or at least the pairs of a block, " + locality / 2);
+        }
+        if (idCardinality < 0 || idCardinality > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Id cardinality must be between 0 and " + Integer.MAX_VALUE);
+        }
+        if (orphanRate < 0 || orphanRate > 1 || malformedRate < 0 || malformedRate > 1) {
+            throw new IllegalArgumentException("Rates must be between 0 and 1");
+        }
+        if (hostCardinality < 1 || typeCardinality < 1 || maxDurationMs < 0 || threads < 1) {
+            throw new IllegalArgumentException("Invalid host or type cardinality, duration or thread count");
+        }
+    }
+
+    public long getLines() {
+        return lines;
+    }
+
+    public void setLines(long lines) {
+        this.lines = lines;
+    }
+
+    public long getIdCardinality() {
+        return idCardinality;
+    }
+
+    public void setIdCardinality(long idCardinality) {
+        this.idCardinality = idCardinality;
+    }
+
+    public int getLocality() {
+        return locality;
+    }
+
+    public void setLocality(int locality) {
+        this.locality = locality;
+    }
+
+    public double getOrphanRate() {
+        return orphanRate;
+    }
+
+    public void setOrphanRate(double orphanRate) {
+        this.orphanRate = orphanRate;
+    }
+
+    public double getMalformedRate() {
+        return malformedRate;
+    }
+
+    public void setMalformedRate(double malformedRate) {
+        this.malformedRate = malformedRate;
+    }
+
+    public int getHostCardinality() {
+        return hostCardinality;
+    }
+
+    public void setHostCardinality(int hostCardinality) {
+        this.hostCardinality = hostCardinality;
+    }
+
+    public int getTypeCardinality() {
+        return typeCardinality;
+    }
+
+    public void setTypeCardinality(int typeCardinality) {
+        this.typeCardinality = typeCardinality;
+    }
+
+    public int getMaxDurationMs() {
+        return maxDurationMs;
+    }
+
+    public void setMaxDurationMs(int maxDurationMs) {
+        this.maxDurationMs = maxDurationMs;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public String toString() {
+        return "lines=" + lines + ", idCardinality=" + idCardinality + ", locality=" + locality
+                + ", orphanRate=" + orphanRate + ", malformedRate=" + malformedRate
+                + ", hosts=" + hostCardinality + ", types=" + typeCardinality
+                + ", maxDurationMs=" + maxDurationMs + ", threads=" + threads + ", seed=" + seed;
+    }
+}
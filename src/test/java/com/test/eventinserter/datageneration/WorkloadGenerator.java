@@ -0,0 +1,300 @@
+package com.test.eventinserter.datageneration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Writes a synthetic workload without holding it in memory. The pairs are
+// split into blocks of Workload.locality lines, and the lines of a block
+// are shuffled, so the two items of a pair are never further apart than a
+// block. Blocks are independent of each other, every block draws from a
+// random generator seeded with its index. The writing threads take blocks
+// in turn, render them into a buffer and write the buffer to the file at
+// the next free position once it holds a few MB. A block is never split
+// between two writes, so the order of the blocks depends on the threads
+// but the distance of the items of a pair does not.
+public class WorkloadGenerator {
+
+    private static Logger logger = LoggerFactory.getLogger(WorkloadGenerator.class);
+
+    // A thread writes its buffer once it holds this much
+    private static final int CHUNK_BYTES = 4 * 1024 * 1024;
+
+    private static final long BASE_TIMESTAMP = 1491377495212L;
+
+    // The pairs of a block start within this many ms
+    private static final int BLOCK_SPAN_MS = 1000;
+
+    private static final String[] TYPES = {"APPLICATION_LOG", "SYSTEM_LOG", "SECURITY_LOG", "AUDIT_LOG"};
+
+    private static final byte SEEN = 1;
+    private static final byte STARTED_FIRST = 2;
+    private static final byte ORPHAN = 4;
+    // The first item was malformed, the second is left in the pairing store
+    private static final byte BROKEN = 8;
+
+    private final Workload workload;
+    private final long pairs;
+    private final int pairsPerBlock;
+    private final long blocks;
+    private final String[] hosts;
+    private final String[] types;
+
+    public WorkloadGenerator(Workload workload) {
+        workload.validate();
+        this.workload = workload;
+        this.pairs = workload.getLines() / 2;
+        this.pairsPerBlock = workload.getLocality() / 2;
+        this.blocks = (pairs + pairsPerBlock - 1) / pairsPerBlock;
+
+        hosts = new String[workload.getHostCardinality()];
+        for (int i = 0; i < hosts.length; i++) {
+            hosts[i] = String.valueOf(12345 + i);
+        }
+        types = new String[workload.getTypeCardinality()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = i < TYPES.length ? TYPES[i] : TYPES[i % TYPES.length] + "_" + i / TYPES.length;
+        }
+    }
+
+    public Result generate(File file) throws IOException {
+        logger.info("Started creating file with workload: {}", workload);
+        long startedAt = System.nanoTime();
+        AtomicLong nextBlock = new AtomicLong();
+        AtomicLong position = new AtomicLong();
+        Result result = new Result();
+
+        ExecutorService executor = Executors.newFixedThreadPool(workload.getThreads(), r -> {
+            Thread thread = new Thread(r, "workload-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            List<Future<Result>> writers = new ArrayList<>();
+            for (int i = 0; i < workload.getThreads(); i++) {
+                writers.add(executor.submit(() -> new BlockWriter(channel).write(nextBlock, position)));
+            }
+            for (Future<Result> writer : writers) {
+                result.add(writer.get());
+            }
+            result.distinctEvents = workload.getIdCardinality() == 0
+                    ? result.events : result.completedIds.cardinality();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while generating " + file);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException("Could not generate " + file, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        result.nanos = System.nanoTime() - startedAt;
+
+        logger.info("File created with {} lines and size {} MB in {} ms!", result.lines,
+                result.bytes / (1024 * 1024), result.nanos / 1_000_000);
+        return result;
+    }
+
+    // Pairs which leave an item behind get an id of their own,
+    // a later pair of a reused id would be paired with that item
+    private String idOf(long pair, boolean leavesItem) {
+        long idCardinality = workload.getIdCardinality();
+        if (idCardinality == 0) {
+            return String.valueOf(pair);
+        }
+        return String.valueOf(leavesItem ? idCardinality + pair : pair % idCardinality);
+    }
+
+    // Renders blocks for one writing thread, the state of the pairs of a block is reused
+    private class BlockWriter {
+
+        private final FileChannel channel;
+        private final int[] slots = new int[pairsPerBlock * 2];
+        private final byte[] flags = new byte[pairsPerBlock];
+        private final String[] ids = new String[pairsPerBlock];
+        private final long[] startTimestamps = new long[pairsPerBlock];
+        private final int[] durations = new int[pairsPerBlock];
+        private final int[] hostIndexes = new int[pairsPerBlock];
+        private final int[] typeIndexes = new int[pairsPerBlock];
+        private final StringBuilder line = new StringBuilder(128);
+        private final Result result = new Result();
+        private byte[] buffer = new byte[CHUNK_BYTES + 64 * 1024];
+        private int length;
+
+        private BlockWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private Result write(AtomicLong nextBlock, AtomicLong position) throws IOException {
+            long block;
+            while ((block = nextBlock.getAndIncrement()) < blocks) {
+                render(block);
+                if (length >= CHUNK_BYTES) {
+                    flush(position);
+                }
+            }
+            flush(position);
+            return result;
+        }
+
+        private void render(long block) {
+            SplittableRandom random = new SplittableRandom(workload.getSeed() * 0x9E3779B97F4A7C15L + block);
+            long firstPair = block * pairsPerBlock;
+            int blockPairs = (int) Math.min(pairsPerBlock, pairs - firstPair);
+            int items = blockPairs * 2;
+
+            for (int i = 0; i < blockPairs; i++) {
+                slots[2 * i] = i;
+                slots[2 * i + 1] = i;
+                flags[i] = 0;
+            }
+            for (int i = items - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int slot = slots[i];
+                slots[i] = slots[j];
+                slots[j] = slot;
+            }
+
+            long blockStart = BASE_TIMESTAMP + block * BLOCK_SPAN_MS;
+            for (int i = 0; i < items; i++) {
+                int pair = slots[i];
+                if ((flags[pair] & SEEN) == 0) {
+                    boolean orphan = random.nextDouble() < workload.getOrphanRate();
+                    boolean malformed = random.nextDouble() < workload.getMalformedRate();
+                    boolean startedFirst = random.nextBoolean();
+                    flags[pair] = (byte) (SEEN | (startedFirst ? STARTED_FIRST : 0)
+                            | (orphan ? ORPHAN : 0) | (malformed ? BROKEN : 0));
+                    ids[pair] = idOf(firstPair + pair, orphan || malformed);
+                    startTimestamps[pair] = blockStart + random.nextInt(BLOCK_SPAN_MS);
+                    durations[pair] = random.nextInt(workload.getMaxDurationMs() + 1);
+                    hostIndexes[pair] = random.nextInt(hosts.length);
+                    typeIndexes[pair] = random.nextInt(types.length);
+
+                    append(pair, startedFirst, malformed);
+                    if (orphan) {
+                        result.orphans++;
+                    }
+                } else if ((flags[pair] & ORPHAN) == 0) {
+                    boolean malformed = random.nextDouble() < workload.getMalformedRate();
+                    append(pair, (flags[pair] & STARTED_FIRST) == 0, malformed);
+                    if (!malformed && (flags[pair] & BROKEN) == 0) {
+                        result.events++;
+                        if (workload.getIdCardinality() != 0) {
+                            result.completedIds.set((int) ((firstPair + pair) % workload.getIdCardinality()));
+                        }
+                    }
+                }
+            }
+        }
+
+        // A malformed line is cut off after the host, its id can still be read
+        private void append(int pair, boolean started, boolean malformed) {
+            line.setLength(0);
+            line.append("{\"id\":\"").append(ids[pair])
+                    .append("\",\"state\":\"").append(started ? "STARTED" : "FINISHED")
+                    .append("\",\"type\":\"").append(types[typeIndexes[pair]])
+                    .append("\",\"host\":\"").append(hosts[hostIndexes[pair]]).append("\",");
+            if (malformed) {
+                result.malformedLines++;
+            } else {
+                long timestamp = startTimestamps[pair] + (started ? 0 : durations[pair]);
+                line.append("\"timestamp\":").append(timestamp).append('}');
+            }
+            line.append('\n');
+
+            int lineLength = line.length();
+            if (length + lineLength > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + lineLength));
+            }
+            for (int i = 0; i < lineLength; i++) {
+                buffer[length++] = (byte) line.charAt(i);
+            }
+            result.lines++;
+        }
+
+        private void flush(AtomicLong position) throws IOException {
+            if (length == 0) {
+                return;
+            }
+            long at = position.getAndAdd(length);
+            ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, length);
+            while (bytes.hasRemaining()) {
+                at += channel.write(bytes, at);
+            }
+            result.bytes += length;
+            length = 0;
+        }
+    }
+
+    // What was written, and the events the pipeline should save from it
+    public static class Result {
+
+        private long lines;
+        private long bytes;
+        private long events;
+        private long distinctEvents;
+        // Reused ids of which a pair was completed
+        private final BitSet completedIds = new BitSet();
+        private long orphans;
+        private long malformedLines;
+        private long nanos;
+
+        private void add(Result other) {
+            lines += other.lines;
+            bytes += other.bytes;
+            events += other.events;
+            completedIds.or(other.completedIds);
+            orphans += other.orphans;
+            malformedLines += other.malformedLines;
+        }
+
+        public long getLines() {
+            return lines;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        // Pairs with both items written and well formed
+        public long getEvents() {
+            return events;
+        }
+
+        // Events are saved once per id, so this is what the events table holds
+        public long getDistinctEvents() {
+            return distinctEvents;
+        }
+
+        public long getOrphans() {
+            return orphans;
+        }
+
+        public long getMalformedLines() {
+            return malformedLines;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.test.eventinserter.datageneration;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class WorkloadGeneratorTest {
+
+    @Test
+    public void should_WritePairsWithinLocality_ForUniqueIds() throws IOException {
+        Workload workload = new Workload();
+        workload.setLines(20000);
+        workload.setLocality(100);
+        workload.setThreads(4);
+
+        List<String> lines = generate(workload);
+
+        Assert.assertEquals(20000, lines.size());
+        Map<String, Integer> firstLines = new HashMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            Integer first = firstLines.remove(idOf(line));
+            if (first == null) {
+                firstLines.put(idOf(line), i);
+            } else {
+                Assert.assertTrue(i - first < 100);
+                Assert.assertNotEquals(line.contains("STARTED"), lines.get(first).contains("STARTED"));
+            }
+        }
+        Assert.assertTrue(firstLines.isEmpty());
+    }
+
+    @Test
+    public void should_WriteSameLines_ForAnyThreadCount() throws IOException {
+        Workload workload = new Workload();
+        workload.setLines(50000);
+        workload.setLocality(1000);
+        workload.setHostCardinality(10);
+        workload.setTypeCardinality(6);
+        workload.setThreads(1);
+        List<String> singleThreaded = generate(workload);
+
+        workload.setThreads(8);
+        List<String> multiThreaded = generate(workload);
+
+        Collections.sort(singleThreaded);
+        Collections.sort(multiThreaded);
+        Assert.assertEquals(singleThreaded, multiThreaded);
+    }
+
+    // Replays the lines the way the pairing store sees them: a malformed line removes its id
+    @Test
+    public void should_CountExpectedEvents_WithOrphansAndMalformedLines() throws IOException {
+        Workload workload = new Workload();
+        workload.setLines(100000);
+        workload.setLocality(200);
+        workload.setIdCardinality(100);
+        workload.setOrphanRate(0.1);
+        workload.setMalformedRate(0.05);
+        workload.setThreads(4);
+
+        File file = File.createTempFile("workload", "tmp");
+        file.deleteOnExit();
+        WorkloadGenerator.Result result = new WorkloadGenerator(workload).generate(file);
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.US_ASCII);
+
+        Set<String> stored = new HashSet<>();
+        Set<String> savedIds = new HashSet<>();
+        long events = 0;
+        long malformedLines = 0;
+        for (String line : lines) {
+            String id = idOf(line);
+            if (!line.endsWith("}")) {
+                malformedLines++;
+                stored.remove(id);
+            } else if (stored.remove(id)) {
+                events++;
+                savedIds.add(id);
+            } else {
+                stored.add(id);
+            }
+        }
+
+        Assert.assertEquals(lines.size(), result.getLines());
+        Assert.assertEquals(100000 - result.getOrphans(), result.getLines());
+        Assert.assertEquals(malformedLines, result.getMalformedLines());
+        Assert.assertEquals(events, result.getEvents());
+        Assert.assertEquals(savedIds.size(), result.getDistinctEvents());
+        Assert.assertTrue(result.getOrphans() > 0 && malformedLines > 0);
+    }
+
+    private static List<String> generate(Workload workload) throws IOException {
+        File file = File.createTempFile("workload", "tmp");
+        file.deleteOnExit();
+        new WorkloadGenerator(workload).generate(file);
+        return new ArrayList<>(Files.readAllLines(file.toPath(), StandardCharsets.US_ASCII));
+    }
+
+    private static String idOf(String line) {
+        int start = line.indexOf("\"id\":\"") + 6;
+        return line.substring(start, line.indexOf('"', start));
+    }
+}
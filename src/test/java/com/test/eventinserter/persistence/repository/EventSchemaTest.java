@@ -0,0 +1,83 @@
+package com.test.eventinserter.persistence.repository;
+
+import com.test.eventinserter.model.Event;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.HSQLDialect;
+import org.hibernate.tool.hbm2ddl.SchemaExport;
+import org.hibernate.tool.schema.TargetType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class EventSchemaTest {
+
+    @Test
+    public void should_MatchHibernateSchema_IfTableIsCreatedWithoutHibernate() throws SQLException {
+        String hibernateUrl = "jdbc:hsqldb:mem:schema-hibernate";
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.URL, hibernateUrl)
+                .applySetting(AvailableSettings.USER, "sa")
+                .applySetting(AvailableSettings.PASS, "")
+                .applySetting(AvailableSettings.DIALECT, HSQLDialect.class.getName())
+                .build();
+        try {
+            new SchemaExport().create(EnumSet.of(TargetType.DATABASE),
+                    new MetadataSources(registry).addAnnotatedClass(Event.class).buildMetadata());
+        } finally {
+            StandardServiceRegistryBuilder.destroy(registry);
+        }
+
+        String leanUrl = "jdbc:hsqldb:mem:schema-lean";
+        try (Connection connection = DriverManager.getConnection(leanUrl, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute(EventSchema.CREATE_TABLE_SQL);
+            for (String sql : EventSchema.createIndexSql()) {
+                statement.execute(sql);
+            }
+        }
+
+        Assert.assertEquals(columns(hibernateUrl), columns(leanUrl));
+        Assert.assertEquals(indexes(hibernateUrl), indexes(leanUrl));
+    }
+
+    // Type, size and nullability by column name
+    private static Map<String, String> columns(String url) throws SQLException {
+        Map<String, String> columns = new TreeMap<>();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             ResultSet rows = connection.getMetaData().getColumns(null, null, "EVENT", null)) {
+            while (rows.next()) {
+                columns.put(rows.getString("COLUMN_NAME"), rows.getString("TYPE_NAME") + "("
+                        + rows.getInt("COLUMN_SIZE") + ") " + rows.getString("IS_NULLABLE"));
+            }
+        }
+        Assert.assertFalse(columns.isEmpty());
+        return columns;
+    }
+
+    // Columns of the declared indexes in their order, without the one of the primary key
+    private static Map<String, String> indexes(String url) throws SQLException {
+        Map<String, String> indexes = new TreeMap<>();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             ResultSet rows = connection.getMetaData().getIndexInfo(null, null, "EVENT", false, false)) {
+            while (rows.next()) {
+                String name = rows.getString("INDEX_NAME");
+                if (name.startsWith("IDX_EVENT_")) {
+                    indexes.merge(name, rows.getString("COLUMN_NAME"), (first, next) -> first + "," + next);
+                }
+            }
+        }
+        Assert.assertFalse(indexes.isEmpty());
+        return indexes;
+    }
+}
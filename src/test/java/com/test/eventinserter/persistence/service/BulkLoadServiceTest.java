@@ -0,0 +1,108 @@
+package com.test.eventinserter.persistence.service;
+
+import com.test.eventinserter.persistence.repository.EventSchema;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.powermock.reflect.Whitebox;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class BulkLoadServiceTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private RecordingJdbcTemplate jdbcTemplate;
+    private BulkLoadService bulkLoadService;
+
+    @Before
+    public void setUp() {
+        String url = "jdbc:hsqldb:file:" + temporaryFolder.getRoot().getAbsolutePath() + "/event_db";
+        jdbcTemplate = new RecordingJdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+        jdbcTemplate.execute(EventSchema.CREATE_TABLE_SQL);
+        EventSchema.createIndexSql().forEach(jdbcTemplate::execute);
+        jdbcTemplate.statements.clear();
+
+        bulkLoadService = new BulkLoadService(jdbcTemplate);
+        Whitebox.setInternalState(bulkLoadService, "enabled", true);
+    }
+
+    @After
+    public void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    public void should_DropIndexesAndLog_IfTableIsEmpty() throws SQLException {
+        Assert.assertTrue(bulkLoadService.begin());
+
+        Assert.assertTrue(eventIndexes().isEmpty());
+        Assert.assertTrue(jdbcTemplate.statements.contains("SET FILES LOG FALSE"));
+    }
+
+    @Test
+    public void should_RecreateSameIndexesAndLog_IfLoadIsFinished() throws SQLException {
+        Map<String, List<String>> indexes = eventIndexes();
+        Assert.assertEquals(4, indexes.size());
+
+        bulkLoadService.begin();
+        jdbcTemplate.update("INSERT INTO EVENT VALUES ('a', 3, 'APPLICATION_LOG', '12345', FALSE)");
+        bulkLoadService.finish();
+
+        Assert.assertEquals(indexes, eventIndexes());
+        List<String> statements = jdbcTemplate.statements;
+        Assert.assertTrue(statements.indexOf("SET FILES LOG TRUE") > statements.indexOf("SET FILES LOG FALSE"));
+    }
+
+    @Test
+    public void should_KeepIndexes_IfTableHasRows() throws SQLException {
+        jdbcTemplate.update("INSERT INTO EVENT VALUES ('a', 3, 'APPLICATION_LOG', '12345', FALSE)");
+
+        Assert.assertFalse(bulkLoadService.begin());
+        Assert.assertEquals(4, eventIndexes().size());
+        Assert.assertFalse(jdbcTemplate.statements.contains("SET FILES LOG FALSE"));
+    }
+
+    // Columns of the idx_event_ indexes in their order
+    private Map<String, List<String>> eventIndexes() throws SQLException {
+        Map<String, List<String>> indexes = new TreeMap<>();
+        try (Connection connection = jdbcTemplate.getDataSource().getConnection();
+             ResultSet rows = connection.getMetaData().getIndexInfo(null, "PUBLIC", "EVENT", false, false)) {
+            while (rows.next()) {
+                if (rows.getString("INDEX_NAME").startsWith("IDX_EVENT_")) {
+                    indexes.computeIfAbsent(rows.getString("INDEX_NAME"), key -> new ArrayList<>())
+                            .add(rows.getShort("ORDINAL_POSITION") + ":" + rows.getString("COLUMN_NAME"));
+                }
+            }
+        }
+        return indexes;
+    }
+
+    // The state of the log is not visible in the schema, the statements are
+    private static class RecordingJdbcTemplate extends JdbcTemplate {
+
+        private final List<String> statements = new ArrayList<>();
+
+        RecordingJdbcTemplate(DriverManagerDataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public void execute(String sql) {
+            statements.add(sql);
+            super.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.test.eventinserter.persistence.service;
+
+import com.test.eventinserter.model.Event;
+import com.test.eventinserter.persistence.repository.EventBatchRepository;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Events are inserted in the transaction of each test and rolled back after it
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class EventQueryServiceTest {
+
+    @Autowired
+    EventQueryService eventQueryService;
+
+    @Autowired
+    EventBatchRepository eventBatchRepository;
+
+    @Before
+    public void setUp() {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Event event = new Event();
+            event.setId(String.format("query-%02d", i));
+            event.setHost("host-" + (i % 2));
+            event.setType(i % 5 == 0 ? "SYSTEM_LOG" : "APPLICATION_LOG");
+            event.setDuration((long) (i % 10));
+            event.setAlert(i % 10 > 4);
+            events.add(event);
+        }
+        eventBatchRepository.insertAll(events);
+    }
+
+    @Test
+    public void should_StreamOnlyMatchingEvents_ForEveryFilter() {
+        List<Event> events = new ArrayList<>();
+        eventQueryService.forEachEventOfHost("host-1", events::add);
+        Assert.assertEquals(25, events.size());
+        events.forEach(event -> Assert.assertEquals("host-1", event.getHost()));
+
+        Assert.assertEquals(10, count(action -> eventQueryService.forEachEventOfType("SYSTEM_LOG", action)));
+        Assert.assertEquals(25, count(action -> eventQueryService.forEachEventWithAlert(true, action)));
+        Assert.assertEquals(15, count(action -> eventQueryService.forEachEventWithDuration(2, 4, action)));
+    }
+
+    @Test
+    public void should_ReturnEveryEventOnce_IfPagesFollowTheLastEvent() {
+        List<String> ids = new ArrayList<>();
+        List<Event> page = eventQueryService.findPageOfHost("host-0", null, 7);
+        while (!page.isEmpty()) {
+            page.forEach(event -> ids.add(event.getId()));
+            page = eventQueryService.findPageOfHost("host-0", page.get(page.size() - 1), 7);
+        }
+
+        Assert.assertEquals(25, ids.size());
+        for (int i = 1; i < ids.size(); i++) {
+            Assert.assertTrue(ids.get(i - 1).compareTo(ids.get(i)) < 0);
+        }
+    }
+
+    @Test
+    public void should_PageByDurationAndId_ForDurationRange() {
+        List<Event> events = new ArrayList<>();
+        List<Event> page = eventQueryService.findPageWithDuration(3, 5, null, 4);
+        while (!page.isEmpty()) {
+            events.addAll(page);
+            page = eventQueryService.findPageWithDuration(3, 5, page.get(page.size() - 1), 4);
+        }
+
+        Assert.assertEquals(15, events.size());
+        Assert.assertEquals(3L, (long) events.get(0).getDuration());
+        Assert.assertEquals(5L, (long) events.get(events.size() - 1).getDuration());
+    }
+
+    @Test
+    public void should_ReturnFirstPage_IfRangeStartsAtLowestDuration() {
+        List<Event> page = eventQueryService.findPageWithDuration(Long.MIN_VALUE, 0, null, 10);
+
+        Assert.assertEquals(5, page.size());
+        page.forEach(event -> Assert.assertEquals(0L, (long) event.getDuration()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_Throw_IfEventToFollowHasNoDuration() {
+        Event after = new Event();
+        after.setId("query-00");
+        eventQueryService.findPageWithDuration(0, 9, after, 10);
+    }
+
+    private static int count(Consumer<Consumer<Event>> query) {
+        int[] count = new int[1];
+        query.accept(event -> count[0]++);
+        return count[0];
+    }
+}
@@ -0,0 +1,41 @@
+package com.test.eventinserter.persistence.service;
+
+import com.test.eventinserter.bl.metrics.PipelineMetrics;
+import com.test.eventinserter.model.Event;
+import com.test.eventinserter.persistence.repository.EventBatchRepository;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class EventServiceTest {
+
+    @Test
+    public void should_CountEventsAsLost_IfBatchCanNotBeWritten() {
+        EventBatchRepository eventBatchRepository = new EventBatchRepository(null) {
+            @Override
+            public void insertAll(List<Event> events) {
+                throw new DataAccessResourceFailureException("Database is gone");
+            }
+        };
+        PipelineMetrics pipelineMetrics = new PipelineMetrics();
+        EventService eventService = new EventService(null, eventBatchRepository, pipelineMetrics);
+
+        try {
+            eventService.saveEvents(Arrays.asList(event("a"), event("b")));
+            Assert.fail("Failure of the write is not thrown");
+        } catch (DataAccessResourceFailureException e) {
+            Assert.assertEquals(2, pipelineMetrics.getEventsLost());
+            Assert.assertEquals(0, pipelineMetrics.getEventsPersisted());
+        }
+    }
+
+    private static Event event(String id) {
+        Event event = new Event();
+        event.setId(id);
+        event.setDuration(1L);
+        return event;
+    }
+}